@@ -0,0 +1,143 @@
+package top.chukongxiang.mybatis.basemapper.benchmark;
+
+import cn.hutool.core.convert.BasicType;
+import cn.hutool.core.util.StrUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import top.chukongxiang.mybatis.basemapper.providers.ColumnDescriptor;
+import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * <p>读写宽表(81列)实体的所有字段，对比三种访问方式：</p>
+ * <ul>
+ *     <li>reflect：{@link ColumnDescriptor#getValue(Object)}/{@link ColumnDescriptor#setValue(Object, Object)}，hutool 反射</li>
+ *     <li>methodHandle：每个字段 unreflectGetter/unreflectSetter 得到的 MethodHandle，保存在实例字段中</li>
+ *     <li>lambdaMetafactory：通过 LambdaMetafactory 为 getter/setter 方法生成的 Function/BiConsumer</li>
+ * </ul>
+ * <p>值的类型和字段一致，不触发类型转换</p>
+ * <p>运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="ColumnAccessBenchmark"</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-10 15:05:18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnAccessBenchmark {
+
+    private List<ColumnDescriptor> columns;
+
+    private WideEntity entity;
+
+    /**
+     * 与 columns 一一对应的写入值
+     */
+    private Object[] values;
+
+    private MethodHandle[] handleGetters;
+
+    private MethodHandle[] handleSetters;
+
+    private Function<Object, Object>[] lambdaGetters;
+
+    private BiConsumer<Object, Object>[] lambdaSetters;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws Throwable {
+        columns = TableMetadata.forClass(WideEntity.class).getColumns();
+        entity = new WideEntity();
+        int size = columns.size();
+        values = new Object[size];
+        handleGetters = new MethodHandle[size];
+        handleSetters = new MethodHandle[size];
+        lambdaGetters = new Function[size];
+        lambdaSetters = new BiConsumer[size];
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (int i = 0; i < size; i++) {
+            Field field = columns.get(i).getField();
+            Class<?> type = field.getType();
+            if (type == Long.class) {
+                values[i] = (long) i;
+            } else if (type == Integer.class) {
+                values[i] = i;
+            } else {
+                values[i] = "v" + i;
+            }
+            field.setAccessible(true);
+            handleGetters[i] = lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+            handleSetters[i] = lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+            Method getter = WideEntity.class.getMethod("get" + StrUtil.upperFirst(field.getName()));
+            Method setter = WideEntity.class.getMethod("set" + StrUtil.upperFirst(field.getName()), type);
+            lambdaGetters[i] = (Function<Object, Object>) LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class), MethodType.methodType(Object.class, Object.class),
+                    lookup.unreflect(getter), MethodType.methodType(BasicType.wrap(type), WideEntity.class)).getTarget().invoke();
+            lambdaSetters[i] = (BiConsumer<Object, Object>) LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(BiConsumer.class), MethodType.methodType(void.class, Object.class, Object.class),
+                    lookup.unreflect(setter), MethodType.methodType(void.class, WideEntity.class, BasicType.wrap(type))).getTarget().invoke();
+
+            columns.get(i).setValue(entity, values[i]);
+        }
+    }
+
+    @Benchmark
+    public void getValueReflect(Blackhole blackhole) {
+        for (ColumnDescriptor column : columns) {
+            blackhole.consume(column.getValue(entity));
+        }
+    }
+
+    @Benchmark
+    public void getValueMethodHandle(Blackhole blackhole) throws Throwable {
+        for (MethodHandle getter : handleGetters) {
+            blackhole.consume((Object) getter.invokeExact((Object) entity));
+        }
+    }
+
+    @Benchmark
+    public void getValueLambdaMetafactory(Blackhole blackhole) {
+        for (Function<Object, Object> getter : lambdaGetters) {
+            blackhole.consume(getter.apply(entity));
+        }
+    }
+
+    @Benchmark
+    public WideEntity setValueReflect() {
+        for (int i = 0; i < values.length; i++) {
+            columns.get(i).setValue(entity, values[i]);
+        }
+        return entity;
+    }
+
+    @Benchmark
+    public WideEntity setValueMethodHandle() throws Throwable {
+        for (int i = 0; i < values.length; i++) {
+            handleSetters[i].invokeExact((Object) entity, values[i]);
+        }
+        return entity;
+    }
+
+    @Benchmark
+    public WideEntity setValueLambdaMetafactory() {
+        for (int i = 0; i < values.length; i++) {
+            lambdaSetters[i].accept(entity, values[i]);
+        }
+        return entity;
+    }
+
+}
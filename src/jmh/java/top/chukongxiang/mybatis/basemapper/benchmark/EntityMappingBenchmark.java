@@ -0,0 +1,112 @@
+package top.chukongxiang.mybatis.basemapper.benchmark;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.openjdk.jmh.annotations.*;
+import top.chukongxiang.mybatis.basemapper.interceptor.ResultMapInterceptor;
+import top.chukongxiang.mybatis.basemapper.providers.ColumnDescriptor;
+import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
+import top.chukongxiang.mybatis.basemapper.sql.QueryWrapper;
+import top.chukongxiang.mybatis.basemapper.sql.Wrappers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * <p>H2 内存库中查询宽表(81列) rows 行，对比结果集映射方式：</p>
+ * <ul>
+ *     <li>mybatis：不使用 {@link ResultMapInterceptor}，mybatis 自动映射</li>
+ *     <li>resultMap：生成的 ResultMap，fastMapping=false，由 DefaultResultSetHandler 映射</li>
+ *     <li>fast：生成的 ResultMap，由 EntityRowMapper 按列下标映射</li>
+ * </ul>
+ * <p>selectAll 查询所有列，selectProjection 通过 Wrapper 只查询5列(生成只包含这些列的 ResultMap)</p>
+ * <p>运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="EntityMappingBenchmark"</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-11 17:32:50
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityMappingBenchmark {
+
+    @Param({"fast", "resultMap", "mybatis"})
+    private String mapping;
+
+    @Param({"100"})
+    private int rows;
+
+    private SqlSession session;
+
+    private WideEntityMapper mapper;
+
+    private QueryWrapper<WideEntity> projection;
+
+    @Setup
+    public void setup() throws Exception {
+        UnpooledDataSource dataSource = new UnpooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:entity_mapping_" + mapping + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        List<ColumnDescriptor> columns = TableMetadata.forClass(WideEntity.class).getColumns();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS t_wide");
+            statement.execute("CREATE TABLE t_wide(" + columns.stream()
+                    .map(column -> column.getColumn() + (column.getField().getType() == String.class ? " VARCHAR(32)" : " BIGINT"))
+                    .collect(Collectors.joining(", ")) + ")");
+            String insert = "INSERT INTO t_wide VALUES(" + columns.stream().map(column -> "?").collect(Collectors.joining(", ")) + ")";
+            try (PreparedStatement ps = connection.prepareStatement(insert)) {
+                for (int row = 0; row < rows; row++) {
+                    for (int i = 0; i < columns.size(); i++) {
+                        if (columns.get(i).getField().getType() == String.class) {
+                            ps.setString(i + 1, "v" + row + "_" + i);
+                        } else {
+                            ps.setLong(i + 1, (long) row * columns.size() + i);
+                        }
+                    }
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+        Configuration configuration = new Configuration(new Environment("benchmark", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        if (!"mybatis".equals(mapping)) {
+            ResultMapInterceptor interceptor = new ResultMapInterceptor();
+            interceptor.setFastMapping("fast".equals(mapping));
+            configuration.addInterceptor(interceptor);
+        }
+        configuration.addMapper(WideEntityMapper.class);
+        session = new SqlSessionFactoryBuilder().build(configuration).openSession(true);
+        mapper = session.getMapper(WideEntityMapper.class);
+        projection = Wrappers.query(WideEntity.class).select("id", "column01", "column02", "column03", "column04");
+    }
+
+    @TearDown
+    public void tearDown() {
+        session.close();
+    }
+
+    @Benchmark
+    public List<WideEntity> selectAll() {
+        // 每次清空一级缓存，只比较查询和映射
+        session.clearCache();
+        return mapper.selectAll();
+    }
+
+    @Benchmark
+    public List<WideEntity> selectProjection() {
+        session.clearCache();
+        return mapper.selectList(projection);
+    }
+
+}
@@ -0,0 +1,94 @@
+package top.chukongxiang.mybatis.basemapper.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import top.chukongxiang.mybatis.basemapper.sql.QueryWrapper;
+import top.chukongxiang.mybatis.basemapper.sql.Wrappers;
+import top.chukongxiang.mybatis.basemapper.sql.core.InListStrategies;
+import top.chukongxiang.mybatis.basemapper.sql.core.WrapperShape;
+import top.chukongxiang.mybatis.basemapper.utils.LruCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>IN 列表补齐对语句缓存命中率的影响：每次查询 IN 列表长度在 1~{@link #MAX_SIZE} 之间随机，
+ * 按与 Provider 相同的方式以条件结构为 key 查询容量为 {@link #CACHE_CAPACITY} 的 LRU 缓存，未命中时生成SQL</p>
+ * <p>不补齐时每个长度一条SQL，补齐后只有 log2({@link #MAX_SIZE}) 条左右；命中/未命中次数见 hits、misses 计数</p>
+ * <p>运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="InListPaddingBenchmark"</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-10 17:02:15
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InListPaddingBenchmark {
+
+    private static final int MAX_SIZE = 256;
+
+    /**
+     * 与 mysql 驱动默认的 prepStmtCacheSize 同一量级
+     */
+    private static final int CACHE_CAPACITY = 32;
+
+    @Param({"false", "true"})
+    private boolean padding;
+
+    private List<Long> ids;
+
+    private Random random;
+
+    private LruCache<WrapperShape, String> cache;
+
+    @Setup
+    public void setup() {
+        ids = new ArrayList<>(MAX_SIZE);
+        for (long i = 1; i <= MAX_SIZE; i++) {
+            ids.add(i);
+        }
+        random = new Random(42);
+        cache = new LruCache<>(CACHE_CAPACITY);
+    }
+
+    @Benchmark
+    public String selectByRandomIds(CacheCounters counters) {
+        QueryWrapper<WideEntity> wrapper = Wrappers.query(WideEntity.class)
+                .in("id", ids.subList(0, 1 + random.nextInt(MAX_SIZE)));
+        return InListStrategies.padding(padding, () -> {
+            WrapperShape shape = wrapper.shape();
+            String sql = cache.getIfPresent(shape);
+            if (sql != null) {
+                counters.hits++;
+                return sql;
+            }
+            counters.misses++;
+            sql = wrapper.build().getSql();
+            cache.put(shape, sql);
+            return sql;
+        });
+    }
+
+    /**
+     * 每轮的缓存命中和未命中次数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CacheCounters {
+
+        public long hits;
+
+        public long misses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+}
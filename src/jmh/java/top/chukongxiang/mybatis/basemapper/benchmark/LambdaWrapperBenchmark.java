@@ -0,0 +1,73 @@
+package top.chukongxiang.mybatis.basemapper.benchmark;
+
+import cn.hutool.core.lang.func.Func1;
+import cn.hutool.core.lang.func.LambdaUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
+import top.chukongxiang.mybatis.basemapper.sql.LambdaQueryWrapper;
+import top.chukongxiang.mybatis.basemapper.sql.Wrappers;
+import top.chukongxiang.mybatis.basemapper.sql.core.SQLInfo;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>构造并生成一个8个条件的 LambdaQueryWrapper，以及不使用列解析缓存时解析同样8个 lambda 列的开销</p>
+ * <p>每次构造的内存分配通过 gc 分析器的 gc.alloc.rate.norm 查看</p>
+ * <p>运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="LambdaWrapperBenchmark -prof gc"</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-10 16:20:44
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LambdaWrapperBenchmark {
+
+    private static final List<Integer> IN_VALUES = Arrays.asList(1, 2, 3);
+
+    /**
+     * 与 lambdaQueryWrapper8Conditions 中相同的8个列
+     */
+    private List<Func1<WideEntity, ?>> columns;
+
+    private TableMetadata<WideEntity> metadata;
+
+    @Setup
+    public void setup() {
+        metadata = TableMetadata.forClass(WideEntity.class);
+        columns = Arrays.asList(WideEntity::getId, WideEntity::getColumn01, WideEntity::getColumn02, WideEntity::getColumn03,
+                WideEntity::getColumn04, WideEntity::getColumn05, WideEntity::getColumn06, WideEntity::getColumn07);
+    }
+
+    @Benchmark
+    public SQLInfo<WideEntity> lambdaQueryWrapper8Conditions() {
+        LambdaQueryWrapper<WideEntity> wrapper = Wrappers.lambdaQuery(WideEntity.class)
+                .eq(WideEntity::getId, 1L)
+                .ne(WideEntity::getColumn01, "a")
+                .gt(WideEntity::getColumn02, 10)
+                .likeRight(WideEntity::getColumn03, "b")
+                .le(WideEntity::getColumn04, 20)
+                .like(WideEntity::getColumn05, "c")
+                .in(WideEntity::getColumn06, IN_VALUES)
+                .orderByDesc(WideEntity::getColumn07);
+        return wrapper.build();
+    }
+
+    /**
+     * 缓存之前每个 lambda 列的解析：通过 SerializedLambda 取实体类和字段名，再查找列名
+     */
+    @Benchmark
+    public void resolveLambdaColumnsUncached(Blackhole blackhole) {
+        for (Func1<WideEntity, ?> column : columns) {
+            blackhole.consume(LambdaUtil.getRealClass(column));
+            blackhole.consume(metadata.lookupColumn(LambdaUtil.getFieldName(column)));
+        }
+    }
+
+}
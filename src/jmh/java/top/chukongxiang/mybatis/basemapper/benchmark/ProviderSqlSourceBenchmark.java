@@ -0,0 +1,97 @@
+package top.chukongxiang.mybatis.basemapper.benchmark;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.scripting.LanguageDriver;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.*;
+import top.chukongxiang.mybatis.basemapper.BaseMapper;
+import top.chukongxiang.mybatis.basemapper.providers.BaseMapperLanguageDriver;
+import top.chukongxiang.mybatis.basemapper.providers.MapperSelectProvider;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>ProviderSqlSource 每次执行时把 Provider 返回的SQL交给 LanguageDriver，对比解析和缓存的开销：</p>
+ * <ul>
+ *     <li>parse：XMLLanguageDriver 每次解析SQL，相当于没有 {@link BaseMapperLanguageDriver} 时的行为</li>
+ *     <li>cached：{@link BaseMapperLanguageDriver} 按 参数类型 + SQL 返回缓存的 SqlSource</li>
+ *     <li>providerSqlSource：MappedStatement.getBoundSql，包含调用 Provider 方法、读取 SQL_CACHE 和 cached 的开销</li>
+ * </ul>
+ * <p>statement 为 selectById 时是不带 &lt;script&gt; 的静态SQL，为 selectByIds 时是带 foreach 的动态SQL</p>
+ * <p>运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="ProviderSqlSourceBenchmark"</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-11 16:48:25
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProviderSqlSourceBenchmark {
+
+    @Param({"selectById", "selectByIds"})
+    private String statement;
+
+    private Configuration configuration;
+
+    private MappedStatement ms;
+
+    private String script;
+
+    private Object parameter;
+
+    private Class<?> parameterType;
+
+    private LanguageDriver xmlDriver;
+
+    private LanguageDriver cachedDriver;
+
+    @Setup
+    public void setup() throws Throwable {
+        configuration = new Configuration();
+        configuration.addMapper(WideEntityMapper.class);
+        ms = configuration.getMappedStatement(WideEntityMapper.class.getName() + "." + statement);
+        Method method;
+        Object arg;
+        if ("selectById".equals(statement)) {
+            method = BaseMapper.class.getMethod("selectById", Serializable.class);
+            arg = 1L;
+            script = MapperSelectProvider.buildSelectByIdSql(WideEntity.class);
+        } else {
+            method = BaseMapper.class.getMethod("selectByIds", Collection.class);
+            arg = Arrays.asList(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+            script = MapperSelectProvider.buildSelectByIdsSql(WideEntity.class);
+        }
+        // 与 MapperMethod 转换参数的方式相同
+        parameter = new ParamNameResolver(configuration, method).getNamedParams(new Object[]{arg});
+        parameterType = parameter.getClass();
+        xmlDriver = new XMLLanguageDriver();
+        cachedDriver = new BaseMapperLanguageDriver();
+        ms.getBoundSql(parameter);
+    }
+
+    @Benchmark
+    public BoundSql parse() {
+        return xmlDriver.createSqlSource(configuration, script, parameterType).getBoundSql(parameter);
+    }
+
+    @Benchmark
+    public BoundSql cached() {
+        return cachedDriver.createSqlSource(configuration, script, parameterType).getBoundSql(parameter);
+    }
+
+    @Benchmark
+    public BoundSql providerSqlSource() {
+        return ms.getBoundSql(parameter);
+    }
+
+}
@@ -0,0 +1,79 @@
+package top.chukongxiang.mybatis.basemapper.benchmark;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.openjdk.jmh.annotations.*;
+import top.chukongxiang.mybatis.basemapper.interceptor.ResultMapInterceptor;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>{@link ResultMapInterceptor} 每次查询的额外开销，Executor 是直接返回空结果的桩，不访问数据库</p>
+ * <ul>
+ *     <li>proceedOnly：不经过拦截器，直接执行</li>
+ *     <li>intercept：ResultMap 已生成并缓存后的查询</li>
+ *     <li>interceptFirstHit：每次使用新的拦截器，相当于每次查询都重新加载 Mapper、扫描方法、生成 ResultMap</li>
+ * </ul>
+ * <p>运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="ResultMapInterceptorBenchmark"</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-10 15:42:31
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultMapInterceptorBenchmark {
+
+    private Method queryMethod;
+
+    private Executor executor;
+
+    private MappedStatement ms;
+
+    private ResultMapInterceptor interceptor;
+
+    @Setup
+    public void setup() throws Throwable {
+        Configuration configuration = new Configuration();
+        configuration.addMapper(WideEntityMapper.class);
+        ms = configuration.getMappedStatement(WideEntityMapper.class.getName() + ".selectAll");
+        queryMethod = Executor.class.getMethod("query", MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class);
+        executor = (Executor) Proxy.newProxyInstance(Executor.class.getClassLoader(), new Class<?>[]{Executor.class},
+                (proxy, method, args) -> Collections.emptyList());
+        interceptor = new ResultMapInterceptor();
+        interceptor.intercept(invocation());
+    }
+
+    @Benchmark
+    public Object proceedOnly() throws Exception {
+        return invocation().proceed();
+    }
+
+    @Benchmark
+    public Object intercept() throws Throwable {
+        return interceptor.intercept(invocation());
+    }
+
+    @Benchmark
+    public Object interceptFirstHit() throws Throwable {
+        return new ResultMapInterceptor().intercept(invocation());
+    }
+
+    /**
+     * 拦截器会替换参数中的 MappedStatement，每次使用新的参数数组
+     */
+    private Invocation invocation() {
+        return new Invocation(executor, queryMethod, new Object[]{ms, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER});
+    }
+
+}
@@ -0,0 +1,98 @@
+package top.chukongxiang.mybatis.basemapper.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
+import top.chukongxiang.mybatis.basemapper.sql.QueryWrapper;
+import top.chukongxiang.mybatis.basemapper.sql.Wrappers;
+import top.chukongxiang.mybatis.basemapper.sql.core.SQLInfo;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>宽表(80列)上按属性名查找列：哈希索引与原来遍历所有字段的对比，以及构造20个条件的 QueryWrapper</p>
+ * <p>运行：mvn -Pbenchmark test-compile exec:exec -Djmh.args="TableMetadataBenchmark"</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-10 14:12:40
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableMetadataBenchmark {
+
+    private TableMetadata<WideEntity> metadata;
+
+    /**
+     * 20个查询属性，取实体后部的字段，遍历查找时接近最坏情况
+     */
+    private String[] properties;
+
+    @Setup
+    public void setup() {
+        metadata = TableMetadata.forClass(WideEntity.class);
+        properties = new String[20];
+        for (int i = 0; i < properties.length; i++) {
+            properties[i] = String.format("column%02d", 61 + i);
+        }
+    }
+
+    @Benchmark
+    public void lookupColumnIndexed(Blackhole blackhole) {
+        for (String property : properties) {
+            blackhole.consume(metadata.lookupColumn(property));
+        }
+    }
+
+    @Benchmark
+    public void lookupColumnLinearScan(Blackhole blackhole) {
+        for (String property : properties) {
+            blackhole.consume(linearLookupColumn(property));
+        }
+    }
+
+    @Benchmark
+    public SQLInfo<WideEntity> queryWrapper20Conditions() {
+        QueryWrapper<WideEntity> wrapper = Wrappers.query(WideEntity.class);
+        for (int i = 0; i < properties.length; i++) {
+            switch (i % 4) {
+                case 0: {
+                    wrapper.eq(properties[i], "v" + i);
+                    break;
+                }
+                case 1: {
+                    wrapper.ge(properties[i], i);
+                    break;
+                }
+                case 2: {
+                    wrapper.likeRight(properties[i], "p" + i);
+                    break;
+                }
+                default: {
+                    wrapper.in(properties[i], Arrays.asList(i, i + 1, i + 2));
+                    break;
+                }
+            }
+        }
+        return wrapper.build();
+    }
+
+    /**
+     * 建立索引之前的实现：遍历所有字段比较属性名
+     */
+    private String linearLookupColumn(String fieldName) {
+        for (Field field : metadata.getFieldColumnMap().keySet()) {
+            if (Objects.equals(field.getName(), fieldName)) {
+                return metadata.getWrappedColumn(field);
+            }
+        }
+        return null;
+    }
+
+}
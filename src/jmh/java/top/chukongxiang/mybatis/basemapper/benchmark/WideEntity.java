@@ -0,0 +1,102 @@
+package top.chukongxiang.mybatis.basemapper.benchmark;
+
+import lombok.Data;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableId;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableName;
+import top.chukongxiang.mybatis.basemapper.model.enums.IdType;
+
+/**
+ * 基准测试用的宽表实体，80个普通列
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-10 14:05:18
+ */
+@Data
+@TableName("t_wide")
+public class WideEntity {
+
+    @TableId(type = IdType.ASSIGN_ID)
+    private Long id;
+
+    private String column01;
+    private Integer column02;
+    private String column03;
+    private Integer column04;
+    private String column05;
+    private Integer column06;
+    private String column07;
+    private Integer column08;
+    private String column09;
+    private Integer column10;
+    private String column11;
+    private Integer column12;
+    private String column13;
+    private Integer column14;
+    private String column15;
+    private Integer column16;
+    private String column17;
+    private Integer column18;
+    private String column19;
+    private Integer column20;
+    private String column21;
+    private Integer column22;
+    private String column23;
+    private Integer column24;
+    private String column25;
+    private Integer column26;
+    private String column27;
+    private Integer column28;
+    private String column29;
+    private Integer column30;
+    private String column31;
+    private Integer column32;
+    private String column33;
+    private Integer column34;
+    private String column35;
+    private Integer column36;
+    private String column37;
+    private Integer column38;
+    private String column39;
+    private Integer column40;
+    private String column41;
+    private Integer column42;
+    private String column43;
+    private Integer column44;
+    private String column45;
+    private Integer column46;
+    private String column47;
+    private Integer column48;
+    private String column49;
+    private Integer column50;
+    private String column51;
+    private Integer column52;
+    private String column53;
+    private Integer column54;
+    private String column55;
+    private Integer column56;
+    private String column57;
+    private Integer column58;
+    private String column59;
+    private Integer column60;
+    private String column61;
+    private Integer column62;
+    private String column63;
+    private Integer column64;
+    private String column65;
+    private Integer column66;
+    private String column67;
+    private Integer column68;
+    private String column69;
+    private Integer column70;
+    private String column71;
+    private Integer column72;
+    private String column73;
+    private Integer column74;
+    private String column75;
+    private Integer column76;
+    private String column77;
+    private Integer column78;
+    private String column79;
+    private Integer column80;
+
+}
@@ -0,0 +1,12 @@
+package top.chukongxiang.mybatis.basemapper.benchmark;
+
+import top.chukongxiang.mybatis.basemapper.BaseMapper;
+
+/**
+ * 基准测试用的宽表 Mapper
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-10 15:40:06
+ */
+public interface WideEntityMapper extends BaseMapper<WideEntity> {
+}
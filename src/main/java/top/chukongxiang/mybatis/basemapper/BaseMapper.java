@@ -3,10 +3,12 @@ package top.chukongxiang.mybatis.basemapper;
 import org.apache.ibatis.annotations.*;
 import org.apache.ibatis.builder.annotation.ProviderContext;
 import top.chukongxiang.mybatis.basemapper.model.Constants;
+import top.chukongxiang.mybatis.basemapper.providers.BaseMapperLanguageDriver;
 import top.chukongxiang.mybatis.basemapper.providers.MapperDeleteProvider;
 import top.chukongxiang.mybatis.basemapper.providers.MapperInsertProvider;
 import top.chukongxiang.mybatis.basemapper.providers.MapperSelectProvider;
 import top.chukongxiang.mybatis.basemapper.providers.MapperUpdateProvider;
+import top.chukongxiang.mybatis.basemapper.providers.WrapperLanguageDriver;
 import top.chukongxiang.mybatis.basemapper.sql.core.WrapperQuery;
 import top.chukongxiang.mybatis.basemapper.sql.core.WrapperUpdate;
 
@@ -28,6 +30,7 @@ public interface BaseMapper<T> {
      * @return 实体信息[]
      */
     @SelectProvider(type = MapperSelectProvider.class, method = "selectAll")
+    @Lang(BaseMapperLanguageDriver.class)
     List<T> selectAll();
 
     /**
@@ -37,6 +40,7 @@ public interface BaseMapper<T> {
      * @return 实体
      */
     @SelectProvider(type = MapperSelectProvider.class, method = "selectById")
+    @Lang(BaseMapperLanguageDriver.class)
     T selectById(Serializable id);
 
     /**
@@ -44,9 +48,10 @@ public interface BaseMapper<T> {
      *
      * @param ids id数组
      * @return 实体列表
-     * @see MapperSelectProvider#selectByIds(ProviderContext)
+     * @see MapperSelectProvider#selectByIds(ProviderContext, Map)
      */
     @SelectProvider(type = MapperSelectProvider.class, method = "selectByIds")
+    @Lang(BaseMapperLanguageDriver.class)
     List<T> selectByIds(@Param(Constants.COLLECTION) Collection<? extends Serializable> ids);
 
     /**
@@ -54,9 +59,10 @@ public interface BaseMapper<T> {
      *
      * @param ids id数组
      * @return 实体列表
-     * @see MapperSelectProvider#selectByIds(ProviderContext)
+     * @see MapperSelectProvider#selectByIds(ProviderContext, Map)
      */
     @SelectProvider(type = MapperSelectProvider.class, method = "selectByIds")
+    @Lang(BaseMapperLanguageDriver.class)
     List<T> selectByIdsArr(@Param(Constants.COLLECTION) Serializable[] ids);
 
     /**
@@ -66,6 +72,7 @@ public interface BaseMapper<T> {
      * @see MapperSelectProvider#selectWrapper(ProviderContext, Map)
      */
     @SelectProvider(type = MapperSelectProvider.class, method = "selectWrapper")
+    @Lang(WrapperLanguageDriver.class)
     <E extends WrapperQuery<T, E, Column>, Column> T selectOne(@Param(Constants.WRAPPER) WrapperQuery<T, E, Column> wrapper);
 
     /**
@@ -75,6 +82,7 @@ public interface BaseMapper<T> {
      * @see MapperSelectProvider#selectWrapper(ProviderContext, Map)
      */
     @SelectProvider(type = MapperSelectProvider.class, method = "selectWrapper")
+    @Lang(WrapperLanguageDriver.class)
     <E extends WrapperQuery<T, E, Column>, Column> List<T> selectList(@Param(Constants.WRAPPER) WrapperQuery<T, E, Column> wrapper);
 
     /**
@@ -84,6 +92,7 @@ public interface BaseMapper<T> {
      * @see MapperSelectProvider#countWrapper(ProviderContext, Map)
      */
     @SelectProvider(type = MapperSelectProvider.class, method = "countWrapper")
+    @Lang(WrapperLanguageDriver.class)
     <E extends WrapperQuery<T, E, Column>, Column> int count(@Param(Constants.WRAPPER) WrapperQuery<T, E, Column> wrapper);
 
     /**
@@ -93,6 +102,7 @@ public interface BaseMapper<T> {
      * @see MapperUpdateProvider#updateById(ProviderContext)
      */
     @UpdateProvider(type = MapperUpdateProvider.class, method = "updateById")
+    @Lang(BaseMapperLanguageDriver.class)
     int updateById(T entity);
 
     /**
@@ -102,6 +112,7 @@ public interface BaseMapper<T> {
      * @see MapperUpdateProvider#updateWrapper(ProviderContext, Map)
      */
     @UpdateProvider(type = MapperUpdateProvider.class, method = "updateWrapper")
+    @Lang(WrapperLanguageDriver.class)
     <E extends WrapperUpdate<T, E, Column>, Column> int update(@Param(Constants.WRAPPER) WrapperUpdate<T, E, Column> wrapper);
 
     /**
@@ -111,6 +122,7 @@ public interface BaseMapper<T> {
      * @see MapperInsertProvider#insert(ProviderContext, Map)
      */
     @InsertProvider(type = MapperInsertProvider.class, method = "insert")
+    @Lang(BaseMapperLanguageDriver.class)
     @Options(useGeneratedKeys = true)
     int insert(@Param(Constants.ENTITY) T entity);
 
@@ -121,6 +133,7 @@ public interface BaseMapper<T> {
      * @see MapperInsertProvider#insertOrUpdate(ProviderContext, Map)
      */
     @InsertProvider(type = MapperInsertProvider.class, method = "insertOrUpdate")
+    @Lang(BaseMapperLanguageDriver.class)
     @Options(useGeneratedKeys = true)
     int insertOrUpdate(@Param(Constants.ENTITY) T entity);
 
@@ -131,6 +144,7 @@ public interface BaseMapper<T> {
      * @see MapperInsertProvider#batchInsert(ProviderContext, Map)
      */
     @InsertProvider(type = MapperInsertProvider.class, method = "batchInsert")
+    @Lang(BaseMapperLanguageDriver.class)
     @Options(useGeneratedKeys = true)
     int batchInsert(@Param(Constants.COLLECTION) List<T> entities);
 
@@ -141,6 +155,7 @@ public interface BaseMapper<T> {
      * @see MapperInsertProvider#batchInsertOrUpdate(ProviderContext, Map)
      */
     @InsertProvider(type = MapperInsertProvider.class, method = "batchInsertOrUpdate")
+    @Lang(BaseMapperLanguageDriver.class)
     @Options(useGeneratedKeys = true)
     int batchInsertOrUpdate(@Param(Constants.COLLECTION) List<T> entities);
 
@@ -151,6 +166,7 @@ public interface BaseMapper<T> {
      * @see MapperInsertProvider#lockBatchInsertOrUpdate(ProviderContext, Map)
      */
     @InsertProvider(type = MapperInsertProvider.class, method = "batchInsertOrUpdate")
+    @Lang(BaseMapperLanguageDriver.class)
     @Options(useGeneratedKeys = true)
     int lockBatchInsertOrUpdate(@Param(Constants.COLLECTION) List<T> entities);
 
@@ -161,24 +177,27 @@ public interface BaseMapper<T> {
      * @see MapperDeleteProvider#deleteById(ProviderContext)
      */
     @DeleteProvider(type = MapperDeleteProvider.class, method = "deleteById")
+    @Lang(BaseMapperLanguageDriver.class)
     int deleteById(Serializable id);
 
     /**
      * 根据主键删除数据
      * @param ids 主键值
      * @return 影响行数
-     * @see MapperDeleteProvider#deleteByIds(ProviderContext)
+     * @see MapperDeleteProvider#deleteByIds(ProviderContext, Map)
      */
     @DeleteProvider(type = MapperDeleteProvider.class, method = "deleteByIds")
+    @Lang(BaseMapperLanguageDriver.class)
     int deleteByIds(@Param(Constants.COLLECTION) Collection<? extends Serializable> ids);
 
     /**
      * 根据主键删除数据
      * @param ids 主键值
      * @return 影响行数
-     * @see MapperDeleteProvider#deleteByIdsArr(ProviderContext)
+     * @see MapperDeleteProvider#deleteByIdsArr(ProviderContext, Map)
      */
     @DeleteProvider(type = MapperDeleteProvider.class, method = "deleteByIdsArr")
+    @Lang(BaseMapperLanguageDriver.class)
     int deleteByIdsArr(@Param(Constants.COLLECTION) Serializable... ids);
 
     /**
@@ -188,5 +207,6 @@ public interface BaseMapper<T> {
      * @see MapperDeleteProvider#deleteWrapper(ProviderContext, Map)
      */
     @DeleteProvider(type = MapperDeleteProvider.class, method = "deleteWrapper")
+    @Lang(WrapperLanguageDriver.class)
     <E extends WrapperQuery<T, E, Column>, Column> int delete(@Param(Constants.WRAPPER) WrapperQuery<T, E, Column> wrapper);
 }
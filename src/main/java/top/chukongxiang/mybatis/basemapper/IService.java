@@ -1,6 +1,7 @@
 package top.chukongxiang.mybatis.basemapper;
 
 import org.apache.ibatis.annotations.Param;
+import top.chukongxiang.mybatis.basemapper.model.page.CursorPage;
 import top.chukongxiang.mybatis.basemapper.model.page.IPage;
 import top.chukongxiang.mybatis.basemapper.sql.core.WrapperQuery;
 import top.chukongxiang.mybatis.basemapper.sql.core.WrapperUpdate;
@@ -37,14 +38,14 @@ public interface IService<T> {
 
     /**
      * 根据多个主键获取实体列表
-     * @param ids 主键列表
+     * @param ids 主键列表，重复的主键只查询一次
      * @return 实体列表
      */
     List<T> listByIds(Collection<? extends Serializable> ids);
 
     /**
      * 根据多个主键获取实体列表
-     * @param ids 主键列表
+     * @param ids 主键列表，重复的主键只查询一次
      * @return 实体列表
      */
     List<T> listByIds(Serializable... ids);
@@ -78,6 +79,25 @@ public interface IService<T> {
      */
     <E extends WrapperQuery<T, E, Column>, Column> IPage<T> page(IPage<T> page, WrapperQuery<T, E, Column> wrapper);
 
+    /**
+     * 按主键游标分页查询所有数据
+     * @param cursor 上一页返回的游标，第一页为null
+     * @param size 每页条数
+     * @return 分页后数据
+     */
+    CursorPage<T> pageByCursor(String cursor, int size);
+
+    /**
+     * 游标分页查询，按Wrapper的排序加上主键读取上一页最后一行之后的数据，每页耗时与页数无关
+     * <p>实体必须有主键，排序后会追加主键保证唯一；排序列必须是实体字段且不能为null(主键、基本类型字段或数据库中 NOT NULL 的列)，
+     * 否则在查询前抛出 IllegalArgumentException；没有读取到列信息时无法判断，遇到null值时抛出 IllegalStateException；游标只能用于生成它的排序</p>
+     * @param wrapper 条件构造器，不能使用 groupBy 和 last
+     * @param cursor 上一页返回的游标，第一页为null
+     * @param size 每页条数
+     * @return 分页后数据
+     */
+    <E extends WrapperQuery<T, E, Column>, Column> CursorPage<T> pageByCursor(WrapperQuery<T, E, Column> wrapper, String cursor, int size);
+
     /**
      * 统计计数
      * @return 数量
@@ -165,14 +185,14 @@ public interface IService<T> {
 
     /**
      * 根据主键删除
-     * @param ids 主键
+     * @param ids 主键，重复的主键只删除一次
      * @return 影响行数
      */
     boolean removeByIds(Serializable... ids);
 
     /**
      * 根据主键删除
-     * @param ids 主键
+     * @param ids 主键，重复的主键只删除一次
      * @return 影响行数
      */
     boolean removeByIds(Collection<? extends Serializable> ids);
@@ -3,7 +3,9 @@ package top.chukongxiang.mybatis.basemapper;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.collection.ListUtil;
 import cn.hutool.core.lang.Assert;
+import cn.hutool.core.util.ArrayUtil;
 import cn.hutool.core.util.StrUtil;
+import cn.hutool.core.util.TypeUtil;
 import com.github.pagehelper.Page;
 import com.github.pagehelper.PageHelper;
 import lombok.Getter;
@@ -12,16 +14,34 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.ibatis.annotations.Param;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import top.chukongxiang.mybatis.basemapper.model.page.CursorPage;
 import top.chukongxiang.mybatis.basemapper.model.page.IPage;
 import top.chukongxiang.mybatis.basemapper.model.page.OrderItem;
+import top.chukongxiang.mybatis.basemapper.providers.ColumnDescriptor;
+import top.chukongxiang.mybatis.basemapper.providers.DatabaseColumns;
+import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
+import top.chukongxiang.mybatis.basemapper.sql.QueryWrapper;
 import top.chukongxiang.mybatis.basemapper.sql.Wrappers;
+import top.chukongxiang.mybatis.basemapper.sql.core.Keyset;
 import top.chukongxiang.mybatis.basemapper.sql.core.WrapperQuery;
 import top.chukongxiang.mybatis.basemapper.sql.core.WrapperUpdate;
 import top.chukongxiang.mybatis.basemapper.utils.ClassUtil;
+import top.chukongxiang.mybatis.basemapper.utils.CursorUtil;
 
 import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 /**
@@ -39,12 +59,52 @@ public class ServiceImpl<M extends BaseMapper<T>, T> implements IService<T>{
     @Setter
     private int batchSize = 200;
 
+    /**
+     * listByIds/removeByIds 每批id个数，超过时分批执行，避免超出驱动的参数个数限制；
+     * 只对 IService 的这两个方法生效，直接调用 BaseMapper 的 selectByIds/deleteByIds 或 Wrapper 的 in 不分批
+     */
+    @Getter
+    @Setter
+    private int inChunkSize = 1000;
+
+    /**
+     * 分批查询使用的线程池，为null或当前在事务中时按顺序执行
+     */
+    @Getter
+    @Setter
+    private Executor chunkExecutor;
+
+    /**
+     * page 的偏移量达到该值时使用延迟关联：先按条件、排序和分页只查询主键，再按主键和Wrapper的查询列查询，
+     * 被跳过的行只读取主键索引；小于等于0时不使用
+     */
+    @Getter
+    @Setter
+    private long deferredJoinThreshold = 0;
+
+    /**
+     * 实体类型，从泛型参数中解析
+     */
+    private volatile Class<T> entityClass;
+
     @Override
     public M getBaseMapper() {
         Assert.notNull(this.baseMapper, "baseMapper can not be null");
         return this.baseMapper;
     }
 
+    /**
+     * 实体类型
+     * @return ServiceImpl 的第二个泛型参数
+     */
+    protected Class<T> getEntityClass() {
+        if (this.entityClass == null) {
+            this.entityClass = (Class<T>) TypeUtil.getClass(TypeUtil.getTypeArgument(getClass(), 1));
+            Assert.notNull(this.entityClass, "无法解析 {} 的实体类型", getClass().getName());
+        }
+        return this.entityClass;
+    }
+
     @Override
     public List<T> listAll() {
         return baseMapper.selectAll();
@@ -57,12 +117,43 @@ public class ServiceImpl<M extends BaseMapper<T>, T> implements IService<T>{
 
     @Override
     public List<T> listByIds(Collection<? extends Serializable> ids) {
-        return baseMapper.selectByIds(ids);
+        // 是否分批都先去重，重复的id不占用参数
+        List<Serializable> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinctIds.size() <= inChunkSize) {
+            return baseMapper.selectByIds(distinctIds);
+        }
+        List<List<Serializable>> chunks = ListUtil.split(distinctIds, inChunkSize);
+        List<T> rs = new ArrayList<>(distinctIds.size());
+        // 事务中的查询需要使用当前线程绑定的连接
+        if (chunkExecutor == null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            for (List<Serializable> chunk : chunks) {
+                rs.addAll(baseMapper.selectByIds(chunk));
+            }
+            return rs;
+        }
+        List<CompletableFuture<List<T>>> futures = chunks.stream()
+                .map(chunk -> CompletableFuture.supplyAsync(() -> baseMapper.selectByIds(chunk), chunkExecutor))
+                .collect(Collectors.toList());
+        try {
+            for (CompletableFuture<List<T>> future : futures) {
+                rs.addAll(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        return rs;
     }
 
     @Override
     public List<T> listByIds(Serializable... ids) {
-        return baseMapper.selectByIdsArr(ids);
+        Serializable[] distinctIds = ArrayUtil.distinct(ids);
+        if (distinctIds.length > inChunkSize) {
+            return listByIds(Arrays.asList(distinctIds));
+        }
+        return baseMapper.selectByIdsArr(distinctIds);
     }
 
     @Override
@@ -85,19 +176,16 @@ public class ServiceImpl<M extends BaseMapper<T>, T> implements IService<T>{
         List<WrapperQuery.OrderBy> wrapperOrderBys = wrapper.getOrderBys();
         List<OrderItem> pageOrderBys = page.orders();
 
-        String orderBySql = "";
+        List<String> orderBySqls = new ArrayList<>();
         // 优先使用wrapper排序
         if (CollUtil.isNotEmpty(wrapperOrderBys)){
-            orderBySql = orderBySql + wrapperOrderBys.stream()
-                    .map(orderBy -> orderBy.getColumn() + (orderBy.isAsc() ? " ASC" : " DESC"))
-                    .collect(Collectors.joining(", "));
+            wrapperOrderBys.forEach(orderBy -> orderBySqls.add(orderBy.getColumn() + (orderBy.isAsc() ? " ASC" : " DESC")));
         }
         // 再使用page参数排序
         if (CollUtil.isNotEmpty(pageOrderBys)) {
-            orderBySql = orderBySql + pageOrderBys.stream()
-                    .map(orderBy -> orderBy.getColumn() + (orderBy.isAsc() ? " ASC" : " DESC"))
-                    .collect(Collectors.joining(", "));
+            pageOrderBys.forEach(orderBy -> orderBySqls.add(orderBy.getColumn() + (orderBy.isAsc() ? " ASC" : " DESC")));
         }
+        String orderBySql = String.join(", ", orderBySqls);
         // 兼容PageHelper
         if (StrUtil.isBlank(orderBySql)) {
             orderBySql = null;
@@ -109,22 +197,219 @@ public class ServiceImpl<M extends BaseMapper<T>, T> implements IService<T>{
         IPage<T> rsPage = new top.chukongxiang.mybatis.basemapper.model.page.Page<>();
         rsPage.setCurrent(current);
         rsPage.setSize(size);
-        if (ClassUtil.hasClass("com.github.pagehelper.PageHelper")) {
-            // PageHelper分页
-            try (Page<T> rs = PageHelper.startPage(current, size, orderBySql)) {
-                list(wrapper);
-                rsPage.setRecords(rs.getResult());
-                rsPage.setTotal(rs.getTotal());
+        long offset = (long) Math.max(current - 1, 0) * size;
+        // 深分页时先只查询主键，丢弃的行不再读取整行
+        ColumnDescriptor deferredId = null;
+        List<String> projection = wrapper.getProjection();
+        // 第二步按相同的查询列查询，与不使用延迟关联时返回的列一致
+        List<String> selectColumns = wrapper.getSelectColumns();
+        if (deferredJoinThreshold > 0 && offset >= deferredJoinThreshold) {
+            deferredId = deferJoin(wrapper, selectColumns);
+        }
+        try {
+            List<T> rs;
+            if (ClassUtil.hasClass("com.github.pagehelper.PageHelper")) {
+                // PageHelper分页，只负责排序和分页，总数在下面统计
+                try (Page<T> pageRs = PageHelper.startPage(current, size, false)) {
+                    if (orderBySql != null) {
+                        PageHelper.orderBy(orderBySql);
+                    }
+                    list(wrapper);
+                    rs = pageRs.getResult();
+                }
+            } else {
+                // 没有PageHelper时使用Wrapper按数据库类型分页，只查询当前页
+                Assert.isTrue(wrapper.supportsLimit(), "{} 不支持分页，请使用PageHelper", wrapper.getClass().getName());
+                WrapperQuery.Limit limit = wrapper.getLimit();
+                Keyset keyset = wrapper.getKeyset();
+                wrapper.setLimit(new WrapperQuery.Limit(offset, size));
+                try {
+                    orderByPage(wrapper, pageOrderBys);
+                    rs = list(wrapper);
+                } finally {
+                    wrapper.setLimit(limit);
+                    if (wrapper.getKeyset() != keyset) {
+                        wrapper.setKeyset(keyset);
+                    }
+                }
             }
-        } else {
-            int count = count(wrapper);
-            List<T> rs = list(wrapper);
             rsPage.setRecords(rs);
-            rsPage.setTotal(count);
+            // 本页不满一页时已经是最后一页，总数就是偏移量加本页行数；本页为空且不是第一页时无法确定，仍然统计
+            if (rs.size() < size && (!rs.isEmpty() || offset == 0)) {
+                rsPage.setTotal(offset + rs.size());
+            } else {
+                rsPage.setTotal(count(wrapper));
+            }
+        } finally {
+            if (deferredId != null) {
+                wrapper.setProjection(projection);
+            }
+        }
+        if (deferredId != null) {
+            rsPage.setRecords(listByIdsInOrder(deferredId, selectColumns, rsPage.getRecords()));
         }
         return rsPage;
     }
 
+    /**
+     * 在Wrapper排序之后追加分页参数中的排序，通过不带游标值的 {@link Keyset} 临时替换Wrapper的排序，调用方负责恢复
+     * @param wrapper 条件构造器
+     * @param pageOrderBys 分页参数中的排序
+     */
+    private <E extends WrapperQuery<T, E, Column>, Column> void orderByPage(WrapperQuery<T, E, Column> wrapper, List<OrderItem> pageOrderBys) {
+        if (CollUtil.isEmpty(pageOrderBys) || wrapper.getKeyset() != null) {
+            return;
+        }
+        if (!wrapper.supportsKeyset()) {
+            log.warn("[Mybatis] {} 不支持追加排序，忽略分页参数中的排序", wrapper.getClass().getSimpleName());
+            return;
+        }
+        List<WrapperQuery.OrderBy> orderBys = new ArrayList<>(wrapper.getOrderBys());
+        for (OrderItem orderItem : pageOrderBys) {
+            orderBys.add(WrapperQuery.OrderBy.of(orderItem.getColumn()).setAsc(orderItem.isAsc()));
+        }
+        wrapper.setKeyset(new Keyset(orderBys, null));
+    }
+
+    /**
+     * 延迟关联：Wrapper只查询主键，只支持单主键
+     * @param wrapper 条件构造器
+     * @param selectColumns Wrapper原来的查询列，为null时查询所有列；不包含主键时无法按主键对应整行，不使用延迟关联
+     * @return 主键字段描述，不能只查询主键时返回null
+     */
+    private <E extends WrapperQuery<T, E, Column>, Column> ColumnDescriptor deferJoin(WrapperQuery<T, E, Column> wrapper, List<String> selectColumns) {
+        TableMetadata<T> tableMetadata = TableMetadata.forClass(wrapper.getEntityClass() == null ? getEntityClass() : wrapper.getEntityClass());
+        if (tableMetadata.getIdFields().size() != 1) {
+            return null;
+        }
+        if (!wrapper.supportsProjection()) {
+            log.debug("[Mybatis] {} 不能只查询主键，不使用延迟关联分页", wrapper.getClass().getSimpleName());
+            return null;
+        }
+        ColumnDescriptor descriptor = tableMetadata.getDescriptor(tableMetadata.getIdFields().get(0));
+        if (selectColumns != null && !selectColumns.contains(descriptor.getWrappedColumn())) {
+            log.debug("[Mybatis] 查询列不包含主键 {}，不使用延迟关联分页", descriptor.getWrappedColumn());
+            return null;
+        }
+        wrapper.setProjection(Collections.singletonList(descriptor.getWrappedColumn()));
+        return descriptor;
+    }
+
+    /**
+     * 按主键和原来的查询列查询整行，保持主键查询的顺序，查询期间被删除的行跳过
+     * @param idDescriptor 主键字段描述
+     * @param selectColumns Wrapper原来的查询列，为null时查询所有列
+     * @param idRows 只包含主键的实体
+     * @return 完整实体
+     */
+    private List<T> listByIdsInOrder(ColumnDescriptor idDescriptor, List<String> selectColumns, List<T> idRows) {
+        if (idRows.isEmpty()) {
+            return idRows;
+        }
+        List<Serializable> ids = idRows.stream().map(row -> (Serializable) idDescriptor.getValue(row)).collect(Collectors.toList());
+        QueryWrapper<T> rowsWrapper = Wrappers.query((Class<T>) idDescriptor.getField().getDeclaringClass()).in(idDescriptor.getProperty(), ids);
+        rowsWrapper.setProjection(selectColumns);
+        Map<Object, T> rows = new HashMap<>(ids.size() * 4 / 3 + 1);
+        for (T row : list(rowsWrapper)) {
+            rows.putIfAbsent(idDescriptor.getValue(row), row);
+        }
+        List<T> rs = new ArrayList<>(ids.size());
+        for (Serializable id : ids) {
+            T row = rows.get(id);
+            if (row != null) {
+                rs.add(row);
+            }
+        }
+        return rs;
+    }
+
+    @Override
+    public CursorPage<T> pageByCursor(String cursor, int size) {
+        return pageByCursor(Wrappers.emptyWrapper(getEntityClass()), cursor, size);
+    }
+
+    @Override
+    public <E extends WrapperQuery<T, E, Column>, Column> CursorPage<T> pageByCursor(WrapperQuery<T, E, Column> wrapper, String cursor, int size) {
+        Assert.isTrue(size > 0, "size必须大于0");
+        Assert.isTrue(wrapper.supportsKeyset() && wrapper.supportsLimit(), "{} 不支持游标分页", wrapper.getClass().getName());
+        Class<T> entityClass = wrapper.getEntityClass() == null ? getEntityClass() : wrapper.getEntityClass();
+        TableMetadata<T> tableMetadata = TableMetadata.forClass(entityClass);
+        // 排序不唯一时，翻页边界上排序值相同的行会被跳过或重复读取，只有主键能保证唯一
+        Assert.notEmpty(tableMetadata.getIdFields(), "{} 没有主键，排序无法唯一确定一行，不能用于游标分页", entityClass.getName());
+
+        // Wrapper排序 + 主键，保证排序唯一，主键与最后一个排序列同向时可以使用行值比较
+        List<WrapperQuery.OrderBy> orderBys = new ArrayList<>(wrapper.getOrderBys());
+        List<ColumnDescriptor> descriptors = new ArrayList<>(orderBys.size() + 1);
+        for (WrapperQuery.OrderBy orderBy : orderBys) {
+            Field field = tableMetadata.lookupByColumn(orderBy.getColumn());
+            Assert.notNull(field, "排序列 {} 不是 {} 的字段，不能用于游标分页", orderBy.getColumn(), entityClass.getName());
+            ColumnDescriptor descriptor = tableMetadata.getDescriptor(field);
+            // null 无法写入游标，也无法用比较条件定位，在查询前拒绝，避免翻到中途才失败
+            Assert.isFalse(isNullable(tableMetadata, descriptor),
+                    "排序列 {} 在数据库中可以为null，不能用于游标分页，请使用主键、基本类型字段或 NOT NULL 的列", orderBy.getColumn());
+            descriptors.add(descriptor);
+        }
+        boolean asc = orderBys.isEmpty() || orderBys.get(orderBys.size() - 1).isAsc();
+        for (Field idField : tableMetadata.getIdFields()) {
+            ColumnDescriptor descriptor = tableMetadata.getDescriptor(idField);
+            if (!descriptors.contains(descriptor)) {
+                descriptors.add(descriptor);
+                orderBys.add(WrapperQuery.OrderBy.of(descriptor.getWrappedColumn()).setAsc(asc));
+            }
+        }
+
+        Keyset keyset = new Keyset(orderBys, null);
+        String signature = Integer.toHexString(keyset.orderBySql().hashCode());
+        if (StrUtil.isNotBlank(cursor)) {
+            List<Class<?>> types = descriptors.stream().map(descriptor -> descriptor.getField().getType()).collect(Collectors.toList());
+            keyset = new Keyset(orderBys, CursorUtil.decode(cursor, signature, types));
+        }
+
+        // 多查一行判断是否有下一页
+        Keyset oldKeyset = wrapper.getKeyset();
+        WrapperQuery.Limit oldLimit = wrapper.getLimit();
+        List<T> rs;
+        wrapper.setKeyset(keyset);
+        wrapper.setLimit(new WrapperQuery.Limit(0, size + 1L));
+        try {
+            rs = list(wrapper);
+        } finally {
+            wrapper.setKeyset(oldKeyset);
+            wrapper.setLimit(oldLimit);
+        }
+
+        CursorPage<T> cursorPage = new CursorPage<T>().setSize(size).setCursor(cursor);
+        if (rs.size() > size) {
+            rs = new ArrayList<>(rs.subList(0, size));
+            T last = rs.get(size - 1);
+            List<Object> values = new ArrayList<>(descriptors.size());
+            for (ColumnDescriptor descriptor : descriptors) {
+                Object value = descriptor.getValue(last);
+                // 只有没有读取到列信息时才可能出现
+                Assert.state(value != null, "游标分页的排序列 {} 出现了null值，请将该列设为 NOT NULL", descriptor.getColumn());
+                values.add(value);
+            }
+            cursorPage.setNextCursor(CursorUtil.encode(signature, values));
+        }
+        return cursorPage.setRecords(rs);
+    }
+
+    /**
+     * 排序列是否可能为null：主键和基本类型字段不为null，其他按数据库列的 NOT NULL 约束判断；
+     * 没有读取到列信息时(如 {@link DatabaseColumns} 关闭或读取失败)只能按字段类型判断，视为不为null
+     * @param tableMetadata 表信息
+     * @param descriptor 排序列
+     * @return 是否可能为null
+     */
+    private boolean isNullable(TableMetadata<T> tableMetadata, ColumnDescriptor descriptor) {
+        Field field = descriptor.getField();
+        if (field.getType().isPrimitive() || tableMetadata.isIdField(field)) {
+            return false;
+        }
+        DatabaseColumns.ColumnType columnType = DatabaseColumns.getColumnType(tableMetadata.getEntityClass(), descriptor.getColumn());
+        return columnType != null && columnType.isNullable();
+    }
+
     @Override
     public int count() {
         return baseMapper.count(Wrappers.emptyWrapper());
@@ -202,13 +487,27 @@ public class ServiceImpl<M extends BaseMapper<T>, T> implements IService<T>{
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean removeByIds(Serializable... ids) {
-        return baseMapper.deleteByIdsArr(ids) > 0;
+        Serializable[] distinctIds = ArrayUtil.distinct(ids);
+        if (distinctIds.length > inChunkSize) {
+            return removeByIds(Arrays.asList(distinctIds));
+        }
+        return baseMapper.deleteByIdsArr(distinctIds) > 0;
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public boolean removeByIds(Collection<? extends Serializable> ids) {
-        return baseMapper.deleteByIds(ids) > 0;
+        List<Serializable> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinctIds.size() <= inChunkSize) {
+            return baseMapper.deleteByIds(distinctIds) > 0;
+        }
+        int lines = 0;
+        for (List<Serializable> chunk : ListUtil.split(distinctIds, inChunkSize)) {
+            lines += baseMapper.deleteByIds(chunk);
+        }
+        return lines > 0;
     }
 
     @Override
@@ -0,0 +1,319 @@
+package top.chukongxiang.mybatis.basemapper.interceptor;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.util.ClassUtil;
+import cn.hutool.core.util.StrUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import top.chukongxiang.mybatis.basemapper.BaseMapper;
+import top.chukongxiang.mybatis.basemapper.providers.AbstractMapperProvider;
+import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
+import top.chukongxiang.mybatis.basemapper.providers.TableRowEstimates;
+import top.chukongxiang.mybatis.basemapper.utils.LruCache;
+import top.chukongxiang.mybatis.basemapper.utils.SqlUtil;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>BaseMapper#count 的结果缓存和近似统计，默认都不开启</p>
+ * <p>缓存：分页时同一条件的 count 会被反复执行，开启 {@link #setTtl(long)} 后按 SQL 和参数缓存结果。
+ * 通过同一实体的 Mapper 执行 insert/update/delete 时清空该实体的缓存；当前会话有未提交的写入时不读写缓存，提交或回滚后再清空一次。
+ * 其他 Mapper、XML 多表语句或其他进程对表的修改不会清空缓存，结果最多滞后 ttl</p>
+ * <p>近似统计：开启 {@link #setApproximate(boolean)} 后，不带任何条件的 count 读取数据库统计信息中的行数估计值，不扫描全表，
+ * 见 {@link TableRowEstimates}；估计值不大于 {@link #setApproximateThreshold(long)} 或无法读取时执行精确统计</p>
+ * <p>也可以通过属性 ttl(毫秒)、capacity、approximate、approximateThreshold 配置</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-09 11:03:27
+ */
+@Slf4j
+@Intercepts({
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "close", args = {boolean.class}),
+})
+public class CountInterceptor implements Interceptor {
+
+    private static final String COUNT_METHOD = "count";
+
+    /**
+     * 缓存时间(毫秒)，不大于0时不缓存
+     */
+    private volatile long ttl = 0;
+
+    /**
+     * 每个实体最多缓存的条件数
+     */
+    private volatile int capacity = 256;
+
+    private volatile boolean approximate = false;
+
+    private volatile long approximateThreshold = 0;
+
+    /**
+     * Mapper 命名空间 : 实体类，不是 BaseMapper 时为空
+     */
+    private final Map<String, Optional<Class<?>>> namespaceCache = new ConcurrentHashMap<>();
+
+    /**
+     * 实体类 : count 结果缓存
+     */
+    private final Map<Class<?>, CountCache> countCache = new ConcurrentHashMap<>();
+
+    /**
+     * 会话 : 有未提交写入的实体类
+     */
+    private final Map<Executor, Set<Class<?>>> dirtyEntities = Collections.synchronizedMap(new WeakHashMap<>());
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Executor executor = (Executor) invocation.getTarget();
+        String method = invocation.getMethod().getName();
+        if ("query".equals(method)) {
+            return query(invocation, executor);
+        }
+        if ("update".equals(method)) {
+            Class<?> entityClass = entityClass(((MappedStatement) invocation.getArgs()[0]).getId());
+            if (entityClass == null) {
+                return invocation.proceed();
+            }
+            try {
+                return invocation.proceed();
+            } finally {
+                // 写入完成后清空，写入期间其他会话查询到的旧结果不会留在缓存中
+                invalidate(entityClass);
+                if (ttl > 0 && !isAutoCommit(executor)) {
+                    dirtyEntities.computeIfAbsent(executor, k -> new HashSet<>()).add(entityClass);
+                }
+            }
+        }
+        // commit、rollback、close：未提交期间其他会话可能按旧数据写入了缓存，结束后再清空一次
+        try {
+            return invocation.proceed();
+        } finally {
+            Set<Class<?>> entityClasses = dirtyEntities.remove(executor);
+            if (entityClasses != null) {
+                entityClasses.forEach(this::invalidate);
+            }
+        }
+    }
+
+    private Object query(Invocation invocation, Executor executor) throws Throwable {
+        Object[] args = invocation.getArgs();
+        MappedStatement ms = (MappedStatement) args[0];
+        if (ttl <= 0 && !approximate) {
+            return invocation.proceed();
+        }
+        Class<?> entityClass = COUNT_METHOD.equals(StrUtil.subAfter(ms.getId(), ".", true)) ? entityClass(ms.getId()) : null;
+        if (entityClass == null || args[3] != null || StrUtil.containsIgnoreCase(ms.getResource(), ".xml")) {
+            return invocation.proceed();
+        }
+        Object parameter = args[1];
+        RowBounds rowBounds = (RowBounds) args[2];
+        BoundSql boundSql = args.length == 6 ? (BoundSql) args[5] : ms.getBoundSql(parameter);
+
+        if (approximate && isUnfiltered(entityClass, boundSql)) {
+            Long estimate = TableRowEstimates.estimate(executor.getTransaction().getConnection(), entityClass);
+            if (estimate != null && estimate > approximateThreshold) {
+                log.debug("[Mybatis] {} 使用估计行数: {}", ms.getId(), estimate);
+                Class<?> resultType = ms.getResultMaps().get(0).getType();
+                List<Object> result = new ArrayList<>(1);
+                result.add(Convert.convert(resultType, Math.min(estimate, Integer.MAX_VALUE)));
+                return result;
+            }
+        }
+
+        Set<Class<?>> dirty = dirtyEntities.get(executor);
+        if (ttl <= 0 || (dirty != null && dirty.contains(entityClass))) {
+            return invocation.proceed();
+        }
+        CacheKey cacheKey = args.length == 6 ? (CacheKey) args[4] : executor.createCacheKey(ms, parameter, rowBounds, boundSql);
+        CountCache cache = countCache(entityClass);
+        CachedCount cached = cache.entries.getIfPresent(cacheKey);
+        if (cached != null && cached.expireAt > System.currentTimeMillis()) {
+            return new ArrayList<>(cached.result);
+        }
+        // 查询前记录版本，查询期间有写入时不放入缓存
+        long version = cache.version;
+        List<Object> result = args.length == 6
+                ? (List<Object>) invocation.proceed()
+                : executor.query(ms, parameter, rowBounds, null, cacheKey, boundSql);
+        cache.put(cacheKey, new CachedCount(new ArrayList<>(result), System.currentTimeMillis() + ttl), version);
+        return result;
+    }
+
+    /**
+     * 会话是否自动提交，在 finally 中调用，不能抛出异常覆盖写入本身的异常；
+     * 连接已关闭等无法判断时按未提交处理，会话结束前不读写缓存
+     */
+    private static boolean isAutoCommit(Executor executor) {
+        try {
+            return executor.getTransaction().getConnection().getAutoCommit();
+        } catch (Exception e) {
+            log.debug("[Mybatis] 无法获取连接的自动提交状态: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 是否是不带任何条件的 count：SELECT COUNT(*) FROM 实体表
+     */
+    private static boolean isUnfiltered(Class<?> entityClass, BoundSql boundSql) {
+        if (!boundSql.getParameterMappings().isEmpty()) {
+            return false;
+        }
+        String sql = SqlUtil.normalSql(boundSql.getSql()).trim();
+        return sql.equalsIgnoreCase("SELECT COUNT(*) FROM " + TableMetadata.forClass(entityClass).getTableName());
+    }
+
+    /**
+     * 语句所在 Mapper 的实体类
+     * @param statementId MappedStatement id
+     * @return 不是 BaseMapper 时为null
+     */
+    private Class<?> entityClass(String statementId) {
+        String namespace = StrUtil.subBefore(statementId, ".", true);
+        Optional<Class<?>> entityClass = namespaceCache.get(namespace);
+        if (entityClass == null) {
+            entityClass = namespaceCache.computeIfAbsent(namespace, k -> {
+                try {
+                    Class<?> mapperClass = ClassUtil.loadClass(k);
+                    if (BaseMapper.class.isAssignableFrom(mapperClass)) {
+                        return Optional.ofNullable(AbstractMapperProvider.entityClass((Class<? extends BaseMapper<?>>) mapperClass));
+                    }
+                } catch (Exception e) {
+                    // 不是Mapper接口
+                }
+                return Optional.empty();
+            });
+        }
+        return entityClass.orElse(null);
+    }
+
+    private CountCache countCache(Class<?> entityClass) {
+        CountCache cache = countCache.get(entityClass);
+        if (cache == null) {
+            cache = countCache.computeIfAbsent(entityClass, k -> new CountCache(capacity));
+        }
+        return cache;
+    }
+
+    private void invalidate(Class<?> entityClass) {
+        CountCache cache = countCache.get(entityClass);
+        if (cache != null) {
+            cache.invalidate();
+        }
+    }
+
+    /**
+     * 清空所有 count 缓存，在 Mapper 之外修改了数据时调用
+     */
+    public void clear() {
+        countCache.values().forEach(CountCache::invalidate);
+    }
+
+    /**
+     * count 结果缓存时间，不大于0时不缓存，默认不缓存
+     * @param ttl 缓存时间(毫秒)
+     */
+    public void setTtl(long ttl) {
+        this.ttl = ttl;
+    }
+
+    /**
+     * 每个实体最多缓存的条件数，默认256
+     * @param capacity 容量
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+        countCache.values().forEach(cache -> cache.entries.setCapacity(capacity));
+    }
+
+    /**
+     * 不带条件的 count 是否使用数据库统计信息中的行数估计值，默认关闭
+     * @param approximate 是否开启
+     */
+    public void setApproximate(boolean approximate) {
+        this.approximate = approximate;
+    }
+
+    /**
+     * 估计值不大于该值时执行精确统计，小表精确统计的开销很小，统计信息的误差相对更大
+     * @param approximateThreshold 行数
+     */
+    public void setApproximateThreshold(long approximateThreshold) {
+        this.approximateThreshold = approximateThreshold;
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        String ttl = properties.getProperty("ttl");
+        if (StrUtil.isNotBlank(ttl)) {
+            setTtl(Long.parseLong(ttl));
+        }
+        String capacity = properties.getProperty("capacity");
+        if (StrUtil.isNotBlank(capacity)) {
+            setCapacity(Integer.parseInt(capacity));
+        }
+        String approximate = properties.getProperty("approximate");
+        if (StrUtil.isNotBlank(approximate)) {
+            setApproximate(Boolean.parseBoolean(approximate));
+        }
+        String approximateThreshold = properties.getProperty("approximateThreshold");
+        if (StrUtil.isNotBlank(approximateThreshold)) {
+            setApproximateThreshold(Long.parseLong(approximateThreshold));
+        }
+    }
+
+    private static final class CountCache {
+
+        private final LruCache<CacheKey, CachedCount> entries;
+
+        /**
+         * 每次清空时递增
+         */
+        private volatile long version;
+
+        private CountCache(int capacity) {
+            this.entries = new LruCache<>(capacity);
+        }
+
+        private synchronized void put(CacheKey cacheKey, CachedCount cached, long version) {
+            if (this.version == version) {
+                entries.put(cacheKey, cached);
+            }
+        }
+
+        private synchronized void invalidate() {
+            version++;
+            entries.clear();
+        }
+    }
+
+    private static final class CachedCount {
+
+        private final List<Object> result;
+
+        private final long expireAt;
+
+        private CachedCount(List<Object> result, long expireAt) {
+            this.result = result;
+            this.expireAt = expireAt;
+        }
+    }
+}
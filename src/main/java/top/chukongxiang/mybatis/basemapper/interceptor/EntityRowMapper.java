@@ -0,0 +1,157 @@
+package top.chukongxiang.mybatis.basemapper.interceptor;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+import top.chukongxiang.mybatis.basemapper.providers.ColumnDescriptor;
+import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * <p>BaseMapper 实体的行映射，由 {@link ResultMapInterceptor} 为自动生成的 ResultMap 创建</p>
+ * <p>按列下标读取，每列使用 ResultMapping 上已经解析好的 TypeHandler(例如 LongTypeHandler 直接调用 getLong)，
+ * 通过 {@link ColumnDescriptor} 赋值，不经过 MetaObject</p>
+ * <p>只处理 ResultMap 中的列，结果集中多出的列忽略</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-11-27 11:18:52
+ */
+final class EntityRowMapper {
+
+    private final Class<?> type;
+
+    private final Configuration configuration;
+
+    /**
+     * 实体无参构造，使用自定义 ObjectFactory 时为null
+     */
+    private final MethodHandle constructor;
+
+    private final String[] columns;
+
+    private final TypeHandler<?>[] typeHandlers;
+
+    private final ColumnDescriptor[] descriptors;
+
+    private EntityRowMapper(Class<?> type, Configuration configuration, MethodHandle constructor,
+                            String[] columns, TypeHandler<?>[] typeHandlers, ColumnDescriptor[] descriptors) {
+        this.type = type;
+        this.configuration = configuration;
+        this.constructor = constructor;
+        this.columns = columns;
+        this.typeHandlers = typeHandlers;
+        this.descriptors = descriptors;
+    }
+
+    /**
+     * 创建行映射
+     * @param configuration mybatis配置
+     * @param resultMap 自动生成的ResultMap
+     * @return 行映射，不支持时返回null
+     */
+    static EntityRowMapper of(Configuration configuration, ResultMap resultMap) {
+        if (resultMap.hasNestedResultMaps() || resultMap.hasNestedQueries() || resultMap.getDiscriminator() != null
+                || !resultMap.getConstructorResultMappings().isEmpty()) {
+            return null;
+        }
+        Class<?> type = resultMap.getType();
+        TableMetadata<?> tableMetadata = TableMetadata.forClass(type);
+        List<ResultMapping> resultMappings = resultMap.getResultMappings();
+        int size = resultMappings.size();
+        String[] columns = new String[size];
+        TypeHandler<?>[] typeHandlers = new TypeHandler<?>[size];
+        ColumnDescriptor[] descriptors = new ColumnDescriptor[size];
+        for (int i = 0; i < size; i++) {
+            ResultMapping resultMapping = resultMappings.get(i);
+            ColumnDescriptor descriptor = tableMetadata.getDescriptor(tableMetadata.lookup(resultMapping.getProperty()));
+            if (descriptor == null || resultMapping.getTypeHandler() == null) {
+                return null;
+            }
+            columns[i] = resultMapping.getColumn();
+            typeHandlers[i] = resultMapping.getTypeHandler();
+            descriptors[i] = descriptor;
+        }
+
+        MethodHandle constructor = null;
+        ObjectFactory objectFactory = configuration.getObjectFactory();
+        if (objectFactory.getClass() == DefaultObjectFactory.class) {
+            try {
+                Constructor<?> declaredConstructor = type.getDeclaredConstructor();
+                declaredConstructor.setAccessible(true);
+                constructor = MethodHandles.lookup().unreflectConstructor(declaredConstructor)
+                        .asType(MethodType.methodType(Object.class));
+            } catch (Exception e) {
+                // 没有无参构造，交给 ObjectFactory
+            }
+        }
+        return new EntityRowMapper(type, configuration, constructor, columns, typeHandlers, descriptors);
+    }
+
+    /**
+     * 映射整个结果集
+     * @param rs 结果集
+     * @return 实体列表
+     */
+    List<Object> map(ResultSet rs) throws Throwable {
+        int[] indexes = columnIndexes(rs.getMetaData());
+        boolean callSettersOnNulls = configuration.isCallSettersOnNulls();
+        boolean returnInstanceForEmptyRow = configuration.isReturnInstanceForEmptyRow();
+        List<Object> rows = new ArrayList<>();
+        while (rs.next()) {
+            Object row = newInstance();
+            boolean foundValues = false;
+            for (int i = 0; i < indexes.length; i++) {
+                if (indexes[i] < 0) {
+                    continue;
+                }
+                Object value = typeHandlers[i].getResult(rs, indexes[i]);
+                if (value != null) {
+                    descriptors[i].setValue(row, value);
+                    foundValues = true;
+                } else if (callSettersOnNulls && !descriptors[i].getField().getType().isPrimitive()) {
+                    descriptors[i].setValue(row, null);
+                }
+            }
+            // 与 DefaultResultSetHandler 一致：所有列都为null时返回null
+            rows.add(foundValues || returnInstanceForEmptyRow ? row : null);
+        }
+        return rows;
+    }
+
+    private Object newInstance() throws Throwable {
+        if (constructor != null) {
+            return (Object) constructor.invokeExact();
+        }
+        return configuration.getObjectFactory().create(type);
+    }
+
+    /**
+     * ResultMap 中每列在结果集中的下标，不存在为-1
+     */
+    private int[] columnIndexes(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        boolean useColumnLabel = configuration.isUseColumnLabel();
+        Map<String, Integer> labelIndexes = new HashMap<>(columnCount * 2);
+        for (int i = 1; i <= columnCount; i++) {
+            String label = useColumnLabel ? metaData.getColumnLabel(i) : metaData.getColumnName(i);
+            labelIndexes.putIfAbsent(label.toUpperCase(Locale.ENGLISH), i);
+        }
+        int[] indexes = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            indexes[i] = labelIndexes.getOrDefault(columns[i].toUpperCase(Locale.ENGLISH), -1);
+        }
+        return indexes;
+    }
+
+}
@@ -6,54 +6,223 @@ import cn.hutool.core.util.ReflectUtil;
 import cn.hutool.core.util.StrUtil;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import top.chukongxiang.mybatis.basemapper.BaseMapper;
+import top.chukongxiang.mybatis.basemapper.model.Constants;
+import top.chukongxiang.mybatis.basemapper.providers.ColumnDescriptor;
 import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
+import top.chukongxiang.mybatis.basemapper.sql.core.WrapperQuery;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * 针对BaseMapper自动生成ResultMap
+ * <p>每个 MappedStatement 只在第一次查询时判断并生成一次，结果是一个替换了 ResultMap 的 MappedStatement 副本，
+ * 之后的查询直接替换参数，不再加载类、扫描方法，也不修改 Configuration 中共享的 MappedStatement</p>
+ * <p>自动生成的 ResultMap 同时生成 {@link EntityRowMapper}，结果集按列下标直接映射到实体，不经过 DefaultResultSetHandler 的反射映射。
+ * 使用 RowBounds、ResultHandler 或多结果集时仍交给 mybatis 处理，可以通过 {@link #setFastMapping(boolean)} 或属性 fastMapping=false 关闭</p>
+ * <p>Wrapper 通过 select 只查询部分列时，按查询列集合生成并缓存只包含这些列的 ResultMap</p>
  * @author 楚孔响
  */
 @Intercepts({
         @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
         @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+        @Signature(type = ResultSetHandler.class, method = "handleResultSets", args = {Statement.class}),
 })
 public class ResultMapInterceptor implements Interceptor {
 
+    private static final Field MAPPED_STATEMENT_FIELD = handlerField("mappedStatement");
+
+    private static final Field ROW_BOUNDS_FIELD = handlerField("rowBounds");
+
+    private static final Field RESULT_HANDLER_FIELD = handlerField("resultHandler");
+
+    private volatile boolean fastMapping = true;
+
+    /**
+     * MappedStatement id : 处理结果
+     * <p>只缓存 Configuration 中注册的 MappedStatement，其他插件临时生成的同名 MappedStatement 每次单独处理</p>
+     */
+    private final Map<String, RewrittenStatement> statementCache = new ConcurrentHashMap<>();
+
     @Override
     public Object intercept(Invocation invocation) throws Throwable {
+        if (invocation.getTarget() instanceof ResultSetHandler) {
+            return handleResultSets(invocation);
+        }
         if (!(invocation.getTarget() instanceof Executor)) {
             return invocation.proceed();
         }
-        MappedStatement ms = (MappedStatement) invocation.getArgs()[0];
+        Object[] args = invocation.getArgs();
+        MappedStatement ms = (MappedStatement) args[0];
+
+        RewrittenStatement rewritten = statementCache.get(ms.getId());
+        if (rewritten == null || rewritten.source != ms) {
+            MappedStatement target = rewrite(ms);
+            rewritten = new RewrittenStatement(ms, target,
+                    target == ms ? null : EntityRowMapper.of(target.getConfiguration(), target.getResultMaps().get(0)));
+            if (isRegistered(ms)) {
+                statementCache.put(ms.getId(), rewritten);
+            }
+        }
+        MappedStatement target = rewritten.target;
+        if (rewritten.rowMapper != null) {
+            // 只查询了部分列时使用只包含这些列的 ResultMap
+            List<ColumnDescriptor> selectColumns = selectColumns(target, args[1]);
+            if (selectColumns != null) {
+                target = rewritten.projection(selectColumns).target;
+            }
+        }
+        args[0] = target;
+        return invocation.proceed();
+    }
+
+    /**
+     * 解析 Wrapper 指定的查询列
+     * @param ms 自动生成 ResultMap 的 MappedStatement
+     * @param parameter 查询参数
+     * @return 查询列对应的字段，查询全部列或包含无法对应到字段的列(函数、别名等)时返回null
+     */
+    private static List<ColumnDescriptor> selectColumns(MappedStatement ms, Object parameter) {
+        if (!(parameter instanceof Map) || !((Map<?, ?>) parameter).containsKey(Constants.WRAPPER)) {
+            return null;
+        }
+        Object wrapper = ((Map<?, ?>) parameter).get(Constants.WRAPPER);
+        if (!(wrapper instanceof WrapperQuery)) {
+            return null;
+        }
+        List<String> columns = ((WrapperQuery<?, ?, ?>) wrapper).getSelectColumns();
+        if (CollUtil.isEmpty(columns)) {
+            return null;
+        }
+        TableMetadata<?> tableMetadata = TableMetadata.forClass(ms.getResultMaps().get(0).getType());
+        Set<Field> fields = new HashSet<>();
+        for (String column : columns) {
+            Field field = tableMetadata.lookupByColumn(StrUtil.trim(column));
+            if (field == null) {
+                return null;
+            }
+            fields.add(field);
+        }
+        if (fields.size() == tableMetadata.getColumns().size()) {
+            return null;
+        }
+        // 按实体字段顺序，相同的列集合得到相同的 ResultMap
+        List<ColumnDescriptor> descriptors = new ArrayList<>(fields.size());
+        for (ColumnDescriptor descriptor : tableMetadata.getColumns()) {
+            if (fields.contains(descriptor.getField())) {
+                descriptors.add(descriptor);
+            }
+        }
+        return descriptors;
+    }
+
+    /**
+     * 自动生成 ResultMap 的查询直接按列下标映射结果集
+     */
+    private Object handleResultSets(Invocation invocation) throws Throwable {
+        Object target = invocation.getTarget();
+        if (!fastMapping || MAPPED_STATEMENT_FIELD == null || !(target instanceof DefaultResultSetHandler)) {
+            return invocation.proceed();
+        }
+        MappedStatement ms = (MappedStatement) MAPPED_STATEMENT_FIELD.get(target);
+        RewrittenStatement rewritten = statementCache.get(ms.getId());
+        EntityRowMapper rowMapper = rewritten == null ? null : rewritten.rowMapper(ms);
+        if (rowMapper == null
+                || ms.getResultSets() != null
+                || RESULT_HANDLER_FIELD.get(target) != null
+                || !isDefault((RowBounds) ROW_BOUNDS_FIELD.get(target))) {
+            return invocation.proceed();
+        }
+
+        Statement stmt = (Statement) invocation.getArgs()[0];
+        ResultSet rs = firstResultSet(stmt);
+        if (rs == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return rowMapper.map(rs);
+        } finally {
+            rs.close();
+        }
+    }
+
+    /**
+     * 与 DefaultResultSetHandler 一致，跳过更新计数取第一个结果集
+     */
+    private static ResultSet firstResultSet(Statement stmt) throws Exception {
+        ResultSet rs = stmt.getResultSet();
+        while (rs == null) {
+            if (stmt.getMoreResults()) {
+                rs = stmt.getResultSet();
+            } else if (stmt.getUpdateCount() == -1) {
+                break;
+            }
+        }
+        return rs;
+    }
 
+    private static boolean isDefault(RowBounds rowBounds) {
+        return rowBounds == null || (rowBounds.getOffset() == RowBounds.NO_ROW_OFFSET && rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT);
+    }
+
+    private static Field handlerField(String name) {
+        try {
+            Field field = DefaultResultSetHandler.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (Exception e) {
+            // mybatis 版本不兼容时不使用快速映射
+            return null;
+        }
+    }
+
+    /**
+     * 是否对自动生成的 ResultMap 使用快速映射，默认开启
+     * @param fastMapping 是否开启
+     */
+    public void setFastMapping(boolean fastMapping) {
+        this.fastMapping = fastMapping;
+    }
+
+    /**
+     * 生成使用自动 ResultMap 的 MappedStatement
+     * @param ms 原始 MappedStatement
+     * @return 新的 MappedStatement，不需要处理时返回原对象
+     */
+    private MappedStatement rewrite(MappedStatement ms) {
         // xml sql 不做处理
         if (StrUtil.containsIgnoreCase(ms.getResource(), ".xml")) {
-            return invocation.proceed();
+            return ms;
         }
         // 是否是BaseMapper
         String mapperLocation = StrUtil.subBefore(ms.getId(), ".", true);
         if (StrUtil.isBlank(mapperLocation)) {
-            return invocation.proceed();
+            return ms;
         }
         Class<?> mapperClass;
         try {
             mapperClass = ClassUtil.loadClass(mapperLocation);
         } catch (Exception e) {
-            return invocation.proceed();
+            return ms;
         }
         if (!BaseMapper.class.isAssignableFrom(mapperClass)) {
-            return invocation.proceed();
+            return ms;
         }
 
         // 是否是BaseMapper中的方法(兼容自定义statement例如pageHelper)
@@ -66,33 +235,67 @@ public class ResultMapInterceptor implements Interceptor {
             }
         }
         if (!isMapperMethod) {
-            return invocation.proceed();
+            return ms;
         }
 
-        ResultMap resultMap = ms.getResultMaps().iterator().next();
+        if (CollUtil.isEmpty(ms.getResultMaps())) {
+            return ms;
+        }
+        ResultMap resultMap = ms.getResultMaps().get(0);
         if (!CollUtil.isEmpty(resultMap.getResultMappings())) {
-            return invocation.proceed();
+            return ms;
         }
         Class<?> mapType = resultMap.getType();
-        if (Collection.class.isAssignableFrom(mapType)) {
-            return invocation.proceed();
+        if (Collection.class.isAssignableFrom(mapType) || Map.class.isAssignableFrom(mapType) || ClassUtil.isSimpleValueType(mapType)) {
+            // count 等返回简单类型的方法不需要映射
+            return ms;
         }
         TableMetadata<?> tableMetadata = TableMetadata.forClass(mapType);
-        Map<Field, String> fieldColumnMap = tableMetadata.getFieldColumnMap();
+        return copy(ms, buildResultMap(ms.getConfiguration(), resultMap.getId(), mapType, tableMetadata.getColumns()));
+    }
 
-        List<ResultMapping> resultMappings = new ArrayList<>(fieldColumnMap.size());
-        for (Field field : fieldColumnMap.keySet()) {
-            String property = field.getName();
-            String column = fieldColumnMap.get(field);
-            ResultMapping resultMapping = new ResultMapping.Builder(ms.getConfiguration(), property, column, field.getType()).build();
+    private static ResultMap buildResultMap(Configuration configuration, String id, Class<?> mapType, List<ColumnDescriptor> columns) {
+        List<ResultMapping> resultMappings = new ArrayList<>(columns.size());
+        for (ColumnDescriptor descriptor : columns) {
+            ResultMapping resultMapping = new ResultMapping.Builder(configuration, descriptor.getProperty(), descriptor.getColumn(),
+                    descriptor.getField().getType()).build();
             resultMappings.add(resultMapping);
         }
+        return new ResultMap.Builder(configuration, id, mapType, resultMappings).build();
+    }
 
-        ResultMap newRm = new ResultMap.Builder(ms.getConfiguration(), resultMap.getId(), mapType, resultMappings).build();
+    private static boolean isRegistered(MappedStatement ms) {
+        Configuration configuration = ms.getConfiguration();
+        return configuration.hasStatement(ms.getId(), false) && configuration.getMappedStatement(ms.getId(), false) == ms;
+    }
 
-        ReflectUtil.setFieldValue(ms, "resultMaps", newRm);
+    /**
+     * 复制 MappedStatement 并替换 ResultMap
+     */
+    private static MappedStatement copy(MappedStatement ms, ResultMap resultMap) {
+        MappedStatement.Builder builder = new MappedStatement.Builder(ms.getConfiguration(), ms.getId(), ms.getSqlSource(), ms.getSqlCommandType())
+                .resource(ms.getResource())
+                .fetchSize(ms.getFetchSize())
+                .timeout(ms.getTimeout())
+                .statementType(ms.getStatementType())
+                .resultSetType(ms.getResultSetType())
+                .parameterMap(ms.getParameterMap())
+                .resultMaps(Collections.singletonList(resultMap))
+                .cache(ms.getCache())
+                .flushCacheRequired(ms.isFlushCacheRequired())
+                .useCache(ms.isUseCache())
+                .resultOrdered(ms.isResultOrdered())
+                .keyGenerator(ms.getKeyGenerator())
+                .keyProperty(join(ms.getKeyProperties()))
+                .keyColumn(join(ms.getKeyColumns()))
+                .databaseId(ms.getDatabaseId())
+                .lang(ms.getLang())
+                .resultSets(join(ms.getResultSets()));
+        return builder.build();
+    }
 
-        return invocation.proceed();
+    private static String join(String[] values) {
+        return values == null ? null : String.join(",", values);
     }
 
     @Override
@@ -102,6 +305,61 @@ public class ResultMapInterceptor implements Interceptor {
 
     @Override
     public void setProperties(Properties properties) {
+        String fastMapping = properties.getProperty("fastMapping");
+        if (StrUtil.isNotBlank(fastMapping)) {
+            setFastMapping(Boolean.parseBoolean(fastMapping));
+        }
+    }
+
+    private static final class RewrittenStatement {
+
+        private final MappedStatement source;
+
+        private final MappedStatement target;
+
+        /**
+         * 自动生成 ResultMap 时的行映射，不支持快速映射时为null
+         */
+        private final EntityRowMapper rowMapper;
 
+        /**
+         * 查询列(属性名逗号拼接) : 只包含这些列的 MappedStatement
+         */
+        private final Map<String, RewrittenStatement> projections = new ConcurrentHashMap<>();
+
+        private RewrittenStatement(MappedStatement source, MappedStatement target, EntityRowMapper rowMapper) {
+            this.source = source;
+            this.target = target;
+            this.rowMapper = rowMapper;
+        }
+
+        private RewrittenStatement projection(List<ColumnDescriptor> columns) {
+            String key = columns.stream().map(ColumnDescriptor::getProperty).collect(Collectors.joining(","));
+            RewrittenStatement projection = projections.get(key);
+            if (projection == null) {
+                projection = projections.computeIfAbsent(key, k -> {
+                    ResultMap resultMap = target.getResultMaps().get(0);
+                    ResultMap projectionMap = buildResultMap(target.getConfiguration(), resultMap.getId() + "[" + k + "]", resultMap.getType(), columns);
+                    MappedStatement projectionMs = copy(target, projectionMap);
+                    return new RewrittenStatement(source, projectionMs, EntityRowMapper.of(target.getConfiguration(), projectionMap));
+                });
+            }
+            return projection;
+        }
+
+        /**
+         * 实际执行的 MappedStatement 对应的行映射
+         */
+        private EntityRowMapper rowMapper(MappedStatement ms) {
+            if (target == ms) {
+                return rowMapper;
+            }
+            for (RewrittenStatement projection : projections.values()) {
+                if (projection.target == ms) {
+                    return projection.rowMapper;
+                }
+            }
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
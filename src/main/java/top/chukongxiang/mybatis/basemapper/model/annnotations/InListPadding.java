@@ -0,0 +1,24 @@
+package top.chukongxiang.mybatis.basemapper.model.annnotations;
+
+import java.lang.annotation.*;
+
+/**
+ * <p>IN 列表按2的幂补齐，写在 Mapper 接口上，覆盖 {@link top.chukongxiang.mybatis.basemapper.sql.core.InListStrategies#setDefaultPadding(boolean)}</p>
+ * <p>IN 的每个元素一个占位符，不同长度的列表生成不同的SQL，会挤占驱动和数据库的 PreparedStatement 缓存以及SQL缓存；
+ * 补齐后重复最后一个元素，例如 3 个元素补齐到 4 个，长度不超过N的列表只会生成约 log2(N) 种SQL</p>
+ * <p>作用于 selectByIds、deleteByIds 和 Wrapper 的 in/notIn</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-03 09:21:47
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+public @interface InListPadding {
+
+    /**
+     * 是否补齐
+     */
+    boolean value() default true;
+
+}
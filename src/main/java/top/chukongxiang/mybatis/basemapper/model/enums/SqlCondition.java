@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 /**
+ * {@link top.chukongxiang.mybatis.basemapper.model.annnotations.TableField#condition()} 在 XML 条件中使用的模板
+ * <p>Wrapper 中的 LIKE 条件不使用这里的模板，绑定转义后的匹配串，见 {@link top.chukongxiang.mybatis.basemapper.sql.core.LikePattern}</p>
  * @author 楚孔响
  * @version 1.0.0
  * @date 2024-11-08 14:12:20
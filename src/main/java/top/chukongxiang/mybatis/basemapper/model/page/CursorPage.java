@@ -0,0 +1,43 @@
+package top.chukongxiang.mybatis.basemapper.model.page;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 游标分页结果，不统计总数，通过 {@link #getNextCursor()} 读取下一页
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-06 11:02:47
+ */
+@Data
+@Accessors(chain = true)
+public class CursorPage<T> {
+
+    /**
+     * 每页显示条数
+     */
+    private long size = 10;
+
+    /**
+     * 本页使用的游标，第一页为null
+     */
+    private String cursor;
+
+    /**
+     * 下一页的游标，没有下一页时为null
+     */
+    private String nextCursor;
+
+    private List<T> records = new ArrayList<>();
+
+    /**
+     * 是否还有下一页
+     * @return 是否还有下一页
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
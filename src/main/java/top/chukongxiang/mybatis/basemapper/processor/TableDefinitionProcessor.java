@@ -0,0 +1,180 @@
+package top.chukongxiang.mybatis.basemapper.processor;
+
+import cn.hutool.core.util.StrUtil;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableField;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableId;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableName;
+import top.chukongxiang.mybatis.basemapper.model.enums.FieldStrategy;
+import top.chukongxiang.mybatis.basemapper.model.enums.IdType;
+import top.chukongxiang.mybatis.basemapper.model.enums.SqlCondition;
+import top.chukongxiang.mybatis.basemapper.model.enums.WrapType;
+import top.chukongxiang.mybatis.basemapper.providers.TableDefinition;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+
+/**
+ * <p>编译期为 @TableName 实体生成 {@link TableDefinition}，运行时 TableMetadata 不再扫描字段和注解</p>
+ * <p>可选功能，没有注册到 META-INF/services，需要在编译插件中显式开启：</p>
+ * <pre>
+ * &lt;annotationProcessors&gt;
+ *     &lt;annotationProcessor&gt;top.chukongxiang.mybatis.basemapper.processor.TableDefinitionProcessor&lt;/annotationProcessor&gt;
+ * &lt;/annotationProcessors&gt;
+ * </pre>
+ * <p>字段的顺序、列名规则与 TableMetadata 的反射解析保持一致</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-11-26 16:02:37
+ */
+@SupportedAnnotationTypes("top.chukongxiang.mybatis.basemapper.model.annnotations.TableName")
+public class TableDefinitionProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(TableName.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                continue;
+            }
+            TypeElement entity = (TypeElement) element;
+            if (entity.getNestingKind().isNested() || entity.getModifiers().contains(Modifier.ABSTRACT)) {
+                // 内部类和抽象类不生成，运行时使用反射解析
+                continue;
+            }
+            try {
+                generate(entity);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        "[Mybatis] 生成表定义失败: " + e.getMessage(), entity);
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement entity) throws IOException {
+        String packageName = processingEnv.getElementUtils().getPackageOf(entity).getQualifiedName().toString();
+        String className = entity.getSimpleName() + TableDefinition.SUFFIX;
+        TableName tableName = entity.getAnnotation(TableName.class);
+
+        StringBuilder code = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            code.append("package ").append(packageName).append(";\n\n");
+        }
+        code.append("/**\n * 由 ").append(getClass().getName()).append(" 生成，请勿修改\n */\n");
+        code.append("public final class ").append(className).append(" extends ").append(TableDefinition.class.getName()).append(" {\n\n");
+        code.append("    public ").append(className).append("() {\n");
+        code.append("        super(").append(literal(tableName.value())).append(", ")
+                .append(enumLiteral(tableName.wrapType())).append(", ")
+                .append(literal(tableName.wrap())).append(");\n");
+
+        int depth = 0;
+        TypeElement type = entity;
+        while (type != null && !Object.class.getName().contentEquals(type.getQualifiedName())) {
+            for (Element member : type.getEnclosedElements()) {
+                if (member.getKind() == ElementKind.FIELD) {
+                    appendColumn(code, depth, (VariableElement) member);
+                }
+            }
+            type = superclass(type);
+            depth++;
+        }
+
+        code.append("    }\n\n}\n");
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(
+                packageName.isEmpty() ? className : packageName + "." + className, entity);
+        try (Writer writer = file.openWriter()) {
+            writer.write(code.toString());
+        }
+    }
+
+    /**
+     * 与 TableMetadata#getColumnName 和 ColumnDescriptor#of 的解析规则一致
+     */
+    private void appendColumn(StringBuilder code, int depth, VariableElement field) {
+        TableField tableField = field.getAnnotation(TableField.class);
+        if (tableField != null && !tableField.exist()) {
+            return;
+        }
+        TableId tableId = field.getAnnotation(TableId.class);
+        String fieldName = field.getSimpleName().toString();
+
+        String columnName = fieldName;
+        boolean customColumn = false;
+        if (tableId != null && StrUtil.isNotBlank(tableId.value())) {
+            columnName = tableId.value();
+            customColumn = true;
+        } else if (tableField != null && StrUtil.isNotBlank(tableField.value())) {
+            columnName = tableField.value();
+            customColumn = true;
+        }
+        if ((tableField == null || tableField.mapUnderlineCase()) && !customColumn) {
+            columnName = StrUtil.toUnderlineCase(columnName);
+        }
+
+        WrapType wrapType = tableField == null ? WrapType.AUTO : tableField.wrapType();
+        String wrap = tableField == null ? "" : tableField.wrap();
+        IdType idType = tableId == null ? null : tableId.type();
+        FieldStrategy insertStrategy = tableField == null ? FieldStrategy.DEFAULT : tableField.insertStrategy();
+        FieldStrategy updateStrategy = tableField == null ? FieldStrategy.DEFAULT : tableField.updateStrategy();
+        FieldStrategy whereStrategy = tableField == null ? FieldStrategy.DEFAULT : tableField.whereStrategy();
+        SqlCondition condition = tableField == null ? SqlCondition.EQ : tableField.condition();
+        boolean select = tableField == null || tableField.select();
+
+        code.append("        column(").append(depth).append(", ")
+                .append(literal(fieldName)).append(", ")
+                .append(literal(columnName)).append(", ")
+                .append(enumLiteral(wrapType)).append(", ")
+                .append(literal(wrap)).append(", ")
+                .append(tableId != null).append(", ")
+                .append(idType == null ? "null" : enumLiteral(idType)).append(", ")
+                .append(enumLiteral(insertStrategy)).append(", ")
+                .append(enumLiteral(updateStrategy)).append(", ")
+                .append(enumLiteral(whereStrategy)).append(", ")
+                .append(enumLiteral(condition)).append(", ")
+                .append(select).append(");\n");
+    }
+
+    private static TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return (TypeElement) ((DeclaredType) superclass).asElement();
+    }
+
+    private static String enumLiteral(Enum<?> value) {
+        return value.getDeclaringClass().getName() + "." + value.name();
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"': literal.append("\\\""); break;
+                case '\\': literal.append("\\\\"); break;
+                case '\n': literal.append("\\n"); break;
+                case '\r': literal.append("\\r"); break;
+                case '\t': literal.append("\\t"); break;
+                default: literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+}
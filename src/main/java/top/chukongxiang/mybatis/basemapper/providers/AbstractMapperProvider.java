@@ -4,6 +4,8 @@ import cn.hutool.core.annotation.AnnotationUtil;
 import cn.hutool.core.util.ReflectUtil;
 import cn.hutool.core.util.StrUtil;
 import cn.hutool.core.util.TypeUtil;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import net.sf.cglib.proxy.Enhancer;
 import net.sf.cglib.proxy.MethodInterceptor;
@@ -12,17 +14,26 @@ import org.apache.ibatis.binding.MapperRegistry;
 import org.apache.ibatis.builder.annotation.ProviderContext;
 import org.apache.ibatis.session.Configuration;
 import top.chukongxiang.mybatis.basemapper.BaseMapper;
+import top.chukongxiang.mybatis.basemapper.model.Constants;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.InListPadding;
 import top.chukongxiang.mybatis.basemapper.model.annnotations.TableField;
 import top.chukongxiang.mybatis.basemapper.model.enums.FieldStrategy;
 import top.chukongxiang.mybatis.basemapper.model.enums.SqlCondition;
+import top.chukongxiang.mybatis.basemapper.sql.core.BaseWrapper;
+import top.chukongxiang.mybatis.basemapper.sql.core.InListStrategies;
+import top.chukongxiang.mybatis.basemapper.sql.core.WrapperShape;
+import top.chukongxiang.mybatis.basemapper.utils.LruCache;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -45,6 +56,17 @@ public abstract class AbstractMapperProvider {
      */
     public static final Map<String, String> SQL_CACHE = new ConcurrentHashMap<>();
 
+    /**
+     * <p>(Mapper方法, Wrapper条件结构) : SQL</p>
+     * <p>Wrapper 的SQL随条件结构变化，只缓存最近使用的结构</p>
+     */
+    public static final LruCache<WrapperSqlKey, String> WRAPPER_SQL_CACHE = new LruCache<>(512);
+
+    /**
+     * Mapper.class : 是否补齐 IN 列表，没有注解时为空
+     */
+    private static final Map<Class<?>, Optional<Boolean>> IN_LIST_PADDING_CACHE = new ConcurrentHashMap<>();
+
     /**
      * 获取实体类class
      * @param providerContext
@@ -63,17 +85,108 @@ public abstract class AbstractMapperProvider {
     }
 
     public static String getCachedSql(ProviderContext providerContext, Supplier<String> sqlSupplier) {
-        Method method = providerContext.getMapperMethod();
-        String className = providerContext.getMapperType().getName();
+        return getCachedSql(providerContext.getMapperType(), providerContext.getMapperMethod(), sqlSupplier);
+    }
+
+    public static String getCachedSql(Class<?> mapperType, Method method, Supplier<String> sqlSupplier) {
+        String key = sqlCacheKey(mapperType, method);
+        String sql = SQL_CACHE.get(key);
+        while (sql == null) {
+            // 生成期间切换了数据库类型时丢弃结果重新生成，见 TableMetadata#publish
+            long epoch = TableMetadata.getDialectEpoch();
+            String built = sqlSupplier.get();
+            sql = TableMetadata.publish(epoch, () -> {
+                String cached = SQL_CACHE.putIfAbsent(key, built);
+                return cached == null ? built : cached;
+            });
+        }
+        return sql;
+    }
+
+    /**
+     * 按 Wrapper 条件结构缓存SQL，命中时 Wrapper 的参数已经按结构绑定，不需要再 build
+     * @param providerContext providerContext
+     * @param wrapper Wrapper
+     * @param sqlSupplier 未命中时生成SQL
+     * @return SQL
+     */
+    public static String getCachedWrapperSql(ProviderContext providerContext, BaseWrapper<?, ?> wrapper, Supplier<String> sqlSupplier) {
+        return InListStrategies.padding(inListPadding(providerContext.getMapperType()), () -> {
+            WrapperShape shape = wrapper.shape();
+            if (shape == null) {
+                return sqlSupplier.get();
+            }
+            WrapperSqlKey key = new WrapperSqlKey(providerContext.getMapperType(), providerContext.getMapperMethod(), shape);
+            String sql = WRAPPER_SQL_CACHE.getIfPresent(key);
+            if (sql != null) {
+                return sql;
+            }
+            long epoch = TableMetadata.getDialectEpoch();
+            String built = sqlSupplier.get();
+            TableMetadata.publish(epoch, () -> {
+                WRAPPER_SQL_CACHE.put(key, built);
+                return built;
+            });
+            return built;
+        });
+    }
+
+    /**
+     * Mapper 是否补齐 IN 列表
+     * @param mapperType mapper类
+     * @return 有 {@link InListPadding} 注解时按注解，否则按 {@link InListStrategies#isDefaultPadding()}
+     */
+    public static boolean inListPadding(Class<?> mapperType) {
+        Optional<Boolean> padding = IN_LIST_PADDING_CACHE.get(mapperType);
+        if (padding == null) {
+            padding = IN_LIST_PADDING_CACHE.computeIfAbsent(mapperType,
+                    k -> Optional.ofNullable(AnnotationUtil.getAnnotation(k, InListPadding.class)).map(InListPadding::value));
+        }
+        return padding.orElseGet(InListStrategies::isDefaultPadding);
+    }
+
+    /**
+     * 补齐 selectByIds/deleteByIds 的id集合参数
+     * @param providerContext providerContext
+     * @param params mapper参数
+     */
+    @SuppressWarnings("unchecked")
+    public static void padCollection(ProviderContext providerContext, Map<String, Object> params) {
+        if (!inListPadding(providerContext.getMapperType()) || params == null || !params.containsKey(Constants.COLLECTION)) {
+            return;
+        }
+        Object collection = params.get(Constants.COLLECTION);
+        List<Object> ids;
+        if (collection instanceof Collection) {
+            ids = new ArrayList<>((Collection<Object>) collection);
+        } else if (collection instanceof Object[]) {
+            ids = Arrays.asList((Object[]) collection);
+        } else {
+            return;
+        }
+        if (!ids.isEmpty()) {
+            params.put(Constants.COLLECTION, InListStrategies.pad(ids));
+        }
+    }
+
+    /**
+     * SQL缓存的key
+     * @param mapperType mapper类
+     * @param method mapper方法
+     * @return MapperClass#Method(params)
+     */
+    public static String sqlCacheKey(Class<?> mapperType, Method method) {
+        String className = mapperType.getName();
         String methodName = method.getName();
         List<String> params = Arrays.stream(method.getParameterTypes()).map(Class::getName).collect(Collectors.toList());
 
-        String key = className + "#" + methodName + "(" + String.join(", ", params + ")");
-        return SQL_CACHE.computeIfAbsent(key, k -> sqlSupplier.get());
+        return className + "#" + methodName + "(" + String.join(", ", params + ")");
     }
 
     /**
-     * Cglib代理MapperRegistry，在执行addMapper之前，处理BaseMapper的@Options注解，实现动态id回填
+     * Cglib代理MapperRegistry，在执行addMapper之前，处理BaseMapper的@Options注解，实现动态id回填；
+     * 在执行addMapper之后，预编译该Mapper的静态SQL
+     * @see MapperStatementPreparer
      */
     @SneakyThrows
     public static void invoke(Configuration configuration) {
@@ -82,10 +195,11 @@ public abstract class AbstractMapperProvider {
         Enhancer enhancer = new Enhancer();
         enhancer.setSuperclass(MapperRegistry.class);
         enhancer.setCallback((MethodInterceptor) (obj, method, args, proxy) -> {
-            if ("addMapper".equals(method.getName()) &&
+            boolean isBaseMapper = "addMapper".equals(method.getName()) &&
                     args.length == 1 &&
                     BaseMapper.class != args[0] &&
-                    BaseMapper.class.isAssignableFrom((Class<?>) args[0])) {
+                    BaseMapper.class.isAssignableFrom((Class<?>) args[0]);
+            if (isBaseMapper) {
 
                 // 调用的addMapper，且参数是BaseMapper.class
                 Class<? extends BaseMapper<?>> mapperClass = (Class<? extends BaseMapper<?>>) args[0];
@@ -118,7 +232,15 @@ public abstract class AbstractMapperProvider {
                     declaredAnnotations.put(Options.class, instance);
                 }
             }
-            return proxy.invoke(mapperRegistry, args);
+            Object result = proxy.invoke(mapperRegistry, args);
+            if (isBaseMapper) {
+                Class<? extends BaseMapper<?>> mapperClass = (Class<? extends BaseMapper<?>>) args[0];
+                // 只登记数据源，列类型在第一次构造该实体的Wrapper时读取，注册时不访问数据库
+                DatabaseColumns.register(mapperClass, configuration);
+                // 注册完成后预先生成元数据和静态SQL
+                MapperStatementPreparer.prepare(mapperClass);
+            }
+            return result;
         });
 
         MapperRegistry proxyMapperRegistry = (MapperRegistry) enhancer.create(new Class[]{Configuration.class}, new Object[]{configuration});
@@ -148,14 +270,14 @@ public abstract class AbstractMapperProvider {
 
         StringBuilder whereSql = new StringBuilder();
 
-        for (Field field : tableMetadata.getFields()) {
+        for (ColumnDescriptor descriptor : tableMetadata.getColumns()) {
 
-            String wrappedColumn = tableMetadata.getWrappedColumn(field);
-            String property = getProperty(field);
+            String wrappedColumn = descriptor.getWrappedColumn();
+            String property = getProperty(descriptor.getField());
 
-            SqlCondition sqlCondition = getSqlCondition(field);
+            SqlCondition sqlCondition = descriptor.getSqlCondition();
 
-            FieldStrategy fieldStrategy = getWhereStrategy(field);
+            FieldStrategy fieldStrategy = descriptor.getWhereStrategy();
 
             switch (fieldStrategy) {
                 case DEFAULT:
@@ -203,36 +325,34 @@ public abstract class AbstractMapperProvider {
 
     /**
      * 获取字段where条件策略
+     * <p>每次调用都会扫描注解，实体字段请使用 {@link ColumnDescriptor#getWhereStrategy()}</p>
      * @param field 字段
      * @return where策略
      */
     public static FieldStrategy getWhereStrategy(Field field) {
-        FieldStrategy fieldStrategy = FieldStrategy.DEFAULT;
-
-        if (AnnotationUtil.hasAnnotation(field, TableField.class)) {
-            fieldStrategy = AnnotationUtil.getAnnotation(field, TableField.class).whereStrategy();
-        }
-
-        if (fieldStrategy == FieldStrategy.DEFAULT) {
-            // 判断是否是字符串，如果是字符串，把DEFAULT修改为NOT_EMPTY
-            if (CharSequence.class.isAssignableFrom(field.getType())) {
-                fieldStrategy = FieldStrategy.NOT_EMPTY;
-            }
-        }
-        return fieldStrategy;
+        TableField tableField = AnnotationUtil.getAnnotation(field, TableField.class);
+        return ColumnDescriptor.resolveStrategy(field, tableField == null ? FieldStrategy.DEFAULT : tableField.whereStrategy());
     }
 
     /**
      * 获取字段注解的 SqlCondition 默认EQ
+     * <p>每次调用都会扫描注解，实体字段请使用 {@link ColumnDescriptor#getSqlCondition()}</p>
      * @param field 字段
      * @return SqlCondition
      */
     public static SqlCondition getSqlCondition(Field field) {
-        SqlCondition sqlCondition = SqlCondition.EQ;
-        TableField tableField = AnnotationUtil.getAnnotation(field, TableField.class);
-        if (tableField != null) {
-            sqlCondition = tableField.condition();
-        }
-        return sqlCondition;
+        return ColumnDescriptor.resolveSqlCondition(AnnotationUtil.getAnnotation(field, TableField.class));
     }
+
+    /**
+     * Wrapper SQL缓存的key
+     */
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    public static final class WrapperSqlKey {
+        private final Class<?> mapperType;
+        private final Method method;
+        private final WrapperShape shape;
+    }
+
 }
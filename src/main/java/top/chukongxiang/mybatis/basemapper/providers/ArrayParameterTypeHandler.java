@@ -0,0 +1,44 @@
+package top.chukongxiang.mybatis.basemapper.providers;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import top.chukongxiang.mybatis.basemapper.sql.core.ArrayParameter;
+
+import java.sql.Array;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * <p>{@link ArrayParameter} 的 TypeHandler，通过当前连接创建 JDBC Array 绑定</p>
+ * <p>由 {@link WrapperLanguageDriver} 注册到 Configuration</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-02 10:36:20
+ */
+final class ArrayParameterTypeHandler extends BaseTypeHandler<ArrayParameter> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, ArrayParameter parameter, JdbcType jdbcType) throws SQLException {
+        Array array = ps.getConnection().createArrayOf(parameter.getTypeName(), parameter.getElements());
+        ps.setArray(i, array);
+        array.free();
+    }
+
+    @Override
+    public ArrayParameter getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        throw new SQLException("[Mybatis] ArrayParameter 只能作为参数使用");
+    }
+
+    @Override
+    public ArrayParameter getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        throw new SQLException("[Mybatis] ArrayParameter 只能作为参数使用");
+    }
+
+    @Override
+    public ArrayParameter getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        throw new SQLException("[Mybatis] ArrayParameter 只能作为参数使用");
+    }
+
+}
@@ -0,0 +1,42 @@
+package top.chukongxiang.mybatis.basemapper.providers;
+
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>BaseMapper 专用的 LanguageDriver，缓存解析后的 SqlSource</p>
+ * <p>ProviderSqlSource 每次执行都会把 Provider 返回的 &lt;script&gt; 交给 LanguageDriver 重新解析XML，
+ * 而 BaseMapper 的静态SQL已经由 {@link AbstractMapperProvider#SQL_CACHE} 按 Mapper方法 缓存，
+ * 同一个方法每次返回的都是同一个字符串，所以这里按 参数类型 + SQL 缓存解析结果，稳定运行后不再解析XML</p>
+ * <p>DynamicSqlSource/RawSqlSource 本身不持有参数值，可以在线程间共享</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-11-22 10:12:41
+ */
+public class BaseMapperLanguageDriver extends XMLLanguageDriver {
+
+    /**
+     * parameterType : (SQL : SqlSource)
+     * <p>LanguageDriver 由 Configuration 按类型实例化，一个 Configuration 一个实例，所以缓存不需要区分 Configuration</p>
+     */
+    private final Map<Class<?>, Map<String, SqlSource>> sqlSourceCache = new ConcurrentHashMap<>();
+
+    @Override
+    public SqlSource createSqlSource(Configuration configuration, String script, Class<?> parameterType) {
+        Class<?> type = parameterType == null ? Object.class : parameterType;
+        Map<String, SqlSource> scriptCache = sqlSourceCache.get(type);
+        if (scriptCache == null) {
+            scriptCache = sqlSourceCache.computeIfAbsent(type, k -> new ConcurrentHashMap<>());
+        }
+        SqlSource sqlSource = scriptCache.get(script);
+        if (sqlSource == null) {
+            sqlSource = scriptCache.computeIfAbsent(script, s -> super.createSqlSource(configuration, s, type));
+        }
+        return sqlSource;
+    }
+
+}
@@ -0,0 +1,136 @@
+package top.chukongxiang.mybatis.basemapper.providers;
+
+import cn.hutool.core.annotation.AnnotationUtil;
+import cn.hutool.core.util.ReflectUtil;
+import lombok.Getter;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableField;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableId;
+import top.chukongxiang.mybatis.basemapper.model.enums.FieldStrategy;
+import top.chukongxiang.mybatis.basemapper.model.enums.IdType;
+import top.chukongxiang.mybatis.basemapper.model.enums.SqlCondition;
+
+import java.lang.reflect.Field;
+
+/**
+ * <p>实体字段描述，在 {@link TableMetadata} 构造时一次性解析注解，之后只读</p>
+ * <p>SQL生成和 Wrapper 根据实体构造条件时只读取这里的结果，不再每次通过 AnnotationUtil 扫描注解</p>
+ * <p>字段读写使用反射，实测 MethodHandle 和 LambdaMetafactory 生成的访问器都不比反射快，见 ColumnAccessBenchmark</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-11-25 10:08:17
+ */
+@Getter
+public final class ColumnDescriptor {
+
+    private final Field field;
+
+    /**
+     * 属性名
+     */
+    private final String property;
+
+    /**
+     * 未包装的sql字段
+     */
+    private final String column;
+
+    /**
+     * 包装后的sql字段
+     */
+    private final String wrappedColumn;
+
+    private final boolean id;
+
+    /**
+     * 主键类型，非主键为null
+     */
+    private final IdType idType;
+
+    private final FieldStrategy insertStrategy;
+
+    private final FieldStrategy updateStrategy;
+
+    private final FieldStrategy whereStrategy;
+
+    private final SqlCondition sqlCondition;
+
+    /**
+     * 是否加入select查询列
+     */
+    private final boolean select;
+
+    ColumnDescriptor(Field field, String column, String wrappedColumn,
+                     boolean id, IdType idType,
+                     FieldStrategy insertStrategy, FieldStrategy updateStrategy, FieldStrategy whereStrategy,
+                     SqlCondition sqlCondition, boolean select) {
+        this.field = field;
+        this.property = field.getName();
+        this.column = column;
+        this.wrappedColumn = wrappedColumn;
+
+        this.id = id;
+        this.idType = id ? idType : null;
+        this.whereStrategy = resolveStrategy(field, whereStrategy);
+        this.updateStrategy = resolveStrategy(field, updateStrategy);
+        // 自增id，不插入
+        this.insertStrategy = this.idType == IdType.AUTO ? FieldStrategy.NEVER : resolveStrategy(field, insertStrategy);
+        this.sqlCondition = sqlCondition;
+        this.select = select;
+    }
+
+    /**
+     * 通过字段注解创建字段描述
+     * @param field 字段
+     * @param column 未包装的sql字段
+     * @param wrappedColumn 包装后的sql字段
+     * @return 字段描述
+     */
+    static ColumnDescriptor of(Field field, String column, String wrappedColumn) {
+        // TableId 上标注了 @TableField，AnnotationUtil 可以取到元注解
+        TableField tableField = AnnotationUtil.getAnnotation(field, TableField.class);
+        TableId tableId = AnnotationUtil.getAnnotation(field, TableId.class);
+        return new ColumnDescriptor(field, column, wrappedColumn,
+                tableId != null, tableId == null ? null : tableId.type(),
+                tableField == null ? FieldStrategy.DEFAULT : tableField.insertStrategy(),
+                tableField == null ? FieldStrategy.DEFAULT : tableField.updateStrategy(),
+                tableField == null ? FieldStrategy.DEFAULT : tableField.whereStrategy(),
+                resolveSqlCondition(tableField),
+                tableField == null || tableField.select());
+    }
+
+    /**
+     * 读取实体字段值
+     * @param entity 实体
+     * @return 字段值
+     */
+    public Object getValue(Object entity) {
+        return ReflectUtil.getFieldValue(entity, this.field);
+    }
+
+    /**
+     * 设置实体字段值，null 赋给基本类型时使用默认值，类型不匹配时先转换
+     * @param entity 实体
+     * @param value 字段值
+     */
+    public void setValue(Object entity, Object value) {
+        ReflectUtil.setFieldValue(entity, this.field, value);
+    }
+
+    /**
+     * 字符串字段的 DEFAULT 策略视为 NOT_EMPTY
+     * @param field 字段
+     * @param strategy 注解上的策略
+     * @return 实际策略
+     */
+    static FieldStrategy resolveStrategy(Field field, FieldStrategy strategy) {
+        if (strategy == FieldStrategy.DEFAULT && CharSequence.class.isAssignableFrom(field.getType())) {
+            return FieldStrategy.NOT_EMPTY;
+        }
+        return strategy;
+    }
+
+    static SqlCondition resolveSqlCondition(TableField tableField) {
+        return tableField == null ? SqlCondition.EQ : tableField.condition();
+    }
+
+}
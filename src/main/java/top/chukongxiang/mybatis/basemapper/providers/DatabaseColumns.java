@@ -0,0 +1,386 @@
+package top.chukongxiang.mybatis.basemapper.providers;
+
+import cn.hutool.core.convert.BasicType;
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+import top.chukongxiang.mybatis.basemapper.BaseMapper;
+import top.chukongxiang.mybatis.basemapper.model.enums.WrapperSqlCondition;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * <p>数据库中的实际列类型，通过 DatabaseMetaData#getColumns 读取，每个实体只读取一次</p>
+ * <p>Mapper 注册时只记录数据源，第一次转换参数或查询列类型时才读取，启动时不访问数据库；并发的第一次读取只执行一次，其他线程等待结果，
+ * 之后构造的 Wrapper 都按列类型转换参数。读取失败(包括连接池的运行时异常)只输出警告，该实体不再转换参数</p>
+ * <p>Wrapper 的参数是 Object，字符串id和 BIGINT 列比较(或反过来)时会按参数的类型绑定，数据库做隐式类型转换后可能不再使用索引；
+ * 构造条件和更新 Wrapper 的 SET 值时按列的实际类型转换字符串和数字参数，绑定时 {@link WrapperSqlSource} 就会选择与列一致的 TypeHandler；
+ * {@link top.chukongxiang.mybatis.basemapper.sql.WrapperTemplate} 的占位参数在 bind 时按所在的列转换</p>
+ * <p>读取时同时校验实体映射，列不存在或字段类型与列类型明显不一致时输出警告</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-04 10:27:39
+ */
+@Slf4j
+public final class DatabaseColumns {
+
+    /**
+     * 实体类 : (列名(不区分大小写) : 列类型)
+     */
+    private static final Map<Class<?>, Map<String, ColumnType>> COLUMN_TYPE_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 已注册还没有读取的实体类 : 读取任务，第一次使用时执行
+     */
+    private static final Map<Class<?>, FutureTask<Map<String, ColumnType>>> PENDING = new ConcurrentHashMap<>();
+
+    private static volatile boolean enabled = true;
+
+    private DatabaseColumns() {}
+
+    /**
+     * 是否读取列类型并转换Wrapper参数，默认开启
+     * @param enabled 是否开启
+     */
+    public static void setEnabled(boolean enabled) {
+        DatabaseColumns.enabled = enabled;
+    }
+
+    /**
+     * 登记 Mapper 实体对应表的数据源，不访问数据库，第一次使用列类型时读取；已经读取过的实体不再登记
+     * @param mapperClass mapper类
+     * @param configuration mybatis配置，没有数据源时不登记
+     */
+    public static void register(Class<? extends BaseMapper<?>> mapperClass, Configuration configuration) {
+        Environment environment = configuration.getEnvironment();
+        if (!enabled || environment == null) {
+            return;
+        }
+        Class<?> entityClass;
+        try {
+            entityClass = AbstractMapperProvider.entityClass(mapperClass);
+        } catch (Exception e) {
+            log.debug("[Mybatis] 无法解析 {} 的实体类，不读取列类型: {}", mapperClass.getName(), e.getMessage());
+            return;
+        }
+        DataSource dataSource = environment.getDataSource();
+        if (entityClass == null || dataSource == null || COLUMN_TYPE_CACHE.containsKey(entityClass)) {
+            return;
+        }
+        PENDING.putIfAbsent(entityClass, new FutureTask<>(() -> read(entityClass, dataSource)));
+    }
+
+    /**
+     * 立即读取实体对应表的列类型，并校验实体映射
+     * @param entityClass 实体类
+     * @param dataSource 数据源
+     */
+    public static void load(Class<?> entityClass, DataSource dataSource) {
+        if (!enabled || dataSource == null) {
+            return;
+        }
+        COLUMN_TYPE_CACHE.put(entityClass, read(entityClass, dataSource));
+    }
+
+    /**
+     * 读取实体的列类型，登记过还没有读取时在当前线程读取，其他线程同时读取同一个实体时等待结果
+     * @param entityClass 实体类
+     * @return 列名(不区分大小写) : 列类型，没有登记或读取失败时为null或空
+     */
+    private static Map<String, ColumnType> columnTypes(Class<?> entityClass) {
+        Map<String, ColumnType> columnTypes = COLUMN_TYPE_CACHE.get(entityClass);
+        if (columnTypes != null || PENDING.isEmpty()) {
+            return columnTypes;
+        }
+        FutureTask<Map<String, ColumnType>> task = PENDING.get(entityClass);
+        if (task == null) {
+            return COLUMN_TYPE_CACHE.get(entityClass);
+        }
+        task.run();
+        try {
+            columnTypes = task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            log.warn("[Mybatis] 读取 {} 的列信息失败，Wrapper参数不做类型转换: {}", entityClass.getName(), e.getCause().toString());
+            columnTypes = Collections.emptyMap();
+        }
+        COLUMN_TYPE_CACHE.putIfAbsent(entityClass, columnTypes);
+        PENDING.remove(entityClass, task);
+        return COLUMN_TYPE_CACHE.get(entityClass);
+    }
+
+    /**
+     * 通过 DatabaseMetaData 读取列类型
+     * @return 列名(不区分大小写) : 列类型，读取失败时为空
+     */
+    private static Map<String, ColumnType> read(Class<?> entityClass, DataSource dataSource) {
+        TableMetadata<?> tableMetadata = TableMetadata.forClass(entityClass);
+        String tableName = unwrap(tableMetadata.getTableName());
+        String schema = null;
+        int dot = tableName.lastIndexOf('.');
+        if (dot > 0) {
+            schema = unwrap(tableName.substring(0, dot));
+            tableName = unwrap(tableName.substring(dot + 1));
+        }
+        Map<String, ColumnType> columnTypes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            if (metaData.storesUpperCaseIdentifiers()) {
+                tableName = tableName.toUpperCase();
+                schema = schema == null ? null : schema.toUpperCase();
+            } else if (metaData.storesLowerCaseIdentifiers()) {
+                tableName = tableName.toLowerCase();
+                schema = schema == null ? null : schema.toLowerCase();
+            }
+            try (ResultSet rs = metaData.getColumns(connection.getCatalog(), schema, tableName, null)) {
+                while (rs.next()) {
+                    String column = rs.getString("COLUMN_NAME");
+                    // 其他schema中的同名表
+                    columnTypes.putIfAbsent(column, new ColumnType(column, rs.getInt("DATA_TYPE"), rs.getString("TYPE_NAME"), rs.getInt("NULLABLE")));
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            // 连接池的初始化失败等是运行时异常，同样不能影响查询
+            log.warn("[Mybatis] 读取表 {} 的列信息失败，Wrapper参数不做类型转换: {}", tableMetadata.getTableName(), e.toString());
+            return Collections.emptyMap();
+        }
+        if (columnTypes.isEmpty()) {
+            log.warn("[Mybatis] 没有读取到表 {} 的列信息，请检查 {} 的表名映射", tableMetadata.getTableName(), entityClass.getName());
+            return Collections.emptyMap();
+        }
+        validate(entityClass, tableMetadata, columnTypes);
+        return Collections.unmodifiableMap(columnTypes);
+    }
+
+    private static void validate(Class<?> entityClass, TableMetadata<?> tableMetadata, Map<String, ColumnType> columnTypes) {
+        for (ColumnDescriptor descriptor : tableMetadata.getColumns()) {
+            ColumnType columnType = columnTypes.get(descriptor.getColumn());
+            if (columnType == null) {
+                log.warn("[Mybatis] {}#{} 映射的列 {} 在表 {} 中不存在",
+                        entityClass.getName(), descriptor.getProperty(), descriptor.getColumn(), tableMetadata.getTableName());
+                continue;
+            }
+            Class<?> fieldType = descriptor.getField().getType();
+            Class<?> javaType = columnType.getJavaType();
+            boolean numericField = Number.class.isAssignableFrom(BasicType.wrap(fieldType));
+            boolean mismatch = (javaType == String.class && numericField)
+                    || (javaType != null && javaType != String.class && CharSequence.class.isAssignableFrom(fieldType));
+            if (mismatch) {
+                log.warn("[Mybatis] {}#{} 的类型 {} 与列 {}.{} 的类型 {} 不一致，比较时数据库可能做隐式转换",
+                        entityClass.getName(), descriptor.getProperty(), fieldType.getSimpleName(),
+                        tableMetadata.getTableName(), descriptor.getColumn(), columnType.getTypeName());
+            }
+        }
+    }
+
+    /**
+     * 获取列类型
+     * @param entityClass 实体类
+     * @param column 列名，可以是包装后的列名
+     * @return 列类型，没有登记、读取失败或列不存在时为null
+     */
+    public static ColumnType getColumnType(Class<?> entityClass, String column) {
+        if (entityClass == null) {
+            return null;
+        }
+        Map<String, ColumnType> columnTypes = columnTypes(entityClass);
+        return columnTypes == null ? null : columnTypes.get(unwrap(column));
+    }
+
+    /**
+     * 按列的实际类型转换Wrapper条件参数，只转换字符串和数字之间的不一致，无法转换时返回原值
+     * @param entityClass 实体类
+     * @param column 包装后的列名
+     * @param condition 条件
+     * @param value 条件参数，IN 为 List，BETWEEN 为长度2的数组
+     * @return 转换后的参数
+     */
+    public static Object coerce(Class<?> entityClass, String column, WrapperSqlCondition condition, Object value) {
+        if (value == null || (COLUMN_TYPE_CACHE.isEmpty() && PENDING.isEmpty())) {
+            return value;
+        }
+        ColumnType columnType = getColumnType(entityClass, column);
+        if (columnType == null || columnType.getJavaType() == null) {
+            return value;
+        }
+        switch (condition) {
+            case IN:
+            case NOT_IN: {
+                List<?> items = (List<?>) value;
+                List<Object> coerced = new ArrayList<>(items.size());
+                for (Object item : items) {
+                    coerced.add(columnType.coerce(item));
+                }
+                return coerced;
+            }
+            case BETWEEN:
+            case NOT_BETWEEN: {
+                Object[] between = (Object[]) value;
+                return new Object[] { columnType.coerce(between[0]), columnType.coerce(between[1]) };
+            }
+            case LIKE:
+            case NOT_LIKE:
+            case LIKE_LEFT:
+            case NOT_LIKE_LEFT:
+            case LIKE_RIGHT:
+            case NOT_LIKE_RIGHT: {
+                return value;
+            }
+            default: {
+                return columnType.coerce(value);
+            }
+        }
+    }
+
+    /**
+     * 按列的实际类型转换单个参数，无法转换时返回原值
+     * @param entityClass 实体类
+     * @param column 包装后的列名
+     * @param value 参数
+     * @return 转换后的参数
+     */
+    public static Object coerce(Class<?> entityClass, String column, Object value) {
+        if (value == null || (COLUMN_TYPE_CACHE.isEmpty() && PENDING.isEmpty())) {
+            return value;
+        }
+        ColumnType columnType = getColumnType(entityClass, column);
+        return columnType == null ? value : columnType.coerce(value);
+    }
+
+    /**
+     * 去掉表名、列名的包装符
+     */
+    static String unwrap(String name) {
+        if (name.length() > 1) {
+            char first = name.charAt(0);
+            char last = name.charAt(name.length() - 1);
+            if ((first == '`' && last == '`') || (first == '"' && last == '"') || (first == '[' && last == ']')) {
+                return name.substring(1, name.length() - 1);
+            }
+        }
+        return name;
+    }
+
+    /**
+     * 数据库中的列类型
+     */
+    @Getter
+    public static final class ColumnType {
+
+        private final String column;
+
+        private final JdbcType jdbcType;
+
+        private final String typeName;
+
+        /**
+         * 参数需要转换成的Java类型，只处理字符串和数字，其他为null
+         */
+        private final Class<?> javaType;
+
+        /**
+         * 是否允许null，驱动无法确定时视为允许
+         */
+        private final boolean nullable;
+
+        ColumnType(String column, int dataType, String typeName, int nullable) {
+            this.column = column;
+            JdbcType jdbcType;
+            try {
+                jdbcType = JdbcType.forCode(dataType);
+            } catch (IllegalArgumentException e) {
+                jdbcType = JdbcType.OTHER;
+            }
+            this.jdbcType = jdbcType == null ? JdbcType.OTHER : jdbcType;
+            this.typeName = typeName;
+            this.javaType = javaType(this.jdbcType);
+            this.nullable = nullable != DatabaseMetaData.columnNoNulls;
+        }
+
+        private static Class<?> javaType(JdbcType jdbcType) {
+            switch (jdbcType) {
+                case TINYINT:
+                case SMALLINT:
+                case INTEGER: {
+                    return Integer.class;
+                }
+                case BIGINT: {
+                    return Long.class;
+                }
+                case DECIMAL:
+                case NUMERIC: {
+                    return BigDecimal.class;
+                }
+                case REAL:
+                case FLOAT:
+                case DOUBLE: {
+                    return Double.class;
+                }
+                case CHAR:
+                case VARCHAR:
+                case LONGVARCHAR:
+                case NCHAR:
+                case NVARCHAR:
+                case LONGNVARCHAR: {
+                    return String.class;
+                }
+                default: {
+                    return null;
+                }
+            }
+        }
+
+        /**
+         * 转换单个参数
+         * @param value 参数
+         * @return 字符串参数比较数字列时转为数字，数字参数比较字符串列时转为字符串，其他返回原值
+         */
+        Object coerce(Object value) {
+            if (javaType == String.class) {
+                if (value instanceof BigDecimal) {
+                    // toString 可能是科学计数法，如 1E+3
+                    return ((BigDecimal) value).toPlainString();
+                }
+                return value instanceof Number ? value.toString() : value;
+            }
+            if (javaType != null && value instanceof CharSequence) {
+                String str = StrUtil.trim(value.toString());
+                try {
+                    if (javaType == Integer.class) {
+                        return Integer.valueOf(str);
+                    }
+                    if (javaType == Long.class) {
+                        return Long.valueOf(str);
+                    }
+                    if (javaType == BigDecimal.class) {
+                        return new BigDecimal(str);
+                    }
+                    return Double.valueOf(str);
+                } catch (NumberFormatException e) {
+                    // 非数字字符串保持原样，由数据库报错或转换
+                    return value;
+                }
+            }
+            return value;
+        }
+    }
+
+}
@@ -27,22 +27,28 @@ public class MapperDeleteProvider extends AbstractMapperProvider {
      * @see BaseMapper#deleteById(Serializable)
      */
     public String deleteById(ProviderContext providerContext) {
-        return getCachedSql(providerContext, () -> {
-            Class<?> entityClass = entityClass(providerContext);
-            TableMetadata<?> tableMetadata = TableMetadata.forClass(entityClass);
+        return getCachedSql(providerContext, () -> buildDeleteByIdSql(entityClass(providerContext)));
+    }
+
+    /**
+     * 生成 deleteById 的SQL
+     * @param entityClass 实体类
+     * @return SQL
+     */
+    public static String buildDeleteByIdSql(Class<?> entityClass) {
+        TableMetadata<?> tableMetadata = TableMetadata.forClass(entityClass);
 
-            List<Field> idFields = tableMetadata.getIdFields();
-            Assert.notEmpty(idFields, "无法生成 DELETE SQL，" + entityClass.getName() + " 没有主键");
+        List<Field> idFields = tableMetadata.getIdFields();
+        Assert.notEmpty(idFields, "无法生成 DELETE SQL，" + entityClass.getName() + " 没有主键");
 
-            SQL sql = new SQL().DELETE_FROM(tableMetadata.getTableName());
+        SQL sql = new SQL().DELETE_FROM(tableMetadata.getTableName());
 
-            for (Field idField : idFields) {
-                String column = tableMetadata.getWrappedColumn(idField);
-                sql.WHERE(column + " = #{param1}");
-            }
+        for (Field idField : idFields) {
+            String column = tableMetadata.getWrappedColumn(idField);
+            sql.WHERE(column + " = #{param1}");
+        }
 
-            return sql.toString();
-        });
+        return sql.toString();
     }
 
     /**
@@ -51,23 +57,30 @@ public class MapperDeleteProvider extends AbstractMapperProvider {
      * @return
      * @see BaseMapper#deleteByIds(java.util.Collection)
      */
-    public String deleteByIds(ProviderContext providerContext) {
-        return getCachedSql(providerContext, () -> {
-            Class<?> entityClass = entityClass(providerContext);
-            TableMetadata<?> tableMetadata = TableMetadata.forClass(entityClass);
+    public String deleteByIds(ProviderContext providerContext, Map<String, Object> params) {
+        padCollection(providerContext, params);
+        return getCachedSql(providerContext, () -> buildDeleteByIdsSql(entityClass(providerContext)));
+    }
+
+    /**
+     * 生成 deleteByIds 的SQL
+     * @param entityClass 实体类
+     * @return SQL
+     */
+    public static String buildDeleteByIdsSql(Class<?> entityClass) {
+        TableMetadata<?> tableMetadata = TableMetadata.forClass(entityClass);
 
-            List<Field> idFields = tableMetadata.getIdFields();
-            Assert.notEmpty(idFields, "无法生成 DELETE SQL，" + entityClass.getName() + " 没有主键");
+        List<Field> idFields = tableMetadata.getIdFields();
+        Assert.notEmpty(idFields, "无法生成 DELETE SQL，" + entityClass.getName() + " 没有主键");
 
-            SQL sql = new SQL().DELETE_FROM(tableMetadata.getTableName());
+        SQL sql = new SQL().DELETE_FROM(tableMetadata.getTableName());
 
-            for (Field idField : tableMetadata.getIdFields()) {
-                String idColumn = tableMetadata.getWrappedColumn(idField);
-                sql.WHERE(idColumn + " IN <foreach collection=\"" + Constants.COLLECTION + "\" item=\"id\" open=\"(\" separator=\",\" close=\")\">#{id}</foreach>");
-            }
+        for (Field idField : idFields) {
+            String idColumn = tableMetadata.getWrappedColumn(idField);
+            sql.WHERE(idColumn + " IN <foreach collection=\"" + Constants.COLLECTION + "\" item=\"id\" open=\"(\" separator=\",\" close=\")\">#{id}</foreach>");
+        }
 
-            return "<script>" + sql + "</script>";
-        });
+        return "<script>" + sql + "</script>";
     }
 
     /**
@@ -76,8 +89,8 @@ public class MapperDeleteProvider extends AbstractMapperProvider {
      * @return
      * @see BaseMapper#deleteByIdsArr(Serializable...)
      */
-    public String deleteByIdsArr(ProviderContext providerContext) {
-        return deleteByIds(providerContext);
+    public String deleteByIdsArr(ProviderContext providerContext, Map<String, Object> params) {
+        return deleteByIds(providerContext, params);
     }
 
     /**
@@ -97,10 +110,10 @@ public class MapperDeleteProvider extends AbstractMapperProvider {
         String sql = "DELETE FROM " + tableName;
         WrapperQuery<T, E, Column> queryWrapper = (WrapperQuery<T, E, Column>) params.get(Constants.WRAPPER);
         if (queryWrapper != null) {
-            String whereSql = queryWrapper.getWhereSql();
-            if (StrUtil.isNotBlank(whereSql)) {
-                sql = sql + " WHERE " + whereSql;
-            }
+            return getCachedWrapperSql(providerContext, queryWrapper, () -> {
+                String whereSql = queryWrapper.getWhereSql();
+                return StrUtil.isNotBlank(whereSql) ? sql + " WHERE " + whereSql : sql;
+            });
         }
         return sql;
     }
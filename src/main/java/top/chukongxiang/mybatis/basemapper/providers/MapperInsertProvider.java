@@ -1,16 +1,12 @@
 package top.chukongxiang.mybatis.basemapper.providers;
 
-import cn.hutool.core.annotation.AnnotationUtil;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.convert.Convert;
 import cn.hutool.core.util.IdUtil;
-import cn.hutool.core.util.ReflectUtil;
 import cn.hutool.core.util.StrUtil;
 import org.apache.ibatis.builder.annotation.ProviderContext;
 import top.chukongxiang.mybatis.basemapper.BaseMapper;
 import top.chukongxiang.mybatis.basemapper.model.Constants;
-import top.chukongxiang.mybatis.basemapper.model.annnotations.TableField;
-import top.chukongxiang.mybatis.basemapper.model.annnotations.TableId;
 import top.chukongxiang.mybatis.basemapper.model.enums.DbType;
 import top.chukongxiang.mybatis.basemapper.model.enums.FieldStrategy;
 import top.chukongxiang.mybatis.basemapper.model.enums.IdType;
@@ -37,14 +33,23 @@ public class MapperInsertProvider extends AbstractMapperProvider {
      * @see BaseMapper#insert(Object)
      */
     public <T> String insert(ProviderContext providerContext, Map<String, ?> params) {
-        T item = (T) params.get("item");
+        T item = (T) params.get(Constants.ENTITY);
         if (item == null) {
             throw new IllegalArgumentException("param1 can not be null");
         }
         Class<T> entityClass = (Class<T>) entityClass(providerContext);
         TableMetadata<T> tableMetadata = TableMetadata.forClass(entityClass);
         setTableId(item, tableMetadata);
-        return getCachedSql(providerContext, () -> "<script>" + buildInsertXmlCondition(entityClass, Constants.ENTITY) + "</script>");
+        return getCachedSql(providerContext, () -> buildInsertSql(entityClass));
+    }
+
+    /**
+     * 生成 insert 的SQL
+     * @param entityClass 实体类
+     * @return SQL
+     */
+    public static String buildInsertSql(Class<?> entityClass) {
+        return "<script>" + buildInsertXmlCondition(entityClass, Constants.ENTITY) + "</script>";
     }
 
     /**
@@ -56,18 +61,25 @@ public class MapperInsertProvider extends AbstractMapperProvider {
      * @see BaseMapper#insertOrUpdate(Object)
      */
     public <T> String insertOrUpdate(ProviderContext providerContext, Map<String, ?> params) {
-        T item = (T) params.get("item");
+        T item = (T) params.get(Constants.ENTITY);
         Class<T> entityClass = (Class<T>) entityClass(providerContext);
         TableMetadata<T> tableMetadata = TableMetadata.forClass(entityClass);
         setTableId(item, tableMetadata);
-        return getCachedSql(providerContext, () -> {
-            String sql = buildInsertXmlCondition(entityClass, Constants.ENTITY);
-            if (Objects.requireNonNull(TableMetadata.DB_TYPE) == DbType.mysql) {
-                String onDuplicateSql = buildDuplicateKeyXmlCondition(entityClass, Constants.ENTITY);
-                return StrUtil.format("<script>{} {}</script>", sql, onDuplicateSql);
-            }
-            return sql;
-        });
+        return getCachedSql(providerContext, () -> buildInsertOrUpdateSql(entityClass));
+    }
+
+    /**
+     * 生成 insertOrUpdate 的SQL
+     * @param entityClass 实体类
+     * @return SQL
+     */
+    public static String buildInsertOrUpdateSql(Class<?> entityClass) {
+        String sql = buildInsertXmlCondition(entityClass, Constants.ENTITY);
+        if (Objects.requireNonNull(TableMetadata.DB_TYPE) == DbType.mysql) {
+            String onDuplicateSql = buildDuplicateKeyXmlCondition(entityClass, Constants.ENTITY);
+            return StrUtil.format("<script>{} {}</script>", sql, onDuplicateSql);
+        }
+        return sql;
     }
 
     /**
@@ -84,14 +96,20 @@ public class MapperInsertProvider extends AbstractMapperProvider {
         for (T item : items) {
             setTableId(item, tableMetadata);
         }
-        return getCachedSql(providerContext, () -> {
-            Class<?> entityClass = entityClass(providerContext);
-            StringBuilder sql = new StringBuilder("<script>\n\t<foreach collection=\"" + Constants.COLLECTION + "\" item=\"" + Constants.ENTITY + "\">\n\t\t");
-            String insertSql = buildInsertXmlCondition(entityClass, Constants.ENTITY);
-            sql.append(insertSql);
-            sql.append(";\n\t</foreach>\n</script>");
-            return sql.toString();
-        });
+        return getCachedSql(providerContext, () -> buildBatchInsertSql(entityClass(providerContext)));
+    }
+
+    /**
+     * 生成 batchInsert 的SQL
+     * @param entityClass 实体类
+     * @return SQL
+     */
+    public static String buildBatchInsertSql(Class<?> entityClass) {
+        StringBuilder sql = new StringBuilder("<script>\n\t<foreach collection=\"" + Constants.COLLECTION + "\" item=\"" + Constants.ENTITY + "\">\n\t\t");
+        String insertSql = buildInsertXmlCondition(entityClass, Constants.ENTITY);
+        sql.append(insertSql);
+        sql.append(";\n\t</foreach>\n</script>");
+        return sql.toString();
     }
 
     /**
@@ -109,20 +127,26 @@ public class MapperInsertProvider extends AbstractMapperProvider {
             // 生成tableId
             setTableId(item, tableMetadata);
         }
-        return getCachedSql(providerContext, () -> {
-            Class<?> entityClass = entityClass(providerContext);
-            StringBuilder sql = new StringBuilder("<script>\n\t<foreach collection=\"" + Constants.COLLECTION + "\" item=\"" + Constants.ENTITY + "\">\n\t\t");
+        return getCachedSql(providerContext, () -> buildBatchInsertOrUpdateSql(entityClass(providerContext)));
+    }
 
-            String insertSql = buildInsertXmlCondition(entityClass, Constants.ENTITY);
-            sql.append(insertSql).append(" ");
+    /**
+     * 生成 batchInsertOrUpdate 的SQL
+     * @param entityClass 实体类
+     * @return SQL
+     */
+    public static String buildBatchInsertOrUpdateSql(Class<?> entityClass) {
+        StringBuilder sql = new StringBuilder("<script>\n\t<foreach collection=\"" + Constants.COLLECTION + "\" item=\"" + Constants.ENTITY + "\">\n\t\t");
 
-            String onDuplicateSql = buildDuplicateKeyXmlCondition(entityClass, Constants.ENTITY);
-            sql.append(onDuplicateSql);
+        String insertSql = buildInsertXmlCondition(entityClass, Constants.ENTITY);
+        sql.append(insertSql).append(" ");
+
+        String onDuplicateSql = buildDuplicateKeyXmlCondition(entityClass, Constants.ENTITY);
+        sql.append(onDuplicateSql);
 
-            sql.append(";\n\t</foreach>\n</script>");
+        sql.append(";\n\t</foreach>\n</script>");
 
-            return sql.toString();
-        });
+        return sql.toString();
     }
 
     /**
@@ -140,36 +164,41 @@ public class MapperInsertProvider extends AbstractMapperProvider {
             // 生成tableId
             setTableId(item, tableMetadata);
         }
-        return getCachedSql(providerContext, () -> {
-            Class<?> entityClass = entityClass(providerContext);
-            StringBuilder sql = new StringBuilder("<script>" +
-                    "LOCK TABLES " + tableMetadata.getTableName() + " WRITE;\n" +
-                    "<foreach collection=\"" + Constants.COLLECTION + "\" item=\"" + Constants.ENTITY + "\">");
-
-            String insertSql = buildInsertXmlCondition(entityClass, Constants.ENTITY);
-            sql.append(insertSql).append(" ");
+        return getCachedSql(providerContext, () -> buildLockBatchInsertOrUpdateSql(entityClass(providerContext)));
+    }
 
-            String onDuplicateSql = buildDuplicateKeyXmlCondition(entityClass, Constants.ENTITY);
-            sql.append(onDuplicateSql);
-            sql.append(";\n</foreach>" +
-                    "</script>");
-            return sql.toString();
-        });
+    /**
+     * 生成 lockBatchInsertOrUpdate 的SQL
+     * @param entityClass 实体类
+     * @return SQL
+     */
+    public static String buildLockBatchInsertOrUpdateSql(Class<?> entityClass) {
+        TableMetadata<?> tableMetadata = TableMetadata.forClass(entityClass);
+        StringBuilder sql = new StringBuilder("<script>" +
+                "LOCK TABLES " + tableMetadata.getTableName() + " WRITE;\n" +
+                "<foreach collection=\"" + Constants.COLLECTION + "\" item=\"" + Constants.ENTITY + "\">");
+
+        String insertSql = buildInsertXmlCondition(entityClass, Constants.ENTITY);
+        sql.append(insertSql).append(" ");
+
+        String onDuplicateSql = buildDuplicateKeyXmlCondition(entityClass, Constants.ENTITY);
+        sql.append(onDuplicateSql);
+        sql.append(";\n</foreach>" +
+                "</script>");
+        return sql.toString();
     }
 
     private static <T> void setTableId(T entity, TableMetadata<T> tableMetadata) {
-        List<Field> idFields = tableMetadata.getIdFields();
-        for (Field field : tableMetadata.getFields()) {
-            if (idFields.contains(field)) {
+        for (ColumnDescriptor descriptor : tableMetadata.getColumns()) {
+            if (descriptor.isId()) {
                 // 这个字段是id字段
-                TableId tableId = AnnotationUtil.getAnnotation(field, TableId.class);
-                IdType idType = tableId.type();
-                Object idValue = ReflectUtil.getFieldValue(entity, field);
+                IdType idType = descriptor.getIdType();
+                Object idValue = descriptor.getValue(entity);
                 switch (idType) {
                     case AUTO: {
                         // 自增id，@Options回填
                         if (idValue != null) {
-                            ReflectUtil.setFieldValue(entity, field, null);
+                            descriptor.setValue(entity, null);
                         }
                         break;
                     }
@@ -190,8 +219,8 @@ public class MapperInsertProvider extends AbstractMapperProvider {
                     }
                 }
 
-                idValue = Convert.convert(field.getType(), idValue);
-                ReflectUtil.setFieldValue(entity, field, idValue);
+                idValue = Convert.convert(descriptor.getField().getType(), idValue);
+                descriptor.setValue(entity, idValue);
             }
         }
     }
@@ -204,12 +233,12 @@ public class MapperInsertProvider extends AbstractMapperProvider {
         StringBuilder insertColumnSql = new StringBuilder("<trim suffixOverrides=\",\">");
         StringBuilder insertValueSql = new StringBuilder("<trim suffixOverrides=\",\">");
 
-        for (Field field : tableMetadata.getFields()) {
+        for (ColumnDescriptor descriptor : tableMetadata.getColumns()) {
 
-            String property = getProperty(field, paramName);
-            String column = tableMetadata.getWrappedColumn(field);
+            String property = getProperty(descriptor.getField(), paramName);
+            String column = descriptor.getWrappedColumn();
 
-            FieldStrategy insertStrategy = getFieldStrategy(tableMetadata, field);
+            FieldStrategy insertStrategy = descriptor.getInsertStrategy();
 
             // 根据插入策略生成xml条件sql
             switch (insertStrategy) {
@@ -242,38 +271,6 @@ public class MapperInsertProvider extends AbstractMapperProvider {
         return StrUtil.format("INSERT INTO {}({}) VALUES ({})", tableName, insertColumnSql, insertValueSql);
     }
 
-    /**
-     * 获取字段的插入策略
-     * @param tableMetadata
-     * @param field
-     * @return
-     * @param <T>
-     */
-    private static <T> FieldStrategy getFieldStrategy(TableMetadata<T> tableMetadata, Field field) {
-        FieldStrategy insertStrategy = FieldStrategy.DEFAULT;
-
-        if (AnnotationUtil.hasAnnotation(field, TableField.class)) {
-            insertStrategy = AnnotationUtil.getAnnotation(field, TableField.class).insertStrategy();
-        }
-
-        if (insertStrategy == FieldStrategy.DEFAULT) {
-            // 判断是否是字符串，如果是字符串，把DEFAULT修改为NOT_EMPTY
-            if (CharSequence.class.isAssignableFrom(field.getType())) {
-                insertStrategy = FieldStrategy.NOT_EMPTY;
-            }
-        }
-
-        if (tableMetadata.getIdFields().contains(field)) {
-            // 这个字段是id字段
-            TableId tableId = AnnotationUtil.getAnnotation(field, TableId.class);
-            IdType idType = tableId.type();
-            if (Objects.requireNonNull(idType) == IdType.AUTO) {// 自增id，不插入
-                insertStrategy = FieldStrategy.NEVER;
-            }
-        }
-        return insertStrategy;
-    }
-
     /**
      * 根据db类型，生成不同的onDuplicate
      * @param entityClass 实体类
@@ -281,7 +278,7 @@ public class MapperInsertProvider extends AbstractMapperProvider {
      * @return sql
      * @param <T>
      */
-    private <T> String buildDuplicateKeyXmlCondition(Class<T> entityClass, String paramName) {
+    private static <T> String buildDuplicateKeyXmlCondition(Class<T> entityClass, String paramName) {
         switch (Objects.requireNonNull(TableMetadata.DB_TYPE)) {
             case postgresql: {
                 return buildPostgreSqlOnConflictXmlCondition(entityClass, paramName);
@@ -300,14 +297,14 @@ public class MapperInsertProvider extends AbstractMapperProvider {
         StringBuilder sql = new StringBuilder("ON DUPLICATE KEY UPDATE");
         sql.append("<trim suffixOverrides=\",\">");
 
-        for (Field field : tableMetadata.getFields()) {
-            if (tableMetadata.isIdField(field)) {
+        for (ColumnDescriptor descriptor : tableMetadata.getColumns()) {
+            if (descriptor.isId()) {
                 // 跳过id字段更新
                 continue;
             }
-            String property = (StrUtil.isBlank(paramName) ? "" : StrUtil.addSuffixIfNot(paramName, ".")) + field.getName();
-            String column = tableMetadata.getWrappedColumn(field);
-            FieldStrategy insertStrategy = getFieldStrategy(tableMetadata, field);
+            String property = (StrUtil.isBlank(paramName) ? "" : StrUtil.addSuffixIfNot(paramName, ".")) + descriptor.getProperty();
+            String column = descriptor.getWrappedColumn();
+            FieldStrategy insertStrategy = descriptor.getInsertStrategy();
 
             switch (insertStrategy) {
                 case DEFAULT:
@@ -347,9 +344,10 @@ public class MapperInsertProvider extends AbstractMapperProvider {
         conflicts.add("<trim suffixOverrides=\",\">");
 
         for (Field field : idFields) {
-            String property = (StrUtil.isBlank(paramName) ? "" : StrUtil.addSuffixIfNot(paramName, ".")) + field.getName();
-            String column = tableMetadata.getWrappedColumn(field);
-            FieldStrategy insertStrategy = getFieldStrategy(tableMetadata, field);
+            ColumnDescriptor descriptor = tableMetadata.getDescriptor(field);
+            String property = (StrUtil.isBlank(paramName) ? "" : StrUtil.addSuffixIfNot(paramName, ".")) + descriptor.getProperty();
+            String column = descriptor.getWrappedColumn();
+            FieldStrategy insertStrategy = descriptor.getInsertStrategy();
 
             switch (insertStrategy) {
                 case DEFAULT:
@@ -376,9 +374,10 @@ public class MapperInsertProvider extends AbstractMapperProvider {
         List<String> sets = new ArrayList<>();
         sets.add("<trim suffixOverrides=\",\">");
         for (Field field : tableMetadata.getFields()) {
-            String property = (StrUtil.isBlank(paramName) ? "" : StrUtil.addSuffixIfNot(paramName, ".")) + field.getName();
-            String column = tableMetadata.getWrappedColumn(field);
-            FieldStrategy insertStrategy = getFieldStrategy(tableMetadata, field);
+            ColumnDescriptor descriptor = tableMetadata.getDescriptor(field);
+            String property = (StrUtil.isBlank(paramName) ? "" : StrUtil.addSuffixIfNot(paramName, ".")) + descriptor.getProperty();
+            String column = descriptor.getWrappedColumn();
+            FieldStrategy insertStrategy = descriptor.getInsertStrategy();
 
             switch (insertStrategy) {
                 case DEFAULT:
@@ -2,7 +2,6 @@ package top.chukongxiang.mybatis.basemapper.providers;
 
 import cn.hutool.core.lang.TypeReference;
 import cn.hutool.core.map.MapUtil;
-import cn.hutool.core.util.StrUtil;
 import org.apache.ibatis.builder.annotation.ProviderContext;
 import org.apache.ibatis.jdbc.SQL;
 import top.chukongxiang.mybatis.basemapper.BaseMapper;
@@ -30,17 +29,23 @@ public class MapperSelectProvider extends AbstractMapperProvider {
      * @return
      */
     public String selectAll(ProviderContext providerContext) {
-        return getCachedSql(providerContext, () -> {
-            Class<?> entityClass = entityClass(providerContext);
-            TableMetadata<?> tableMetadata = TableMetadata.forClass(entityClass);
+        return getCachedSql(providerContext, () -> buildSelectAllSql(entityClass(providerContext)));
+    }
 
-            String tableName = tableMetadata.getTableName();
+    /**
+     * 生成 selectAll 的SQL
+     * @param entityClass 实体类
+     * @return SQL
+     */
+    public static String buildSelectAllSql(Class<?> entityClass) {
+        TableMetadata<?> tableMetadata = TableMetadata.forClass(entityClass);
 
-            return new SQL()
-                    .SELECT(tableMetadata.getSelectColumn())
-                    .FROM(tableName)
-                    .toString();
-        });
+        String tableName = tableMetadata.getTableName();
+
+        return new SQL()
+                .SELECT(tableMetadata.getSelectColumn())
+                .FROM(tableName)
+                .toString();
     }
 
     /**
@@ -50,25 +55,29 @@ public class MapperSelectProvider extends AbstractMapperProvider {
      * @return
      */
     public String selectById(ProviderContext providerContext) {
+        return getCachedSql(providerContext, () -> buildSelectByIdSql(entityClass(providerContext)));
+    }
 
-        return getCachedSql(providerContext, () -> {
-            Class<?> entityClass = entityClass(providerContext);
-            TableMetadata<?> tableMetadata = TableMetadata.forClass(entityClass);
-
-            String tableName = tableMetadata.getTableName();
+    /**
+     * 生成 selectById 的SQL
+     * @param entityClass 实体类
+     * @return SQL
+     */
+    public static String buildSelectByIdSql(Class<?> entityClass) {
+        TableMetadata<?> tableMetadata = TableMetadata.forClass(entityClass);
 
-            SQL sql = new SQL()
-                    .SELECT(tableMetadata.getSelectColumn())
-                    .FROM(tableName);
+        String tableName = tableMetadata.getTableName();
 
-            for (Field idField : tableMetadata.getIdFields()) {
-                String idColumn = tableMetadata.getWrappedColumn(idField);
-                sql.WHERE(idColumn + " = #{param1}");
-            }
+        SQL sql = new SQL()
+                .SELECT(tableMetadata.getSelectColumn())
+                .FROM(tableName);
 
-            return sql.toString();
-        });
+        for (Field idField : tableMetadata.getIdFields()) {
+            String idColumn = tableMetadata.getWrappedColumn(idField);
+            sql.WHERE(idColumn + " = #{param1}");
+        }
 
+        return sql.toString();
     }
 
     /**
@@ -78,26 +87,32 @@ public class MapperSelectProvider extends AbstractMapperProvider {
      * @see BaseMapper#selectByIds(Collection)
      * @return
      */
-    public String selectByIds(ProviderContext providerContext) {
-        return getCachedSql(providerContext, () -> {
-            Class<?> entityClass = entityClass(providerContext);
+    public String selectByIds(ProviderContext providerContext, Map<String, Object> params) {
+        padCollection(providerContext, params);
+        return getCachedSql(providerContext, () -> buildSelectByIdsSql(entityClass(providerContext)));
+    }
 
-            TableMetadata<?> tableMetadata = TableMetadata.forClass(entityClass);
+    /**
+     * 生成 selectByIds 的SQL
+     * @param entityClass 实体类
+     * @return SQL
+     */
+    public static String buildSelectByIdsSql(Class<?> entityClass) {
+        TableMetadata<?> tableMetadata = TableMetadata.forClass(entityClass);
 
-            String tableName = tableMetadata.getTableName();
+        String tableName = tableMetadata.getTableName();
 
-            SQL sql = new SQL()
-                    .SELECT(tableMetadata.getSelectColumn())
-                    .FROM(tableName)
-                    ;
+        SQL sql = new SQL()
+                .SELECT(tableMetadata.getSelectColumn())
+                .FROM(tableName)
+                ;
 
-            for (Field idField : tableMetadata.getIdFields()) {
-                String idColumn = tableMetadata.getWrappedColumn(idField);
-                sql.WHERE(idColumn + " IN <foreach collection=\"" + Constants.COLLECTION + "\" item=\"id\" open=\"(\" separator=\",\" close=\")\">#{id}</foreach>");
-            }
+        for (Field idField : tableMetadata.getIdFields()) {
+            String idColumn = tableMetadata.getWrappedColumn(idField);
+            sql.WHERE(idColumn + " IN <foreach collection=\"" + Constants.COLLECTION + "\" item=\"id\" open=\"(\" separator=\",\" close=\")\">#{id}</foreach>");
+        }
 
-            return "<script>" + sql + "</script>";
-        });
+        return "<script>" + sql + "</script>";
     }
 
     /**
@@ -116,7 +131,7 @@ public class MapperSelectProvider extends AbstractMapperProvider {
             TableMetadata<?> tableMetadata = TableMetadata.forClass(entityClass);
             String tableName = tableMetadata.getTableName();
             wrapper.setTableName(tableName);
-            sql = wrapper.build().getSql();
+            sql = getCachedWrapperSql(providerContext, wrapper, () -> wrapper.build().getSql());
         } else {
             sql = Wrappers.emptyWrapper(entityClass).build().getSql();
         }
@@ -124,12 +139,14 @@ public class MapperSelectProvider extends AbstractMapperProvider {
     }
 
     /**
+     * 统计总数
      * @param providerContext
      * @param params
      * @return
      * @param <T>
      * @param <E>
      * @param <Column>
+     * @see WrapperQuery#buildCount()
      * @see BaseMapper#count()
      * @see BaseMapper#count(WrapperQuery)
      */
@@ -139,8 +156,8 @@ public class MapperSelectProvider extends AbstractMapperProvider {
         WrapperQuery<T, E, Column> wrapper = MapUtil.get(params, Constants.WRAPPER, new TypeReference<WrapperQuery<T, E, Column>>() {});
         if (wrapper != null) {
             wrapper.setTableName(tableName);
-            String sql = SqlUtil.normalSql(wrapper.build().getSql());
-            return StrUtil.format("SELECT COUNT(*) FROM ({}) cnt", sql);
+            // 能直接统计时不渲染查询列和排序，DISTINCT、GROUP BY 等才使用子查询
+            return getCachedWrapperSql(providerContext, wrapper, () -> wrapper.buildCount().getSql());
         }
         return SqlUtil.normalSql(new SQL().SELECT("COUNT(*)").FROM(tableName));
     }
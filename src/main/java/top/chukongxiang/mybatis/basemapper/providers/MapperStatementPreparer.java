@@ -0,0 +1,193 @@
+package top.chukongxiang.mybatis.basemapper.providers;
+
+import cn.hutool.core.annotation.AnnotationUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.annotations.DeleteProvider;
+import org.apache.ibatis.annotations.InsertProvider;
+import org.apache.ibatis.annotations.SelectProvider;
+import org.apache.ibatis.annotations.UpdateProvider;
+import top.chukongxiang.mybatis.basemapper.BaseMapper;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * <p>Mapper注册时预编译</p>
+ * <p>在 addMapper 时并行生成实体的 {@link TableMetadata} 和 BaseMapper 中所有静态SQL，放入 {@link AbstractMapperProvider#SQL_CACHE}，
+ * 避免部署后每个Mapper方法第一次调用时才做反射、注解扫描和SQL生成</p>
+ * <p>Wrapper相关的SQL依赖调用参数，不在这里生成</p>
+ * <p>预编译可能早于 {@link TableMetadata#setApplicationContext} 确定数据库类型，期间切换时旧数据库类型的结果不会写入缓存，
+ * 切换后按新的数据库类型重新预编译</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-11-22 14:36:09
+ */
+@Slf4j
+public final class MapperStatementPreparer {
+
+    private static final List<Class<? extends Annotation>> PROVIDER_ANNOTATIONS = Arrays.asList(
+            SelectProvider.class, InsertProvider.class, UpdateProvider.class, DeleteProvider.class);
+
+    /**
+     * Provider方法名 : 静态SQL生成方法
+     */
+    private static final Map<String, Function<Class<?>, String>> STATIC_SQL_BUILDERS = new HashMap<>();
+
+    static {
+        STATIC_SQL_BUILDERS.put("selectAll", MapperSelectProvider::buildSelectAllSql);
+        STATIC_SQL_BUILDERS.put("selectById", MapperSelectProvider::buildSelectByIdSql);
+        STATIC_SQL_BUILDERS.put("selectByIds", MapperSelectProvider::buildSelectByIdsSql);
+        STATIC_SQL_BUILDERS.put("updateById", MapperUpdateProvider::buildUpdateByIdSql);
+        STATIC_SQL_BUILDERS.put("deleteById", MapperDeleteProvider::buildDeleteByIdSql);
+        STATIC_SQL_BUILDERS.put("deleteByIds", MapperDeleteProvider::buildDeleteByIdsSql);
+        STATIC_SQL_BUILDERS.put("deleteByIdsArr", MapperDeleteProvider::buildDeleteByIdsSql);
+        STATIC_SQL_BUILDERS.put("insert", MapperInsertProvider::buildInsertSql);
+        STATIC_SQL_BUILDERS.put("insertOrUpdate", MapperInsertProvider::buildInsertOrUpdateSql);
+        STATIC_SQL_BUILDERS.put("batchInsert", MapperInsertProvider::buildBatchInsertSql);
+        STATIC_SQL_BUILDERS.put("batchInsertOrUpdate", MapperInsertProvider::buildBatchInsertOrUpdateSql);
+        STATIC_SQL_BUILDERS.put("lockBatchInsertOrUpdate", MapperInsertProvider::buildLockBatchInsertOrUpdateSql);
+    }
+
+    /**
+     * 实体类 : 预编译耗时(ms)
+     */
+    private static final Map<Class<?>, Long> PREPARE_REPORT = new ConcurrentHashMap<>();
+
+    /**
+     * 未完成的预编译任务
+     */
+    private static final List<CompletableFuture<Void>> PREPARE_FUTURES = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * 已提交预编译的Mapper，切换数据库类型后重新预编译
+     */
+    private static final Set<Class<? extends BaseMapper<?>>> PREPARED_MAPPERS = ConcurrentHashMap.newKeySet();
+
+    private static volatile boolean enabled = true;
+
+    private MapperStatementPreparer() {}
+
+    /**
+     * 是否在注册Mapper时预编译，默认开启
+     * @param enabled 是否开启
+     */
+    public static void setEnabled(boolean enabled) {
+        MapperStatementPreparer.enabled = enabled;
+    }
+
+    /**
+     * 异步预编译一个Mapper，多个Mapper之间并行
+     * @param mapperClass mapper类
+     */
+    public static void prepare(Class<? extends BaseMapper<?>> mapperClass) {
+        if (!enabled) {
+            return;
+        }
+        PREPARED_MAPPERS.add(mapperClass);
+        CompletableFuture<Void> future = CompletableFuture.runAsync(() -> prepareNow(mapperClass), ForkJoinPool.commonPool());
+        PREPARE_FUTURES.add(future);
+        // 完成后移除，列表中只保留未完成的任务
+        future.whenComplete((result, e) -> PREPARE_FUTURES.remove(future));
+    }
+
+    /**
+     * 数据库类型切换后，按新的数据库类型重新预编译已经提交过的Mapper
+     * @see TableMetadata#setApplicationContext
+     */
+    public static void prepareAgain() {
+        PREPARED_MAPPERS.forEach(MapperStatementPreparer::prepare);
+    }
+
+    /**
+     * 同步预编译一个Mapper
+     * @param mapperClass mapper类
+     */
+    public static void prepareNow(Class<? extends BaseMapper<?>> mapperClass) {
+        long start = System.nanoTime();
+        long epoch = TableMetadata.getDialectEpoch();
+        Class<?> entityClass;
+        try {
+            entityClass = AbstractMapperProvider.entityClass(mapperClass);
+            TableMetadata.forClass(entityClass);
+        } catch (Exception e) {
+            log.warn("[Mybatis] 预编译 {} 失败，将在第一次调用时生成: {}", mapperClass.getName(), e.getMessage());
+            return;
+        }
+
+        int count = 0;
+        for (Method method : mapperClass.getMethods()) {
+            if (method.getDeclaringClass() != BaseMapper.class) {
+                continue;
+            }
+            Function<Class<?>, String> builder = STATIC_SQL_BUILDERS.get(providerMethod(method));
+            if (builder == null) {
+                continue;
+            }
+            try {
+                AbstractMapperProvider.getCachedSql(mapperClass, method, () -> builder.apply(entityClass));
+                count++;
+            } catch (Exception e) {
+                // 例如没有主键时无法生成 updateById，保持原来第一次调用时报错的行为
+                log.debug("[Mybatis] 跳过预编译 {}#{}: {}", mapperClass.getName(), method.getName(), e.getMessage());
+            }
+        }
+
+        if (epoch != TableMetadata.getDialectEpoch()) {
+            // 预编译期间切换了数据库类型，旧数据库类型的结果不会写入缓存，切换时已经重新提交预编译
+            log.debug("[Mybatis] 预编译 {} 期间数据库类型已切换，丢弃结果", mapperClass.getName());
+            return;
+        }
+
+        long cost = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        PREPARE_REPORT.put(entityClass, cost);
+        log.info("[Mybatis] 预编译 {} ({}) 完成，SQL {} 条，耗时 {} ms", mapperClass.getSimpleName(), entityClass.getName(), count, cost);
+    }
+
+    /**
+     * 等待所有已提交的预编译完成
+     */
+    public static void await() {
+        CompletableFuture<?>[] futures;
+        synchronized (PREPARE_FUTURES) {
+            futures = PREPARE_FUTURES.toArray(new CompletableFuture<?>[0]);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    /**
+     * 每个实体的预编译耗时
+     * @return 实体类 : 耗时(ms)
+     */
+    public static Map<Class<?>, Long> getPrepareReport() {
+        return Collections.unmodifiableMap(PREPARE_REPORT);
+    }
+
+    /**
+     * 等待预编译完成，并生成启动报告，按耗时倒序
+     * @return 报告文本
+     */
+    public static String report() {
+        await();
+        StringBuilder report = new StringBuilder("[Mybatis] 预编译报告，共 ").append(PREPARE_REPORT.size()).append(" 个实体");
+        PREPARE_REPORT.entrySet().stream()
+                .sorted(Map.Entry.<Class<?>, Long>comparingByValue().reversed())
+                .forEach(entry -> report.append("\n\t").append(entry.getKey().getName()).append(": ").append(entry.getValue()).append(" ms"));
+        return report.toString();
+    }
+
+    private static String providerMethod(Method method) {
+        for (Class<? extends Annotation> annotationType : PROVIDER_ANNOTATIONS) {
+            if (method.isAnnotationPresent(annotationType)) {
+                return AnnotationUtil.getAnnotationValue(method, annotationType, "method");
+            }
+        }
+        return null;
+    }
+
+}
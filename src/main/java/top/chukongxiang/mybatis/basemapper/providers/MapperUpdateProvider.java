@@ -1,12 +1,10 @@
 package top.chukongxiang.mybatis.basemapper.providers;
 
-import cn.hutool.core.annotation.AnnotationUtil;
 import cn.hutool.core.lang.Assert;
 import org.apache.ibatis.builder.annotation.ProviderContext;
 import org.apache.ibatis.jdbc.SQL;
 import top.chukongxiang.mybatis.basemapper.BaseMapper;
 import top.chukongxiang.mybatis.basemapper.model.Constants;
-import top.chukongxiang.mybatis.basemapper.model.annnotations.TableField;
 import top.chukongxiang.mybatis.basemapper.model.enums.FieldStrategy;
 import top.chukongxiang.mybatis.basemapper.sql.core.WrapperUpdate;
 
@@ -28,23 +26,28 @@ public class MapperUpdateProvider extends AbstractMapperProvider {
      * @see BaseMapper#updateById(Object)
      */
     public String updateById(ProviderContext providerContext) {
+        return getCachedSql(providerContext, () -> buildUpdateByIdSql(entityClass(providerContext)));
+    }
 
-        return getCachedSql(providerContext, () -> {
-            Class<?> entityClass = entityClass(providerContext);
-            TableMetadata<?> tableMetadata = TableMetadata.forClass(entityClass);
+    /**
+     * 生成 updateById 的SQL
+     * @param entityClass 实体类
+     * @return SQL
+     */
+    public static String buildUpdateByIdSql(Class<?> entityClass) {
+        TableMetadata<?> tableMetadata = TableMetadata.forClass(entityClass);
 
-            List<Field> idFields = tableMetadata.getIdFields();
-            Assert.notEmpty(idFields, "无法生成 UPDATE SQL，" + entityClass.getName() + " 没有主键");
+        List<Field> idFields = tableMetadata.getIdFields();
+        Assert.notEmpty(idFields, "无法生成 UPDATE SQL，" + entityClass.getName() + " 没有主键");
 
-            SQL sql = new SQL().UPDATE(tableMetadata.getTableName())
-                    .SET(buildUpdateSetXmlCondition(entityClass, "item"));
+        SQL sql = new SQL().UPDATE(tableMetadata.getTableName())
+                .SET(buildUpdateSetXmlCondition(entityClass, null));
 
-            for (Field idField : idFields) {
-                String idColumn = tableMetadata.getWrappedColumn(idField);
-                sql.WHERE(idColumn + " = #{" + idField.getName() + "}");
-            }
-            return "<script>" + sql + "</script>";
-        });
+        for (Field idField : idFields) {
+            String idColumn = tableMetadata.getWrappedColumn(idField);
+            sql.WHERE(idColumn + " = #{" + idField.getName() + "}");
+        }
+        return "<script>" + sql + "</script>";
     }
 
     /**
@@ -66,7 +69,7 @@ public class MapperUpdateProvider extends AbstractMapperProvider {
         TableMetadata<?> tableMetadata = TableMetadata.forClass(entityClass);
         String tableName = tableMetadata.getTableName();
         wrapper.setTableName(tableName);
-        return wrapper.build().getSql();
+        return getCachedWrapperSql(providerContext, wrapper, () -> wrapper.build().getSql());
     }
 
 
@@ -81,12 +84,12 @@ public class MapperUpdateProvider extends AbstractMapperProvider {
 
         StringBuilder setSql = new StringBuilder("<trim suffixOverrides=\",\">");
 
-        for (Field field : tableMetadata.getFields()) {
+        for (ColumnDescriptor descriptor : tableMetadata.getColumns()) {
 
-            String property = getProperty(field, paramName);
-            String column = tableMetadata.getWrappedColumn(field);
+            String property = getProperty(descriptor.getField(), paramName);
+            String column = descriptor.getWrappedColumn();
 
-            FieldStrategy updateStrategy = getUpdateStrategy(field);
+            FieldStrategy updateStrategy = descriptor.getUpdateStrategy();
 
             switch (updateStrategy) {
                 case DEFAULT:
@@ -112,25 +115,4 @@ public class MapperUpdateProvider extends AbstractMapperProvider {
         setSql.append("</trim>");
         return setSql.toString();
     }
-
-    /**
-     * 获取字段更新策略
-     * @param field 字段
-     * @return 更新策略
-     */
-    private static FieldStrategy getUpdateStrategy(Field field) {
-        FieldStrategy updateStrategy = FieldStrategy.DEFAULT;
-        // 获取更新策略
-        if (AnnotationUtil.hasAnnotation(field, TableField.class)) {
-            updateStrategy = AnnotationUtil.getAnnotation(field, TableField.class).updateStrategy();
-        }
-
-        if (updateStrategy == FieldStrategy.DEFAULT) {
-            // 判断是否是字符串，如果是字符串，把DEFAULT修改为NOT_EMPTY
-            if (CharSequence.class.isAssignableFrom(field.getType())) {
-                updateStrategy = FieldStrategy.NOT_EMPTY;
-            }
-        }
-        return updateStrategy;
-    }
 }
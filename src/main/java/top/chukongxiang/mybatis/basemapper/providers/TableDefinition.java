@@ -0,0 +1,122 @@
+package top.chukongxiang.mybatis.basemapper.providers;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import top.chukongxiang.mybatis.basemapper.model.enums.FieldStrategy;
+import top.chukongxiang.mybatis.basemapper.model.enums.IdType;
+import top.chukongxiang.mybatis.basemapper.model.enums.SqlCondition;
+import top.chukongxiang.mybatis.basemapper.model.enums.WrapType;
+import top.chukongxiang.mybatis.basemapper.processor.TableDefinitionProcessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>编译期生成的实体表定义</p>
+ * <p>由 {@link TableDefinitionProcessor} 为每个 @TableName 实体生成子类 <code>实体类名 + {@link #SUFFIX}</code>，
+ * 内容是注解解析后的结果。{@link TableMetadata} 构造时如果找到生成类，就不再扫描字段和注解</p>
+ * <p>包装符依赖运行时的数据库类型，这里只记录包装方式，由 {@link TableMetadata} 包装</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-11-26 15:21:44
+ */
+@Getter
+@Slf4j
+public abstract class TableDefinition {
+
+    public static final String SUFFIX = "_TableDefinition";
+
+    private final String tableName;
+
+    private final WrapType wrapType;
+
+    private final String wrap;
+
+    private final List<ColumnDefinition> columns = new ArrayList<>();
+
+    protected TableDefinition(String tableName, WrapType wrapType, String wrap) {
+        this.tableName = tableName;
+        this.wrapType = wrapType;
+        this.wrap = wrap;
+    }
+
+    /**
+     * 添加一个字段，顺序需要和 ReflectUtil.getFields 一致
+     */
+    protected final void column(int depth, String fieldName, String column, WrapType wrapType, String wrap,
+                                boolean id, IdType idType,
+                                FieldStrategy insertStrategy, FieldStrategy updateStrategy, FieldStrategy whereStrategy,
+                                SqlCondition condition, boolean select) {
+        this.columns.add(new ColumnDefinition(depth, fieldName, column, wrapType, wrap, id, idType,
+                insertStrategy, updateStrategy, whereStrategy, condition, select));
+    }
+
+    public List<ColumnDefinition> getColumns() {
+        return Collections.unmodifiableList(this.columns);
+    }
+
+    /**
+     * 查找实体的生成类
+     * @param entityClass 实体类
+     * @return 表定义，没有生成类时返回null
+     */
+    static TableDefinition find(Class<?> entityClass) {
+        Class<?> definitionClass;
+        try {
+            definitionClass = Class.forName(entityClass.getName() + SUFFIX, true, entityClass.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+        if (!TableDefinition.class.isAssignableFrom(definitionClass)) {
+            return null;
+        }
+        try {
+            return (TableDefinition) definitionClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            log.warn("[Mybatis] 无法实例化 {}，使用反射解析实体: {}", definitionClass.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 字段定义，注解上的原始值，策略由 {@link ColumnDescriptor} 解析
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class ColumnDefinition {
+
+        /**
+         * 声明字段的类相对实体类的层级，0 为实体类本身
+         */
+        private final int depth;
+
+        private final String fieldName;
+
+        /**
+         * 未包装的sql字段
+         */
+        private final String column;
+
+        private final WrapType wrapType;
+
+        private final String wrap;
+
+        private final boolean id;
+
+        private final IdType idType;
+
+        private final FieldStrategy insertStrategy;
+
+        private final FieldStrategy updateStrategy;
+
+        private final FieldStrategy whereStrategy;
+
+        private final SqlCondition condition;
+
+        private final boolean select;
+
+    }
+
+}
@@ -6,7 +6,7 @@ import cn.hutool.core.lang.Pair;
 import cn.hutool.core.map.MapUtil;
 import cn.hutool.core.util.ReflectUtil;
 import cn.hutool.core.util.StrUtil;
-import lombok.Data;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeansException;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
@@ -17,45 +17,98 @@ import top.chukongxiang.mybatis.basemapper.model.annnotations.TableId;
 import top.chukongxiang.mybatis.basemapper.model.annnotations.TableName;
 import top.chukongxiang.mybatis.basemapper.model.enums.DbType;
 import top.chukongxiang.mybatis.basemapper.model.enums.WrapType;
+import top.chukongxiang.mybatis.basemapper.sql.core.ColumnResolver;
 
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
+ * 实体表元数据，构造完成后不可变，可以在线程间共享
  * @author chukongxiang
  */
-@Data
+@Getter
 @Slf4j
 public final class TableMetadata<T> implements ApplicationContextAware {
 
-    private static final Map<Class<?>, TableMetadata<?>> ENTITY_METADATA_CACHE = new LinkedHashMap<>();
+    /**
+     * 实体类(带@TableName的类) : 元数据
+     */
+    private static final Map<Class<?>, TableMetadata<?>> ENTITY_METADATA_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 任意查询类(实体类或其子类) : 元数据，命中后不再向上查找@TableName
+     */
+    private static final Map<Class<?>, TableMetadata<?>> CLASS_METADATA_CACHE = new ConcurrentHashMap<>();
 
     private final Class<T> entityClass;
 
     // 这里应该只读
-    static DbType DB_TYPE = dbType("com.mysql.cj.jdbc.Driver");
+    static volatile DbType DB_TYPE = dbType("com.mysql.cj.jdbc.Driver");
 
-    private String tableName;
+    /**
+     * 数据库类型的版本，每次切换数据库类型时递增
+     * <p>元数据和SQL在读取 DB_TYPE 前记录版本，放入缓存时版本已经变化说明是按旧数据库类型生成的，直接丢弃</p>
+     */
+    private static volatile long dialectEpoch;
+
+    /**
+     * 切换数据库类型和写入元数据/SQL缓存互斥，保证切换后清空的缓存不会再被旧数据库类型的结果写回
+     */
+    private static final Object DIALECT_LOCK = new Object();
+
+    private final String tableName;
 
     /**
      * id列
      */
-    private List<Field> idFields = new ArrayList<>();
+    private final List<Field> idFields;
 
     /**
      * 所有可用的字段
      */
-    private List<Field> fields = new ArrayList<>();
+    private final List<Field> fields;
 
     /**
      * 实体字段：包装后的sql字段
      */
-    private Map<Field, String> fieldWrappedCoulmnMap = new LinkedHashMap<>();
+    private final Map<Field, String> fieldWrappedCoulmnMap;
 
     /**
      * 实体字段：未包装的sql字段
      */
-    private Map<Field, String> fieldColumnMap = new LinkedHashMap<>();
+    private final Map<Field, String> fieldColumnMap;
+
+    /**
+     * 属性名：字段，属性名重复时取第一个(子类优先)
+     */
+    private final Map<String, Field> propertyFieldMap;
+
+    /**
+     * 属性名：包装后的sql字段
+     */
+    private final Map<String, String> propertyColumnMap;
+
+    /**
+     * sql字段(包装前和包装后)：字段
+     */
+    private final Map<String, Field> columnFieldMap;
+
+    /**
+     * 字段描述，顺序与 {@link #fields} 一致
+     */
+    private final List<ColumnDescriptor> columns;
+
+    /**
+     * 实体字段：字段描述
+     */
+    private final Map<Field, ColumnDescriptor> fieldDescriptorMap;
+
+    /**
+     * select时需要查询的列
+     */
+    private final String selectColumn;
 
     private TableMetadata(Class<T> entityClass) {
 
@@ -65,36 +118,77 @@ public final class TableMetadata<T> implements ApplicationContextAware {
         String wrap = "";
         String tableName = entityClass.getSimpleName();
 
-        // 取类注解
-        TableName tableNameAnnotation = entityClass.getAnnotation(TableName.class);
-        if (tableNameAnnotation != null) {
-            wrapType = tableNameAnnotation.wrapType();
-            wrap = tableNameAnnotation.wrap();
-            tableName = tableNameAnnotation.value();
-            // TODO 如果注解在父类上则切换entityClass
+        // 编译期生成的表定义，存在时不再扫描字段和注解
+        TableDefinition definition = TableDefinition.find(entityClass);
+
+        if (definition != null) {
+            wrapType = definition.getWrapType();
+            wrap = definition.getWrap();
+            tableName = definition.getTableName();
+        } else {
+            // 取类注解
+            TableName tableNameAnnotation = entityClass.getAnnotation(TableName.class);
+            if (tableNameAnnotation != null) {
+                wrapType = tableNameAnnotation.wrapType();
+                wrap = tableNameAnnotation.wrap();
+                tableName = tableNameAnnotation.value();
+                // TODO 如果注解在父类上则切换entityClass
+            }
         }
 
         this.tableName = wrap(wrapType, wrap, tableName);
 
-        Field[] fields = ReflectUtil.getFields(entityClass);
-        for (Field field : fields) {
+        List<Field> idFields = new ArrayList<>();
+        List<Field> fields = new ArrayList<>();
+        Map<Field, String> fieldWrappedCoulmnMap = new LinkedHashMap<>();
+        Map<Field, String> fieldColumnMap = new LinkedHashMap<>();
+        List<ColumnDescriptor> columns = definition != null ? buildColumns(entityClass, definition) : buildColumns(entityClass);
 
-            // 列名
-            Pair<String, String> column = getColumnName(field);
-            if (column == null) {
-                continue;
-            }
+        for (ColumnDescriptor descriptor : columns) {
+            Field field = descriptor.getField();
 
             // 放入缓存
-            fieldWrappedCoulmnMap.put(field, column.getValue());
-            fieldColumnMap.put(field, column.getKey());
+            fieldWrappedCoulmnMap.put(field, descriptor.getWrappedColumn());
+            fieldColumnMap.put(field, descriptor.getColumn());
 
-            if (AnnotationUtil.hasAnnotation(field, TableId.class)) {
+            if (descriptor.isId()) {
                 idFields.add(field);
             }
-            this.fields.add(field);
+            fields.add(field);
         }
 
+        this.idFields = Collections.unmodifiableList(idFields);
+        this.fields = Collections.unmodifiableList(fields);
+        this.fieldWrappedCoulmnMap = Collections.unmodifiableMap(fieldWrappedCoulmnMap);
+        this.fieldColumnMap = Collections.unmodifiableMap(fieldColumnMap);
+
+        // 预先建立索引，查找列时不再遍历所有字段
+        Map<String, Field> propertyFieldMap = new HashMap<>();
+        Map<String, String> propertyColumnMap = new HashMap<>();
+        Map<String, Field> columnFieldMap = new HashMap<>();
+        for (Field field : fields) {
+            if (propertyFieldMap.putIfAbsent(field.getName(), field) == null) {
+                propertyColumnMap.put(field.getName(), fieldWrappedCoulmnMap.get(field));
+            }
+            columnFieldMap.putIfAbsent(fieldColumnMap.get(field), field);
+            columnFieldMap.putIfAbsent(fieldWrappedCoulmnMap.get(field), field);
+        }
+        this.propertyFieldMap = Collections.unmodifiableMap(propertyFieldMap);
+        this.propertyColumnMap = Collections.unmodifiableMap(propertyColumnMap);
+        this.columnFieldMap = Collections.unmodifiableMap(columnFieldMap);
+
+        this.columns = Collections.unmodifiableList(Arrays.asList(columns.toArray(new ColumnDescriptor[0])));
+        Map<Field, ColumnDescriptor> fieldDescriptorMap = new HashMap<>();
+        List<String> selectColumns = new ArrayList<>();
+        for (ColumnDescriptor descriptor : this.columns) {
+            fieldDescriptorMap.put(descriptor.getField(), descriptor);
+            if (descriptor.isSelect()) {
+                selectColumns.add(descriptor.getWrappedColumn());
+            }
+        }
+        this.fieldDescriptorMap = Collections.unmodifiableMap(fieldDescriptorMap);
+        this.selectColumn = this.columns.isEmpty() ? "*" : String.join(", ", selectColumns);
+
         // TODO 这里应该根据配置来
 //        if (CollUtil.isEmpty(idFields)) {
 //            // 实体没有注解了@TableId的字段，检查是否有id字段名
@@ -108,6 +202,58 @@ public final class TableMetadata<T> implements ApplicationContextAware {
         }
     }
 
+    /**
+     * 扫描字段和注解生成字段描述
+     * @param entityClass 实体类
+     * @return 字段描述
+     */
+    private List<ColumnDescriptor> buildColumns(Class<T> entityClass) {
+        List<ColumnDescriptor> columns = new ArrayList<>();
+        for (Field field : ReflectUtil.getFields(entityClass)) {
+            // 列名
+            Pair<String, String> column = getColumnName(field);
+            if (column == null) {
+                continue;
+            }
+            columns.add(ColumnDescriptor.of(field, column.getKey(), column.getValue()));
+        }
+        return columns;
+    }
+
+    /**
+     * 根据编译期生成的表定义生成字段描述
+     * @param entityClass 实体类
+     * @param definition 表定义
+     * @return 字段描述
+     */
+    private List<ColumnDescriptor> buildColumns(Class<T> entityClass, TableDefinition definition) {
+        List<ColumnDescriptor> columns = new ArrayList<>();
+        for (TableDefinition.ColumnDefinition column : definition.getColumns()) {
+            Class<?> declaringClass = entityClass;
+            for (int i = 0; i < column.getDepth() && declaringClass != null; i++) {
+                declaringClass = declaringClass.getSuperclass();
+            }
+            Field field = null;
+            try {
+                if (declaringClass != null) {
+                    field = declaringClass.getDeclaredField(column.getFieldName());
+                }
+            } catch (NoSuchFieldException e) {
+                // 下面统一处理
+            }
+            if (field == null) {
+                // 生成类和实体不一致(例如实体修改后没有重新编译)，退回反射
+                log.warn("[Mybatis] {} 与实体 {} 不一致，使用反射解析实体", entityClass.getName() + TableDefinition.SUFFIX, entityClass.getName());
+                return buildColumns(entityClass);
+            }
+            columns.add(new ColumnDescriptor(field, column.getColumn(), wrap(column.getWrapType(), column.getWrap(), column.getColumn()),
+                    column.isId(), column.getIdType(),
+                    column.getInsertStrategy(), column.getUpdateStrategy(), column.getWhereStrategy(),
+                    column.getCondition(), column.isSelect()));
+        }
+        return columns;
+    }
+
     /**
      * 获取字段的列名
      * @param field 字段
@@ -172,6 +318,14 @@ public final class TableMetadata<T> implements ApplicationContextAware {
         }
     }
 
+    /**
+     * 当前数据库类型
+     * @return 数据库类型，无法识别驱动时为null
+     */
+    public static DbType getDbType() {
+        return DB_TYPE;
+    }
+
     public static String autoWrap(String column) {
         if (DB_TYPE == null) {
             return column;
@@ -200,37 +354,41 @@ public final class TableMetadata<T> implements ApplicationContextAware {
      * @return
      */
     public String getSelectColumn() {
-        if (MapUtil.isEmpty(this.fieldWrappedCoulmnMap)) {
-            return "*";
-        }
-        List<String> columns = new ArrayList<>();
-        for (Field field : this.fieldWrappedCoulmnMap.keySet()) {
-            boolean select = true;
-            if (AnnotationUtil.hasAnnotation(field, TableField.class)) {
-                select = AnnotationUtil.getAnnotation(field, TableField.class).select();
-            }
-            if (select) {
-                columns.add(this.fieldWrappedCoulmnMap.get(field));
-            }
-        }
-        return String.join(", ", columns);
+        return this.selectColumn;
+    }
+
+    /**
+     * 所有字段描述，顺序与 {@link #getFields()} 一致
+     * @return 字段描述
+     */
+    public List<ColumnDescriptor> getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * 获取字段描述
+     * @param field 字段
+     * @return 字段描述，不是本表字段时返回null
+     */
+    public ColumnDescriptor getDescriptor(Field field) {
+        return this.fieldDescriptorMap.get(field);
     }
 
     public Field lookup(String fieldName) {
-        for (Field field :  this.fieldColumnMap.keySet()) {
-            if (Objects.equals(field.getName(), fieldName)) {
-                return field;
-            }
-        }
-        return null;
+        return this.propertyFieldMap.get(fieldName);
     }
 
     public String lookupColumn(String fieldName) {
-        Field field = lookup(fieldName);
-        if (field == null) {
-            return null;
-        }
-        return getWrappedColumn(field);
+        return this.propertyColumnMap.get(fieldName);
+    }
+
+    /**
+     * 根据sql字段查找实体字段
+     * @param column 包装前或包装后的sql字段
+     * @return 字段，不存在时返回null
+     */
+    public Field lookupByColumn(String column) {
+        return this.columnFieldMap.get(column);
     }
 
     public String getWrappedColumn(Field field) {
@@ -242,13 +400,50 @@ public final class TableMetadata<T> implements ApplicationContextAware {
     }
 
     public boolean isIdField(Field field) {
-        return getIdFields().contains(field);
+        ColumnDescriptor descriptor = this.fieldDescriptorMap.get(field);
+        return descriptor != null && descriptor.isId();
     }
 
     public static <E> TableMetadata<E> forClass(Class<? extends E> entityClass) {
-        Class<E> readlEntityClass = findEntityClass(entityClass);
-        readlEntityClass = readlEntityClass == null ? (Class<E>) entityClass : readlEntityClass;
-        return (TableMetadata<E>) ENTITY_METADATA_CACHE.computeIfAbsent(readlEntityClass, TableMetadata::new);
+        TableMetadata<?> tableMetadata = CLASS_METADATA_CACHE.get(entityClass);
+        while (tableMetadata == null) {
+            long epoch = dialectEpoch;
+            Class<?> annotatedClass = findEntityClass(entityClass);
+            Class<?> realEntityClass = annotatedClass == null ? entityClass : annotatedClass;
+            TableMetadata<?> entityMetadata = ENTITY_METADATA_CACHE.get(realEntityClass);
+            TableMetadata<?> built = entityMetadata == null ? new TableMetadata<>(realEntityClass) : entityMetadata;
+            // 构造期间切换了数据库类型时重新生成
+            tableMetadata = publish(epoch, () -> {
+                TableMetadata<?> published = ENTITY_METADATA_CACHE.putIfAbsent(realEntityClass, built);
+                published = published == null ? built : published;
+                TableMetadata<?> classPublished = CLASS_METADATA_CACHE.putIfAbsent(entityClass, published);
+                return classPublished == null ? published : classPublished;
+            });
+        }
+        return (TableMetadata<E>) tableMetadata;
+    }
+
+    /**
+     * 数据库类型的版本，在读取 {@link #getDbType()} 之前记录，用于 {@link #publish(long, Supplier)}
+     * @return 版本
+     */
+    public static long getDialectEpoch() {
+        return dialectEpoch;
+    }
+
+    /**
+     * 把按数据库类型生成的结果写入缓存，生成期间切换了数据库类型时不写入
+     * @param epoch 生成前记录的 {@link #getDialectEpoch()}
+     * @param writer 写入缓存，返回缓存中的值
+     * @return writer 的返回值，数据库类型已经切换时返回null
+     */
+    public static <R> R publish(long epoch, Supplier<R> writer) {
+        synchronized (DIALECT_LOCK) {
+            if (epoch != dialectEpoch) {
+                return null;
+            }
+            return writer.get();
+        }
     }
 
     private static <E> Class<E> findEntityClass(Class<? extends E> entityClass) {
@@ -288,6 +483,9 @@ public final class TableMetadata<T> implements ApplicationContextAware {
             case "org.mariadb.jdbc.Driver": {
                 return DbType.mariadb;
             }
+            case "org.h2.Driver": {
+                return DbType.h2;
+            }
             case "com.mysql.jdbc.Driver":
             case "com.mysql.cj.jdbc.Driver" : {
                 return DbType.mysql;
@@ -302,6 +500,20 @@ public final class TableMetadata<T> implements ApplicationContextAware {
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         DataSourceProperties dataSourceProperties = applicationContext.getBean(DataSourceProperties.class);
         String driverClassName = dataSourceProperties.getDriverClassName();
-        DB_TYPE = dbType(driverClassName);
+        DbType dbType = dbType(driverClassName);
+        synchronized (DIALECT_LOCK) {
+            if (dbType == DB_TYPE) {
+                return;
+            }
+            DB_TYPE = dbType;
+            dialectEpoch++;
+            // 包装符和方言相关SQL可能已经按默认数据库类型预编译，需要重新生成；正在生成的结果版本不一致，不会再写入
+            CLASS_METADATA_CACHE.clear();
+            ENTITY_METADATA_CACHE.clear();
+            AbstractMapperProvider.SQL_CACHE.clear();
+            AbstractMapperProvider.WRAPPER_SQL_CACHE.clear();
+            ColumnResolver.clear();
+        }
+        MapperStatementPreparer.prepareAgain();
     }
 }
\ No newline at end of file
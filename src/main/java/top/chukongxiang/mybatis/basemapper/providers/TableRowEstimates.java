@@ -0,0 +1,118 @@
+package top.chukongxiang.mybatis.basemapper.providers;
+
+import lombok.extern.slf4j.Slf4j;
+import top.chukongxiang.mybatis.basemapper.model.enums.DbType;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>读取数据库统计信息中的表行数估计值，用于不带条件的 count，不需要扫描全表</p>
+ * <ul>
+ *     <li>mysql/mariadb：information_schema.TABLES.TABLE_ROWS，InnoDB 为采样估计，误差可能较大</li>
+ *     <li>h2：INFORMATION_SCHEMA.TABLES.ROW_COUNT_ESTIMATE(1.4.x)</li>
+ *     <li>postgresql：pg_class.reltuples，VACUUM/ANALYZE 后更新</li>
+ * </ul>
+ * <p>其他数据库、没有统计信息或读取失败时返回null，由调用方执行精确统计；读取失败的表之后不再尝试</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-09 10:12:45
+ */
+@Slf4j
+public final class TableRowEstimates {
+
+    private static final String MYSQL_SQL = "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = COALESCE(?, DATABASE()) AND TABLE_NAME = ?";
+
+    private static final String H2_SQL = "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = COALESCE(?, SCHEMA()) AND TABLE_NAME = ?";
+
+    /**
+     * to_regclass 按 SQL 标识符解析(未包装的转小写)，表不存在时返回null，不会让事务进入失败状态
+     */
+    private static final String POSTGRESQL_SQL = "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)";
+
+    /**
+     * 读取失败的实体类
+     */
+    private static final Map<Class<?>, Boolean> UNSUPPORTED_CACHE = new ConcurrentHashMap<>();
+
+    private TableRowEstimates() {}
+
+    /**
+     * 读取实体对应表的行数估计值
+     * @param connection 当前连接，不会关闭
+     * @param entityClass 实体类
+     * @return 行数估计值，不支持或没有统计信息时为null
+     */
+    public static Long estimate(Connection connection, Class<?> entityClass) {
+        DbType dbType = TableMetadata.getDbType();
+        if (dbType == null || UNSUPPORTED_CACHE.containsKey(entityClass)) {
+            return null;
+        }
+        String tableName = TableMetadata.forClass(entityClass).getTableName();
+        try {
+            switch (dbType) {
+                case mysql:
+                case mariadb: {
+                    return query(connection, MYSQL_SQL, tableName, true);
+                }
+                case h2: {
+                    return query(connection, H2_SQL, tableName, true);
+                }
+                case postgresql: {
+                    Long estimate = query(connection, POSTGRESQL_SQL, tableName, false);
+                    // 从未 ANALYZE 的表 reltuples 为 -1(PostgreSQL 14+) 或 0
+                    return estimate == null || estimate < 0 ? null : estimate;
+                }
+                default: {
+                    return null;
+                }
+            }
+        } catch (SQLException e) {
+            UNSUPPORTED_CACHE.put(entityClass, Boolean.TRUE);
+            log.warn("[Mybatis] 读取表 {} 的行数估计值失败，之后使用精确统计: {}", tableName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param splitSchema 是否拆分 schema 和表名分别绑定，否则直接绑定原始表名
+     */
+    private static Long query(Connection connection, String sql, String tableName, boolean splitSchema) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            if (splitSchema) {
+                String schema = null;
+                String name = DatabaseColumns.unwrap(tableName);
+                int dot = name.lastIndexOf('.');
+                if (dot > 0) {
+                    schema = DatabaseColumns.unwrap(name.substring(0, dot));
+                    name = DatabaseColumns.unwrap(name.substring(dot + 1));
+                }
+                DatabaseMetaData metaData = connection.getMetaData();
+                if (metaData.storesUpperCaseIdentifiers()) {
+                    name = name.toUpperCase();
+                    schema = schema == null ? null : schema.toUpperCase();
+                } else if (metaData.storesLowerCaseIdentifiers()) {
+                    name = name.toLowerCase();
+                    schema = schema == null ? null : schema.toLowerCase();
+                }
+                ps.setString(1, schema);
+                ps.setString(2, name);
+            } else {
+                ps.setString(1, tableName);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                long estimate = rs.getLong(1);
+                return rs.wasNull() ? null : estimate;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package top.chukongxiang.mybatis.basemapper.providers;
+
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+import top.chukongxiang.mybatis.basemapper.sql.core.ArrayParameter;
+import top.chukongxiang.mybatis.basemapper.utils.LruCache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>BaseMapper Wrapper 方法专用的 LanguageDriver，按SQL缓存解析后的 SqlSource</p>
+ * <p>Wrapper 的SQL由 {@link AbstractMapperProvider#WRAPPER_SQL_CACHE} 按条件结构缓存，结构相同时返回同一个字符串，
+ * 这里缓存对应的 SqlSource，不再每次解析 #{ew.values[n]} 占位符；与 {@link BaseMapperLanguageDriver} 不同，
+ * 动态SQL的数量不固定，所以只保留最近使用的</p>
+ * <p>SqlSource 使用 {@link WrapperSqlSource} 按下标绑定参数，同时注册 {@link ArrayParameter} 的 TypeHandler</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-11-29 15:08:27
+ */
+public class WrapperLanguageDriver extends XMLLanguageDriver {
+
+    /**
+     * SQL : SqlSource
+     * <p>Wrapper 方法的参数都是 @Param 包装后的 ParamMap，参数类型相同，命中时再校验一次</p>
+     */
+    private final LruCache<String, CachedSqlSource> sqlSourceCache = new LruCache<>(512);
+
+    /**
+     * 参数类型 : TypeHandler
+     */
+    private final Map<Class<?>, TypeHandler<?>> typeHandlerCache = new ConcurrentHashMap<>();
+
+    @Override
+    public SqlSource createSqlSource(Configuration configuration, String script, Class<?> parameterType) {
+        TypeHandlerRegistry registry = configuration.getTypeHandlerRegistry();
+        if (!registry.hasTypeHandler(ArrayParameter.class)) {
+            registry.register(ArrayParameter.class, new ArrayParameterTypeHandler());
+        }
+        Class<?> type = parameterType == null ? Object.class : parameterType;
+        CachedSqlSource cached = sqlSourceCache.get(script, () -> new CachedSqlSource(type, parse(configuration, script, type)));
+        if (cached.parameterType != type) {
+            return super.createSqlSource(configuration, script, type);
+        }
+        return cached.sqlSource;
+    }
+
+    private SqlSource parse(Configuration configuration, String script, Class<?> parameterType) {
+        SqlSource sqlSource = WrapperSqlSource.parse(configuration, script, typeHandlerCache);
+        return sqlSource == null ? super.createSqlSource(configuration, script, parameterType) : sqlSource;
+    }
+
+    /**
+     * 缓存统计
+     * @return SqlSource 缓存
+     */
+    public LruCache<String, ?> getSqlSourceCache() {
+        return sqlSourceCache;
+    }
+
+    private static final class CachedSqlSource {
+
+        private final Class<?> parameterType;
+
+        private final SqlSource sqlSource;
+
+        private CachedSqlSource(Class<?> parameterType, SqlSource sqlSource) {
+            this.parameterType = parameterType;
+            this.sqlSource = sqlSource;
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+package top.chukongxiang.mybatis.basemapper.providers;
+
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+import top.chukongxiang.mybatis.basemapper.model.Constants;
+import top.chukongxiang.mybatis.basemapper.sql.core.BaseWrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Wrapper SQL 的 SqlSource，按下标直接绑定 Wrapper 的参数</p>
+ * <p>默认的 RawSqlSource 把每个 #{ew.values[n]} 当作属性路径，执行时逐个通过 MetaObject 从 ParamMap 导航到
+ * values 列表取值，参数类型是 Object 只能使用 UnknownTypeHandler 在设置参数时再推断；这里解析时就记录每个 ? 对应的下标，
+ * 执行时直接从 {@link BaseWrapper#getValues()} 取值，作为 BoundSql 的附加参数绑定，TypeHandler 按参数的实际类型预先解析并缓存</p>
+ * <p>SQL 中包含其他 #{} 或 ${} 时不使用，交给 XMLLanguageDriver</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-11-30 10:16:42
+ */
+final class WrapperSqlSource implements SqlSource {
+
+    private static final Pattern PLACEHOLDER_PAT = Pattern.compile("#\\{" + Constants.WRAPPER + "\\.values\\[(\\d+)]}");
+
+    /**
+     * 附加参数名前缀，与用户参数名区分
+     */
+    private static final String PARAM_PREFIX = "__" + Constants.WRAPPER + "_";
+
+    private final Configuration configuration;
+
+    private final String sql;
+
+    /**
+     * 第 i 个 ? 对应的 values 下标
+     */
+    private final int[] valueIndexes;
+
+    /**
+     * 第 i 个 ? 的附加参数名
+     */
+    private final String[] names;
+
+    /**
+     * 参数类型 : TypeHandler，由 LanguageDriver 持有，一个 Configuration 共用
+     */
+    private final Map<Class<?>, TypeHandler<?>> typeHandlerCache;
+
+    private WrapperSqlSource(Configuration configuration, String sql, int[] valueIndexes,
+                             Map<Class<?>, TypeHandler<?>> typeHandlerCache) {
+        this.configuration = configuration;
+        this.sql = sql;
+        this.valueIndexes = valueIndexes;
+        this.typeHandlerCache = typeHandlerCache;
+        this.names = new String[valueIndexes.length];
+        for (int i = 0; i < valueIndexes.length; i++) {
+            this.names[i] = PARAM_PREFIX + i;
+        }
+    }
+
+    /**
+     * 解析 Wrapper SQL
+     * @param configuration mybatis配置
+     * @param script Provider 返回的SQL
+     * @param typeHandlerCache TypeHandler缓存
+     * @return SqlSource，包含其他占位符或动态标签时返回null
+     */
+    static WrapperSqlSource parse(Configuration configuration, String script, Map<Class<?>, TypeHandler<?>> typeHandlerCache) {
+        if (script.startsWith("<script>") || script.contains("${")) {
+            return null;
+        }
+        Matcher matcher = PLACEHOLDER_PAT.matcher(script);
+        StringBuilder sql = new StringBuilder(script.length());
+        List<Integer> indexes = new ArrayList<>();
+        int last = 0;
+        while (matcher.find()) {
+            sql.append(script, last, matcher.start()).append('?');
+            indexes.add(Integer.parseInt(matcher.group(1)));
+            last = matcher.end();
+        }
+        sql.append(script, last, script.length());
+        if (sql.indexOf("#{") >= 0) {
+            return null;
+        }
+        int[] valueIndexes = new int[indexes.size()];
+        for (int i = 0; i < valueIndexes.length; i++) {
+            valueIndexes[i] = indexes.get(i);
+        }
+        return new WrapperSqlSource(configuration, sql.toString(), valueIndexes, typeHandlerCache);
+    }
+
+    @Override
+    public BoundSql getBoundSql(Object parameterObject) {
+        List<Object> values = valueIndexes.length == 0 ? null : values(parameterObject);
+        List<ParameterMapping> parameterMappings = new ArrayList<>(valueIndexes.length);
+        for (int i = 0; i < valueIndexes.length; i++) {
+            Object value = values.get(valueIndexes[i]);
+            parameterMappings.add(new ParameterMapping.Builder(configuration, names[i], typeHandler(value)).build());
+        }
+        BoundSql boundSql = new BoundSql(configuration, sql, parameterMappings, parameterObject);
+        for (int i = 0; i < valueIndexes.length; i++) {
+            boundSql.setAdditionalParameter(names[i], values.get(valueIndexes[i]));
+        }
+        return boundSql;
+    }
+
+    private static List<Object> values(Object parameterObject) {
+        if (parameterObject instanceof Map && ((Map<?, ?>) parameterObject).containsKey(Constants.WRAPPER)) {
+            Object wrapper = ((Map<?, ?>) parameterObject).get(Constants.WRAPPER);
+            if (wrapper instanceof BaseWrapper) {
+                return ((BaseWrapper<?, ?>) wrapper).getValues();
+            }
+        }
+        throw new BindingException("[Mybatis] 没有找到参数 " + Constants.WRAPPER);
+    }
+
+    private TypeHandler<?> typeHandler(Object value) {
+        TypeHandlerRegistry registry = configuration.getTypeHandlerRegistry();
+        if (value == null) {
+            return registry.getUnknownTypeHandler();
+        }
+        Class<?> type = value.getClass();
+        TypeHandler<?> typeHandler = typeHandlerCache.get(type);
+        if (typeHandler == null) {
+            typeHandler = typeHandlerCache.computeIfAbsent(type,
+                    k -> registry.hasTypeHandler(k) ? registry.getTypeHandler(k) : registry.getUnknownTypeHandler());
+        }
+        return typeHandler;
+    }
+
+}
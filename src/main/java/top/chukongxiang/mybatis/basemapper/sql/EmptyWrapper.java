@@ -1,10 +1,17 @@
 package top.chukongxiang.mybatis.basemapper.sql;
 
+import lombok.Getter;
+import lombok.Setter;
 import org.apache.ibatis.jdbc.SQL;
 import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
+import top.chukongxiang.mybatis.basemapper.sql.core.Keyset;
+import top.chukongxiang.mybatis.basemapper.sql.core.Pagination;
 import top.chukongxiang.mybatis.basemapper.sql.core.SQLInfo;
+import top.chukongxiang.mybatis.basemapper.sql.core.SqlRenderContext;
 import top.chukongxiang.mybatis.basemapper.sql.core.Wrapper;
 import top.chukongxiang.mybatis.basemapper.sql.core.WrapperQuery;
+import top.chukongxiang.mybatis.basemapper.sql.core.WrapperShape;
+import top.chukongxiang.mybatis.basemapper.utils.SqlUtil;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -13,7 +20,7 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
- * 空查询wrapper，仅仅支持没有任何where条件
+ * 空查询wrapper，仅仅支持没有任何where条件，只能通过 limit 和游标分页限制结果
  * @author 楚孔响
  * @version 1.0.0
  * @date 2024-11-15 09:12:15
@@ -22,6 +29,21 @@ public class EmptyWrapper<T> implements WrapperQuery<T, EmptyWrapper<T>, String>
 
     private final Class<T> entityClass;
     private String tableName;
+    @Getter
+    @Setter
+    private Limit limit;
+    @Getter
+    @Setter
+    private Keyset keyset;
+    @Getter
+    @Setter
+    private List<String> projection;
+
+    /**
+     * 分页参数
+     */
+    @Getter
+    private List<Object> values = Collections.emptyList();
 
     public EmptyWrapper(Class<T> entityClass) {
         this.entityClass = entityClass;
@@ -32,17 +54,92 @@ public class EmptyWrapper<T> implements WrapperQuery<T, EmptyWrapper<T>, String>
 
     @Override
     public SQLInfo<T> build() {
+        SqlRenderContext ctx = new SqlRenderContext(64);
+        SQL builder = new SQL().SELECT(getSqlSelect()).FROM(getTableName());
+        if (this.keyset != null) {
+            String whereSql = Keyset.where(ctx, "", this.keyset);
+            if (!whereSql.isEmpty()) {
+                builder.WHERE(whereSql);
+            }
+            builder.ORDER_BY(this.keyset.orderBySql());
+        }
+        String sql = Pagination.apply(ctx, builder.toString(), this.keyset != null, this.limit);
+        this.values = ctx.getValues();
         return SQLInfo.<T>builder()
                 .entityClass(entityClass)
-                .sql(new SQL().SELECT(getSqlSelect()).FROM(getTableName()).toString())
+                .sql(sql)
+                .values(this.values)
                 .build();
     }
 
+    /**
+     * 没有分页时直接统计
+     */
+    @Override
+    public SQLInfo<T> buildCount() {
+        if (this.limit != null) {
+            return WrapperQuery.super.buildCount();
+        }
+        SqlRenderContext ctx = new SqlRenderContext(64);
+        SQL builder = new SQL().SELECT("COUNT(*)").FROM(getTableName());
+        String whereSql = Keyset.where(ctx, "", this.keyset);
+        if (!whereSql.isEmpty()) {
+            builder.WHERE(whereSql);
+        }
+        this.values = ctx.getValues();
+        return SQLInfo.<T>builder()
+                .entityClass(entityClass)
+                .sql(SqlUtil.normalSql(builder.toString()))
+                .values(this.values)
+                .build();
+    }
+
+    @Override
+    public boolean supportsLimit() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsKeyset() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsProjection() {
+        return true;
+    }
+
+    @Override
+    public String getSqlSelect() {
+        return this.projection != null ? String.join(", ", this.projection) : WrapperQuery.super.getSqlSelect();
+    }
+
+    @Override
+    public List<String> getSelectColumns() {
+        return this.projection;
+    }
+
     @Override
     public String getWhereSql() {
         return "";
     }
 
+    @Override
+    public boolean describe(WrapperShape.Builder shape) {
+        shape.part(String.valueOf(this.tableName)).part(getSqlSelect());
+        Keyset.describe(shape, this.keyset);
+        Pagination.describe(shape, this.limit);
+        return true;
+    }
+
+    @Override
+    public WrapperShape shape() {
+        WrapperShape.Builder shape = WrapperShape.builder(getClass());
+        describe(shape);
+        this.values = shape.getValues();
+        return shape.build();
+    }
+
     @Override
     public Class<T> getEntityClass() {
         return this.entityClass;
@@ -32,14 +32,21 @@ public class LambdaQueryWrapper<T>
     @Setter
     @Getter
     private String tableName;
-    @Getter
     private String sqlSelect = "*";
+    private List<String> selectColumns;
+    @Getter
+    private List<String> projection;
     @Getter
     private final List<OrderBy> orderBys = new ArrayList<>();
     private List<String> groupBys;
-    private String havingSql = "";
-    private List<Object> havingValues;
+    private AbstractWrapper<T, ?, Func1<T, ?>> havingWrapper;
     private String lastSql;
+    @Getter
+    @Setter
+    private Limit limit;
+    @Getter
+    @Setter
+    private Keyset keyset;
 
     public LambdaQueryWrapper() {
         super(null, null);
@@ -63,7 +70,8 @@ public class LambdaQueryWrapper<T>
     @Override
     public final LambdaQueryWrapper<T> select(boolean condition, boolean distinct, Func1<T, ?>... columns) {
         if (condition && ArrayUtil.isNotEmpty(columns)) {
-            this.sqlSelect = Arrays.stream(columns).map(this::getColumn).collect(Collectors.joining(", "));
+            this.selectColumns = Arrays.stream(columns).map(this::getColumn).collect(Collectors.toList());
+            this.sqlSelect = String.join(", ", this.selectColumns);
         }
         if (distinct) {
             this.sqlSelect = "DISTINCT " + this.sqlSelect;
@@ -71,6 +79,39 @@ public class LambdaQueryWrapper<T>
         return this;
     }
 
+    @Override
+    public String getSqlSelect() {
+        return this.projection != null ? String.join(", ", this.projection) : this.sqlSelect;
+    }
+
+    @Override
+    public List<String> getSelectColumns() {
+        return this.projection != null ? this.projection : this.selectColumns;
+    }
+
+    @Override
+    public boolean supportsLimit() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsKeyset() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsProjection() {
+        return CollUtil.isEmpty(groupBys) && this.havingWrapper == null && !StrUtil.startWithIgnoreCase(this.sqlSelect, "DISTINCT");
+    }
+
+    @Override
+    public void setProjection(List<String> columns) {
+        if (columns != null && !supportsProjection()) {
+            throw new UnsupportedOperationException("DISTINCT、GROUP BY 查询不能替换查询列");
+        }
+        this.projection = columns;
+    }
+
     @SafeVarargs
     @Override
     public final LambdaQueryWrapper<T> groupBy(boolean condition, Func1<T, ?>... columns) {
@@ -85,10 +126,8 @@ public class LambdaQueryWrapper<T>
         if (condition && consumer != null) {
             AbstractWrapper<T, E, Func1<T, ?>> havingWrapper = new AbstractWrapper<T, E, Func1<T, ?>>(this.entityClass) {};
             consumer.accept(havingWrapper);
-            String havingsql = havingWrapper.getWhereSql();
-            if (StrUtil.isNotBlank(havingsql)) {
-                this.havingSql = havingsql;
-                this.havingValues = havingWrapper.getValues();
+            if (StrUtil.isNotBlank(havingWrapper.getWhereSql())) {
+                this.havingWrapper = havingWrapper;
             }
         }
         return this;
@@ -134,7 +173,70 @@ public class LambdaQueryWrapper<T>
 
     @Override
     public SQLInfo<T> build() {
+        SqlRenderContext ctx = new SqlRenderContext(estimateWhereLength());
+        String sql = renderSql(ctx);
+        bind(ctx);
+        return SQLInfo.<T>builder().entityClass(entityClass).sql(sql).values(super.getValues()).build();
+    }
+
+    /**
+     * 没有 DISTINCT、GROUP BY、HAVING、last 和分页时直接统计，不渲染查询列和排序
+     */
+    @Override
+    public SQLInfo<T> buildCount() {
+        if (CollUtil.isNotEmpty(groupBys) || this.havingWrapper != null || StrUtil.isNotBlank(this.lastSql)
+                || this.limit != null || StrUtil.startWithIgnoreCase(this.sqlSelect, "DISTINCT")) {
+            return WrapperQuery.super.buildCount();
+        }
+        if (StrUtil.isBlank(this.tableName) && this.entityClass != null) {
+            this.tableName = TableMetadata.forClass(this.entityClass).getTableName();
+        }
+        Assert.notBlank(this.tableName);
+        SqlRenderContext ctx = new SqlRenderContext(estimateWhereLength());
+        SQL builder = new SQL().SELECT("COUNT(*)").FROM(this.tableName);
+        renderWhere(ctx);
+        String whereSql = Keyset.where(ctx, ctx.take(), this.keyset);
+        if (StrUtil.isNotBlank(whereSql)) {
+            builder.WHERE(whereSql);
+        }
+        bind(ctx);
+        return SQLInfo.<T>builder().entityClass(entityClass).sql(SqlUtil.normalSql(builder.toString())).values(super.getValues()).build();
+    }
 
+    /**
+     * 作为子查询渲染，子查询的参数直接追加到父查询的参数列表
+     * @param ctx 渲染上下文
+     */
+    @Override
+    public void render(SqlRenderContext ctx) {
+        ctx.append(renderSql(ctx.fork(estimateWhereLength() + 64)));
+    }
+
+    @Override
+    public boolean describe(WrapperShape.Builder shape) {
+        shape.part(String.valueOf(getTableName())).part(getSqlSelect());
+        if (!describeWhere(shape)) {
+            return false;
+        }
+        Keyset.describe(shape, this.keyset);
+        shape.part(groupBys == null ? 0 : groupBys.size());
+        if (groupBys != null) {
+            groupBys.forEach(shape::part);
+        }
+        shape.part(this.havingWrapper != null);
+        if (this.havingWrapper != null && !this.havingWrapper.describe(shape)) {
+            return false;
+        }
+        shape.part(orderBys.size());
+        for (OrderBy orderBy : orderBys) {
+            shape.part(orderBy.getColumn()).part(orderBy.isAsc());
+        }
+        shape.part(String.valueOf(this.lastSql));
+        Pagination.describe(shape, this.limit);
+        return true;
+    }
+
+    private String renderSql(SqlRenderContext ctx) {
         if (StrUtil.isBlank(this.tableName)) {
             if (this.entityClass != null) {
                 this.tableName = TableMetadata.forClass(this.entityClass).getTableName();
@@ -147,8 +249,9 @@ public class LambdaQueryWrapper<T>
                 .SELECT(this.getSqlSelect())
                 .FROM(this.tableName);
 
-        // where
-        String whereSql = super.getWhereSql();
+        // where，where/having 按顺序渲染到同一个上下文，参数下标连续
+        renderWhere(ctx);
+        String whereSql = Keyset.where(ctx, ctx.take(), this.keyset);
         if (StrUtil.isNotBlank(whereSql)) {
             builder.WHERE(whereSql);
         }
@@ -160,26 +263,18 @@ public class LambdaQueryWrapper<T>
         }
 
         // having
-        String havingSql = this.havingSql;
-        if (StrUtil.isNotBlank(havingSql)) {
-            // 重新处理havingSQL
-            int startIndex = 0;
-            for (int i = 0; i < havingValues.size(); i++) {
-                String src = getWrap(i);
-                String dest = getWrap(super.paramIndex++);
-                String tmpStr = havingSql.substring(startIndex);
-                int index = tmpStr.indexOf(src);
-                tmpStr = tmpStr.replace(src, dest);
-                havingSql = havingSql.substring(0, startIndex) + tmpStr;
-                startIndex = startIndex + index + (dest.length() - src.length());
-                super.getValues().add(havingValues.get(i));
+        if (this.havingWrapper != null) {
+            this.havingWrapper.renderWhere(ctx);
+            String havingSql = ctx.take();
+            if (StrUtil.isNotBlank(havingSql)) {
+                builder.HAVING(havingSql);
             }
-            builder.HAVING(havingSql);
         }
 
-
-        // order by
-        if (CollUtil.isNotEmpty(orderBys)) {
+        // order by，游标分页时使用游标的完整排序
+        if (this.keyset != null) {
+            builder.ORDER_BY(this.keyset.orderBySql());
+        } else if (CollUtil.isNotEmpty(orderBys)) {
             String orderBySql = orderBys.stream()
                     .map(orderBy -> orderBy.getColumn() + " " + (orderBy.isAsc() ? "ASC" : "DESC"))
                     .collect(Collectors.joining(", "));
@@ -192,7 +287,8 @@ public class LambdaQueryWrapper<T>
             lastSql = " " + StrUtil.trim(this.lastSql);
         }
 
-        return SQLInfo.<T>builder().entityClass(entityClass).sql(SqlUtil.normalSql(builder, lastSql)).values(super.getValues()).build();
+        // limit，参数在 where/having 之后
+        return Pagination.apply(ctx, SqlUtil.normalSql(builder, lastSql), this.keyset != null || CollUtil.isNotEmpty(orderBys), this.limit);
     }
 
 }
@@ -0,0 +1,323 @@
+package top.chukongxiang.mybatis.basemapper.sql;
+
+import lombok.Getter;
+import top.chukongxiang.mybatis.basemapper.sql.core.Pagination;
+import top.chukongxiang.mybatis.basemapper.sql.core.SQLInfo;
+import top.chukongxiang.mybatis.basemapper.sql.core.SqlRenderContext;
+import top.chukongxiang.mybatis.basemapper.sql.core.Wrapper;
+import top.chukongxiang.mybatis.basemapper.sql.core.WrapperQuery;
+import top.chukongxiang.mybatis.basemapper.sql.core.WrapperShape;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link WrapperTemplate} 绑定参数后的查询Wrapper，SQL来自模板，不能再修改条件
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-11-29 10:12:06
+ */
+public final class PreparedWrapper<T> implements WrapperQuery<T, PreparedWrapper<T>, String> {
+
+    @Getter
+    private final WrapperTemplate<T> template;
+
+    /**
+     * 模板参数
+     */
+    private final List<Object> boundValues;
+
+    /**
+     * 与SQL中 #{ew.values[n]} 对应的参数，分页时在模板参数之后追加分页参数
+     */
+    @Getter
+    private List<Object> values;
+
+    /**
+     * 分页条件
+     */
+    @Getter
+    private Limit limit;
+
+    PreparedWrapper(WrapperTemplate<T> template, List<Object> values) {
+        this.template = template;
+        this.boundValues = values;
+        this.values = values;
+    }
+
+    @Override
+    public SQLInfo<T> build() {
+        String sql = template.getSql();
+        if (this.limit != null) {
+            SqlRenderContext ctx = new SqlRenderContext(sql.length() + 64, new ArrayList<>(boundValues));
+            sql = Pagination.apply(ctx, sql, !template.orderBys.isEmpty(), this.limit);
+            this.values = ctx.getValues();
+        }
+        return SQLInfo.<T>builder().entityClass(template.getEntityClass()).sql(sql).values(values).build();
+    }
+
+    /**
+     * 没有分页时使用模板编译好的统计SQL
+     */
+    @Override
+    public SQLInfo<T> buildCount() {
+        if (this.limit != null) {
+            return WrapperQuery.super.buildCount();
+        }
+        this.values = boundValues;
+        return SQLInfo.<T>builder().entityClass(template.getEntityClass()).sql(template.getCountSql()).values(boundValues).build();
+    }
+
+    /**
+     * 分页不改变模板条件，可以修改；排序和查询列已经编译在模板中，不能修改
+     */
+    @Override
+    public boolean supportsLimit() {
+        return true;
+    }
+
+    /**
+     * 分页不改变模板条件，可以修改
+     * @param limit 分页条件，为null时取消分页
+     */
+    @Override
+    public void setLimit(Limit limit) {
+        this.limit = limit;
+        this.values = boundValues;
+    }
+
+    @Override
+    public String getWhereSql() {
+        return template.getWhereSql();
+    }
+
+    @Override
+    public Class<T> getEntityClass() {
+        return template.getEntityClass();
+    }
+
+    /**
+     * 模板SQL固定，结构就是模板本身
+     */
+    @Override
+    public boolean describe(WrapperShape.Builder shape) {
+        shape.part(template);
+        boundValues.forEach(shape::value);
+        Pagination.describe(shape, this.limit);
+        return true;
+    }
+
+    @Override
+    public WrapperShape shape() {
+        if (this.limit == null) {
+            return WrapperShape.of(template);
+        }
+        WrapperShape.Builder shape = WrapperShape.builder(getClass());
+        describe(shape);
+        this.values = shape.getValues();
+        return shape.build();
+    }
+
+    @Override
+    public List<String> getSelectColumns() {
+        return template.selectColumns;
+    }
+
+    @Override
+    public PreparedWrapper<T> eq(boolean condition, String s, Object value) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> ne(boolean condition, String s, Object value) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> gt(boolean condition, String s, Object value) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> lt(boolean condition, String s, Object value) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> ge(boolean condition, String s, Object value) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> le(boolean condition, String s, Object value) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> in(boolean condition, String s, Object... values) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> in(boolean condition, String s, Collection<?> values) {
+        throw unsupported();
+    }
+
+    @Override
+    public <M, F extends Wrapper<M, F, C>, C> PreparedWrapper<T> in(boolean condition, String s, Function<ChildrenQueryWrapper, WrapperQuery<M, F, C>> wrapper) {
+        throw unsupported();
+    }
+
+    @Override
+    public <M, F extends Wrapper<M, F, C>, C> PreparedWrapper<T> exists(boolean condition, String s, Function<ChildrenQueryWrapper, WrapperQuery<M, F, C>> wrapper) {
+        throw unsupported();
+    }
+
+    @Override
+    public <M, F extends Wrapper<M, F, C>, C> PreparedWrapper<T> notExists(boolean condition, String s, Function<ChildrenQueryWrapper, WrapperQuery<M, F, C>> wrapper) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> notIn(boolean condition, String s, Object... values) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> notIn(boolean condition, String s, Collection<?> values) {
+        throw unsupported();
+    }
+
+    @Override
+    public <M, F extends Wrapper<M, F, C>, C> PreparedWrapper<T> notIn(boolean condition, String s, Function<ChildrenQueryWrapper, WrapperQuery<M, F, C>> wrapper) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> like(boolean condition, String s, Object value) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> notLike(boolean condition, String s, Object value) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> likeLeft(boolean condition, String s, Object value) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> notLikeLeft(boolean condition, String s, Object value) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> likeRight(boolean condition, String s, Object value) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> notLikeRight(boolean condition, String s, Object value) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> isNull(boolean condition, String... strings) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> isNotNull(boolean condition, String... strings) {
+        throw unsupported();
+    }
+
+    @Override
+    public <V> PreparedWrapper<T> between(boolean condition, String s, V start, V end) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> and(boolean condition) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> and(boolean condition, Consumer<Wrapper<T, ? super PreparedWrapper<T>, String>> consumer) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> or(boolean condition) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> or(boolean condition, Consumer<Wrapper<T, ? super PreparedWrapper<T>, String>> consumer) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> select(boolean condition, boolean distinct, String... strings) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> groupBy(boolean condition, String... strings) {
+        throw unsupported();
+    }
+
+    @Override
+    public <F extends Wrapper<T, F, String>> PreparedWrapper<T> having(boolean condition, Consumer<Wrapper<T, F, String>> consumer) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> orderByAsc(boolean condition, String... strings) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> orderByDesc(boolean condition, String... strings) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> orderBy(boolean condition, boolean isAsc, String... strings) {
+        throw unsupported();
+    }
+
+    @Override
+    public PreparedWrapper<T> last(boolean condition, String sql) {
+        throw unsupported();
+    }
+
+    /**
+     * 模板SQL中的表名已经确定，只接受相同的表名
+     */
+    @Override
+    public void setTableName(String tableName) {
+        if (!Objects.equals(tableName, template.getTableName())) {
+            throw new UnsupportedOperationException("已编译的Wrapper不能修改表名: " + template.getTableName() + " -> " + tableName);
+        }
+    }
+
+    @Override
+    public String getTableName() {
+        return template.getTableName();
+    }
+
+    @Override
+    public List<OrderBy> getOrderBys() {
+        return template.orderBys;
+    }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("已编译的Wrapper不能修改条件");
+    }
+}
@@ -5,10 +5,13 @@ import cn.hutool.core.lang.Assert;
 import cn.hutool.core.util.StrUtil;
 import lombok.Setter;
 import org.apache.ibatis.jdbc.SQL;
+import top.chukongxiang.mybatis.basemapper.providers.DatabaseColumns;
 import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
 import top.chukongxiang.mybatis.basemapper.sql.core.AbstractWrapper;
 import top.chukongxiang.mybatis.basemapper.sql.core.SQLInfo;
+import top.chukongxiang.mybatis.basemapper.sql.core.SqlRenderContext;
 import top.chukongxiang.mybatis.basemapper.sql.core.WrapperString;
+import top.chukongxiang.mybatis.basemapper.sql.core.WrapperShape;
 import top.chukongxiang.mybatis.basemapper.sql.core.WrapperUpdate;
 import top.chukongxiang.mybatis.basemapper.utils.SqlUtil;
 
@@ -28,8 +31,8 @@ public class UpdateWrapper<T>
     @Setter
     private String tableName;
 
-    private final List<String> setSqls = new ArrayList<>();
-    private final List<Object> values = new ArrayList<>();
+    private final List<String> setColumns = new ArrayList<>();
+    private final List<Object> setValues = new ArrayList<>();
 
     public UpdateWrapper() {
         super(null, null);
@@ -51,8 +54,10 @@ public class UpdateWrapper<T>
     @Override
     public UpdateWrapper<T> set(boolean condition, String column, Object value) {
         if (condition) {
-            setSqls.add("SET " + getColumn(column) + " = " + getWrap(setSqls.size()));
-            values.add(value);
+            String wrappedColumn = getColumn(column);
+            setColumns.add(wrappedColumn);
+            // 与条件参数一样按列的实际类型转换
+            setValues.add(DatabaseColumns.coerce(entityClass, wrappedColumn, value));
         }
         return this;
     }
@@ -63,6 +68,15 @@ public class UpdateWrapper<T>
         return lambdaUpdateWrapper;
     }
 
+    @Override
+    public boolean describe(WrapperShape.Builder shape) {
+        shape.part(String.valueOf(this.tableName)).part(setColumns.size());
+        for (int i = 0; i < setColumns.size(); i++) {
+            shape.part(setColumns.get(i)).value(setValues.get(i));
+        }
+        return describeWhere(shape);
+    }
+
     @Override
     public SQLInfo<T> build() {
 
@@ -74,21 +88,25 @@ public class UpdateWrapper<T>
 
         Assert.notBlank(this.tableName);
 
-        // set
-        String setSql = StrUtil.join(", ", setSqls);
-        Assert.notBlank(setSql);
-
-        SQL builder = new SQL().UPDATE(this.tableName).SET(setSql);
+        // set，set/where 按顺序渲染到同一个上下文，参数下标连续
+        Assert.notEmpty(setColumns);
+        SqlRenderContext ctx = new SqlRenderContext(setColumns.size() * 32 + estimateWhereLength());
+        for (int i = 0; i < setColumns.size(); i++) {
+            if (i > 0) {
+                ctx.append(", ");
+            }
+            ctx.append(setColumns.get(i)).append(" = ").placeholder(setValues.get(i));
+        }
+        SQL builder = new SQL().UPDATE(this.tableName).SET(ctx.take());
 
-        // where 重置
-        String whereSql = getWhereSql();
-        List<Object> whereValues = new ArrayList<>(super.getValues());
+        // where
+        renderWhere(ctx);
+        String whereSql = ctx.take();
         if (StrUtil.isNotBlank(whereSql)) {
-            whereSql = " WHERE " + resetSql(whereSql, whereValues.size());
-            values.addAll(whereValues);
+            builder.WHERE(whereSql);
         }
+        bind(ctx);
 
-        String sql = builder.WHERE(whereSql).toString();
-        return SQLInfo.<T>builder().entityClass(entityClass).sql(SqlUtil.normalSql(sql)).values(values).build();
+        return SQLInfo.<T>builder().entityClass(entityClass).sql(SqlUtil.normalSql(builder)).values(getValues()).build();
     }
 }
@@ -0,0 +1,192 @@
+package top.chukongxiang.mybatis.basemapper.sql;
+
+import cn.hutool.core.lang.Assert;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import top.chukongxiang.mybatis.basemapper.providers.DatabaseColumns;
+import top.chukongxiang.mybatis.basemapper.sql.core.LikePattern;
+import top.chukongxiang.mybatis.basemapper.sql.core.SQLInfo;
+import top.chukongxiang.mybatis.basemapper.sql.core.WrapperQuery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>编译后的查询Wrapper模板，不可变，线程安全</p>
+ * <p>条件结构相同、只有参数不同的查询只需要构造一次Wrapper，值使用 {@link #param(int)} 占位，
+ * 编译后每次通过 {@link #bind(Object...)} 传入参数得到 {@link PreparedWrapper}，直接交给 BaseMapper 的
+ * selectList/selectOne/count/delete 执行，不再重新构造和渲染条件，SQL文本不变也便于驱动缓存 PreparedStatement</p>
+ * <pre>
+ * private static final WrapperTemplate&lt;User&gt; BY_NAME = WrapperTemplate.compile(
+ *         Wrappers.lambdaQuery(User.class).eq(User::getUserName, WrapperTemplate.param(0)).gt(User::getAge, WrapperTemplate.param(1)));
+ *
+ * userMapper.selectList(BY_NAME.bind("name", 18));
+ * </pre>
+ * <p>IN 的元素个数属于条件结构，需要每个元素单独占位</p>
+ * <p>bind 的参数按所在列的实际类型转换，与直接构造 Wrapper 时一致，见 {@link DatabaseColumns}</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-11-29 09:37:52
+ */
+public final class WrapperTemplate<T> {
+
+    @Getter
+    private final Class<T> entityClass;
+
+    @Getter
+    private final String tableName;
+
+    /**
+     * 完整查询SQL
+     */
+    @Getter
+    private final String sql;
+
+    /**
+     * where 条件，占位符与 {@link #sql} 中的前几个参数一致
+     */
+    @Getter
+    private final String whereSql;
+
+    /**
+     * 统计SQL，占位符与 {@link #sql} 中的前几个参数一致
+     */
+    @Getter
+    private final String countSql;
+
+    final List<String> selectColumns;
+
+    final List<WrapperQuery.OrderBy> orderBys;
+
+    /**
+     * 编译时的参数，{@link Param} 位置在 bind 时替换
+     */
+    private final Object[] values;
+
+    /**
+     * 每个参数对应的 {@link Param} 下标，常量为-1
+     * <p>LIKE 的参数在 values 中保留 {@link LikePattern}，bind 时转义并拼接通配符</p>
+     */
+    private final int[] slots;
+
+    /**
+     * 每个参数所在的列，常量和 LIKE 为null，bind 时按列类型转换参数
+     */
+    private final String[] columns;
+
+    /**
+     * bind 需要的参数个数
+     */
+    @Getter
+    private final int paramCount;
+
+    private WrapperTemplate(WrapperQuery<T, ?, ?> wrapper) {
+        SQLInfo<T> sqlInfo = wrapper.build();
+        this.entityClass = wrapper.getEntityClass();
+        this.tableName = wrapper.getTableName();
+        this.sql = sqlInfo.getSql();
+        this.whereSql = wrapper.getWhereSql();
+        this.selectColumns = wrapper.getSelectColumns() == null ? null : Collections.unmodifiableList(new ArrayList<>(wrapper.getSelectColumns()));
+        this.orderBys = Collections.unmodifiableList(new ArrayList<>(wrapper.getOrderBys()));
+
+        List<Object> values = sqlInfo.getValues() == null ? Collections.emptyList() : sqlInfo.getValues();
+        this.values = values.toArray();
+        this.slots = new int[this.values.length];
+        this.columns = new String[this.values.length];
+        int paramCount = 0;
+        for (int i = 0; i < this.values.length; i++) {
+            if (this.values[i] instanceof Param) {
+                int index = ((Param) this.values[i]).index;
+                this.slots[i] = index;
+                this.columns[i] = ((Param) this.values[i]).column;
+                this.values[i] = null;
+                paramCount = Math.max(paramCount, index + 1);
+            } else if (this.values[i] instanceof LikePattern) {
+                // LIKE 的匹配串在 bind 时按参数生成，values 中保留 LikePattern
+                int index = ((Param) ((LikePattern) this.values[i]).getValue()).index;
+                this.slots[i] = index;
+                paramCount = Math.max(paramCount, index + 1);
+            } else {
+                this.slots[i] = -1;
+            }
+        }
+        this.paramCount = paramCount;
+        this.countSql = wrapper.buildCount().getSql();
+    }
+
+    /**
+     * 编译查询Wrapper，编译后Wrapper可以丢弃
+     * @param wrapper 查询Wrapper，值使用 {@link #param(int)} 占位
+     * @return 模板
+     */
+    public static <T> WrapperTemplate<T> compile(WrapperQuery<T, ?, ?> wrapper) {
+        Assert.notNull(wrapper);
+        return new WrapperTemplate<>(wrapper);
+    }
+
+    /**
+     * 参数占位
+     * @param index bind 时参数的下标
+     * @return 占位参数
+     */
+    public static Param param(int index) {
+        Assert.isTrue(index >= 0, "参数下标不能小于0");
+        return new Param(index, null);
+    }
+
+    /**
+     * 绑定参数
+     * @param params 参数，按 {@link #param(int)} 的下标排列
+     * @return 可以直接执行的Wrapper
+     */
+    public PreparedWrapper<T> bind(Object... params) {
+        int length = params == null ? 0 : params.length;
+        Assert.isTrue(length == paramCount, "需要 {} 个参数，实际传入 {} 个", paramCount, length);
+        Object[] bound = this.values.clone();
+        for (int i = 0; i < bound.length; i++) {
+            if (slots[i] >= 0) {
+                if (bound[i] instanceof LikePattern) {
+                    bound[i] = ((LikePattern) bound[i]).apply(params[slots[i]]);
+                } else {
+                    bound[i] = columns[i] == null ? params[slots[i]] : DatabaseColumns.coerce(entityClass, columns[i], params[slots[i]]);
+                }
+            }
+        }
+        return new PreparedWrapper<>(this, new ArrayList<>(Arrays.asList(bound)));
+    }
+
+    /**
+     * 占位参数，相同下标的占位参数相等，条件化简(去重、合并IN)时按下标比较
+     */
+    @EqualsAndHashCode
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static final class Param {
+
+        private final int index;
+
+        /**
+         * 所在的列(包装后)，构造条件时设置
+         */
+        @EqualsAndHashCode.Exclude
+        private final String column;
+
+        /**
+         * 绑定到列，bind 时按列的实际类型转换参数
+         * @param column 包装后的列名
+         * @return 新的占位参数
+         */
+        public Param forColumn(String column) {
+            return new Param(index, column);
+        }
+
+        @Override
+        public String toString() {
+            return "?" + index;
+        }
+    }
+
+}
@@ -3,23 +3,20 @@ package top.chukongxiang.mybatis.basemapper.sql.core;
 import cn.hutool.core.collection.ListUtil;
 import cn.hutool.core.lang.Assert;
 import cn.hutool.core.lang.func.Func1;
-import cn.hutool.core.lang.func.LambdaUtil;
 import cn.hutool.core.util.ArrayUtil;
-import cn.hutool.core.util.ReUtil;
-import cn.hutool.core.util.ReflectUtil;
 import cn.hutool.core.util.StrUtil;
 import lombok.Getter;
-import lombok.SneakyThrows;
-import top.chukongxiang.mybatis.basemapper.model.Constants;
 import top.chukongxiang.mybatis.basemapper.model.enums.FieldStrategy;
 import top.chukongxiang.mybatis.basemapper.model.enums.SqlCondition;
 import top.chukongxiang.mybatis.basemapper.model.enums.WrapperSqlCondition;
-import top.chukongxiang.mybatis.basemapper.providers.AbstractMapperProvider;
+import top.chukongxiang.mybatis.basemapper.providers.ColumnDescriptor;
+import top.chukongxiang.mybatis.basemapper.providers.DatabaseColumns;
 import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
 import top.chukongxiang.mybatis.basemapper.sql.ChildrenQueryWrapper;
+import top.chukongxiang.mybatis.basemapper.sql.WrapperTemplate;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
@@ -36,14 +33,31 @@ public abstract class AbstractWrapper<T, E extends Wrapper<T, E, Column>, Column
 
     protected Class<T> entityClass;
 
-    private String sql = "";
+    /**
+     * 顶层条件序列
+     */
+    private final List<Predicate.Term> terms = new ArrayList<>();
 
-    private String condition = " AND ";
+    /**
+     * 当前写入的条件序列，and(consumer)/or(consumer) 中为括号内的序列
+     */
+    private List<Predicate.Term> current = terms;
 
-    @Getter
-    private final List<Object> values = new ArrayList<>();
+    /**
+     * 下一个条件是否OR连接
+     */
+    private boolean or = false;
+
+    /**
+     * 化简后的条件树，条件变化时清空
+     */
+    private Predicate.GroupPredicate where;
 
-    protected int paramIndex = 0;
+    /**
+     * 最近一次渲染的参数，与SQL中 #{ew.values[n]} 对应
+     */
+    @Getter
+    private List<Object> values = new ArrayList<>();
 
     public AbstractWrapper(T entity) {
         this(entity, (Class<T>) entity.getClass());
@@ -97,7 +111,7 @@ public abstract class AbstractWrapper<T, E extends Wrapper<T, E, Column>, Column
 
     @Override
     public E in(boolean condition, Column column, Collection<?> values) {
-        return build(condition, column, WrapperSqlCondition.IN, values).and();
+        return build(condition, column, WrapperSqlCondition.IN, values == null ? null : new ArrayList<>(values)).and();
     }
 
     @Override
@@ -107,51 +121,43 @@ public abstract class AbstractWrapper<T, E extends Wrapper<T, E, Column>, Column
 
     @Override
     public E notIn(boolean condition, Column column, Collection<?> values) {
-        return build(condition, column, WrapperSqlCondition.NOT_IN, values).and();
+        return build(condition, column, WrapperSqlCondition.NOT_IN, values == null ? null : new ArrayList<>(values)).and();
     }
 
     @Override
     public <M, F extends Wrapper<M, F, C>, C> E in(boolean condition, Column column, Function<ChildrenQueryWrapper, WrapperQuery<M, F, C>> wrapper) {
-        SQLInfo<M> sqlInfo = null;
+        WrapperQuery<M, F, C> wrapperQuery = null;
         if (condition) {
-            ChildrenQueryWrapper childrenQueryWrapper = new ChildrenQueryWrapper();
-            WrapperQuery<M, F, C> wrapperQuery = wrapper.apply(childrenQueryWrapper);
-            sqlInfo = wrapperQuery.build();
+            wrapperQuery = wrapper.apply(new ChildrenQueryWrapper());
         }
-        return build(condition, column, WrapperSqlCondition.IN_QUERY, sqlInfo).and();
+        return build(condition, column, WrapperSqlCondition.IN_QUERY, wrapperQuery).and();
     }
 
     @Override
     public <M, F extends Wrapper<M, F, C>, C> E exists(boolean condition, Column column, Function<ChildrenQueryWrapper, WrapperQuery<M, F, C>> wrapper) {
-        SQLInfo<M> sqlInfo = null;
+        WrapperQuery<M, F, C> wrapperQuery = null;
         if (condition) {
-            ChildrenQueryWrapper childrenQueryWrapper = new ChildrenQueryWrapper();
-            WrapperQuery<M, F, C> wrapperQuery = wrapper.apply(childrenQueryWrapper);
-            sqlInfo = wrapperQuery.build();
+            wrapperQuery = wrapper.apply(new ChildrenQueryWrapper());
         }
-        return build(condition, column, WrapperSqlCondition.EXISTS, sqlInfo);
+        return build(condition, column, WrapperSqlCondition.EXISTS, wrapperQuery).and();
     }
 
     @Override
     public <M, F extends Wrapper<M, F, C>, C> E notExists(boolean condition, Column column, Function<ChildrenQueryWrapper, WrapperQuery<M, F, C>> wrapper) {
-        SQLInfo<M> sqlInfo = null;
+        WrapperQuery<M, F, C> wrapperQuery = null;
         if (condition) {
-            ChildrenQueryWrapper childrenQueryWrapper = new ChildrenQueryWrapper();
-            WrapperQuery<M, F, C> wrapperQuery = wrapper.apply(childrenQueryWrapper);
-            sqlInfo = wrapperQuery.build();
+            wrapperQuery = wrapper.apply(new ChildrenQueryWrapper());
         }
-        return build(condition, column, WrapperSqlCondition.NOT_EXISTS, sqlInfo);
+        return build(condition, column, WrapperSqlCondition.NOT_EXISTS, wrapperQuery).and();
     }
 
     @Override
     public <M, F extends Wrapper<M, F, C>, C> E notIn(boolean condition, Column column, Function<ChildrenQueryWrapper, WrapperQuery<M, F, C>> wrapper) {
-        SQLInfo<M> sqlInfo = null;
+        WrapperQuery<M, F, C> wrapperQuery = null;
         if (condition) {
-            ChildrenQueryWrapper childrenQueryWrapper = new ChildrenQueryWrapper();
-            WrapperQuery<M, F, C> wrapperQuery = wrapper.apply(childrenQueryWrapper);
-            sqlInfo = wrapperQuery.build();
+            wrapperQuery = wrapper.apply(new ChildrenQueryWrapper());
         }
-        return build(true, column, WrapperSqlCondition.NOT_IN_QUERY, sqlInfo).and();
+        return build(condition, column, WrapperSqlCondition.NOT_IN_QUERY, wrapperQuery).and();
     }
 
     @Override
@@ -200,7 +206,7 @@ public abstract class AbstractWrapper<T, E extends Wrapper<T, E, Column>, Column
     public final E isNotNull(boolean condition, Column... columns) {
         if (condition && ArrayUtil.isNotEmpty(columns)) {
             for (Column column : columns) {
-                build(true, column, WrapperSqlCondition.IS_NOT_NULL, columns);
+                build(true, column, WrapperSqlCondition.IS_NOT_NULL, null);
             }
         }
         return and();
@@ -214,7 +220,7 @@ public abstract class AbstractWrapper<T, E extends Wrapper<T, E, Column>, Column
     @Override
     public E and(boolean condition) {
         if (condition) {
-            this.condition = " AND ";
+            this.or = false;
         }
         return (E) this;
     }
@@ -222,14 +228,7 @@ public abstract class AbstractWrapper<T, E extends Wrapper<T, E, Column>, Column
     @Override
     public E and(boolean condition, Consumer<Wrapper<T, ? super E, Column>> consumer) {
         if (condition && consumer != null) {
-            AbstractWrapper<T, E, Column> wrapper = new AbstractWrapper<T, E, Column>(this.entityClass) {};
-            wrapper.paramIndex = paramIndex;
-            consumer.accept(wrapper);
-            String childrenSql = wrapper.getWhereSql();
-            if (StrUtil.isNotBlank(childrenSql)) {
-                this.values.addAll(wrapper.values);
-                this.sql += " AND (" + childrenSql + ")";
-            }
+            group(false, consumer);
         }
         return and();
     }
@@ -241,7 +240,7 @@ public abstract class AbstractWrapper<T, E extends Wrapper<T, E, Column>, Column
     @Override
     public E or(boolean condition) {
         if (condition) {
-            this.condition = " OR ";
+            this.or = true;
         }
         return (E) this;
     }
@@ -249,79 +248,55 @@ public abstract class AbstractWrapper<T, E extends Wrapper<T, E, Column>, Column
     @Override
     public E or(boolean condition, Consumer<Wrapper<T, ? super E, Column>> consumer) {
         if (condition && consumer != null) {
-            AbstractWrapper<T, E, Column> wrapper = new AbstractWrapper<T, E, Column>(this.entityClass) {};
-            wrapper.paramIndex = paramIndex;
-            consumer.accept(wrapper);
-            String childrenSql = wrapper.getWhereSql();
-            if (StrUtil.isNotBlank(childrenSql)) {
-                this.values.addAll(wrapper.values);
-                this.sql += " OR (" + childrenSql + ")";
-            }
+            group(true, consumer);
         }
         return and();
     }
 
+    /**
+     * 括号内的条件直接写入当前Wrapper的子序列，结束后收起为一个条件组
+     * @param or 条件组与前面条件的连接方式
+     * @param consumer 括号内的条件
+     */
+    private void group(boolean or, Consumer<Wrapper<T, ? super E, Column>> consumer) {
+        List<Predicate.Term> parent = this.current;
+        List<Predicate.Term> children = new ArrayList<>();
+        this.current = children;
+        this.or = false;
+        try {
+            consumer.accept((E) this);
+        } finally {
+            this.current = parent;
+        }
+        Predicate.GroupPredicate group = Predicate.GroupPredicate.of(children);
+        if (group != null) {
+            add(or, group);
+        }
+    }
+
+    private void add(boolean or, Predicate predicate) {
+        this.current.add(new Predicate.Term(or, predicate));
+        this.where = null;
+    }
+
     private E build(boolean condition, Column column, WrapperSqlCondition sqlCondition, Object value) {
         if (condition) {
             String wrappedColumn = getColumn(column);
             Assert.notBlank(wrappedColumn);
             switch (sqlCondition) {
-                case IN:
-                case NOT_IN: {
-                    List<String> ins = new ArrayList<>();
-                    for (Object item : (Iterable<?>) value) {
-                        ins.add(getWrap(this.paramIndex++));
-                        values.add(item);
-                    }
-                    this.sql += (this.condition + wrappedColumn + " " + sqlCondition.getValue() + "(" + String.join(", ", ins) + ")");
-                    break;
-                }
                 case EXISTS:
                 case NOT_EXISTS:
                 case IN_QUERY:
                 case NOT_IN_QUERY: {
-                    SQLInfo<?> sqlInfo = (SQLInfo<?>) value;
-                    // 重设
-                    String sql = sqlInfo.getSql();
-                    List<Object> values = sqlInfo.getValues();
-                    this.sql += (this.condition + wrappedColumn + " " + sqlCondition.getValue() + " ( " + resetSql(sql, values.size()) + " )");
-                    this.values.addAll(values);
-                    break;
-                }
-                case NOT_LIKE:
-                case LIKE: {
-                    this.sql += (this.condition + wrappedColumn + " " + sqlCondition.getValue() + " CONCAT('%', " + getWrap(this.paramIndex++) + ", '%')");
-                    values.add(value);
-                    break;
-                }
-                case NOT_LIKE_LEFT:
-                case LIKE_LEFT: {
-                    this.sql += (this.condition + wrappedColumn + " " + sqlCondition.getValue() + " CONCAT('%', " + getWrap(this.paramIndex++) + ")");
-                    values.add(value);
-                    break;
-                }
-                case NOT_LIKE_RIGHT:
-                case LIKE_RIGHT: {
-                    this.sql += (this.condition + wrappedColumn + " " + sqlCondition.getValue() + " CONCAT(" + getWrap(this.paramIndex++) + ", '%')");
-                    values.add(value);
-                    break;
-                }
-                case IS_NULL:
-                case IS_NOT_NULL: {
-                    this.sql += (this.condition + wrappedColumn + " " + sqlCondition.getValue());
-                    break;
-                }
-                case BETWEEN:
-                case NOT_BETWEEN: {
-                    this.sql += (this.condition + wrappedColumn + " " + sqlCondition.getValue() + getWrap(this.paramIndex++) + " AND " + getWrap(this.paramIndex++));
-                    Object[] betweenValue = (Object[]) value;
-                    values.add(betweenValue[0]);
-                    values.add(betweenValue[1]);
+                    add(this.or, new Predicate.SubQueryPredicate(wrappedColumn, sqlCondition, (WrapperQuery<?, ?, ?>) value));
                     break;
                 }
                 default: {
-                    this.sql += (this.condition + wrappedColumn + " " + sqlCondition.getValue() + " " + getWrap(this.paramIndex++));
-                    values.add(value);
+                    // 按列的实际类型转换字符串/数字参数，避免隐式类型转换导致不使用索引
+                    value = DatabaseColumns.coerce(entityClass, wrappedColumn, sqlCondition, value);
+                    // 模板占位参数在 bind 时转换
+                    value = forColumn(value, wrappedColumn);
+                    add(this.or, new Predicate.ColumnPredicate(wrappedColumn, sqlCondition, value));
                     break;
                 }
             }
@@ -329,6 +304,31 @@ public abstract class AbstractWrapper<T, E extends Wrapper<T, E, Column>, Column
         return (E) this;
     }
 
+    /**
+     * 把条件参数中的模板占位参数绑定到列
+     * @param value 条件参数，IN 为 List，BETWEEN 为长度2的数组
+     * @param column 包装后的列名
+     * @return 没有占位参数时返回原值
+     */
+    private static Object forColumn(Object value, String column) {
+        if (value instanceof WrapperTemplate.Param) {
+            return ((WrapperTemplate.Param) value).forColumn(column);
+        }
+        if (value instanceof List && ((List<?>) value).stream().anyMatch(WrapperTemplate.Param.class::isInstance)) {
+            List<Object> items = new ArrayList<>((List<?>) value);
+            items.replaceAll(item -> forColumn(item, column));
+            return items;
+        }
+        if (value instanceof Object[] && Arrays.stream((Object[]) value).anyMatch(WrapperTemplate.Param.class::isInstance)) {
+            Object[] items = ((Object[]) value).clone();
+            for (int i = 0; i < items.length; i++) {
+                items[i] = forColumn(items[i], column);
+            }
+            return items;
+        }
+        return value;
+    }
+
     /**
      * 根据实体生成查询条件
      * @param entity 实体类
@@ -336,18 +336,18 @@ public abstract class AbstractWrapper<T, E extends Wrapper<T, E, Column>, Column
     private void build(T entity) {
         TableMetadata<T> tableMetadata = TableMetadata.forClass(entityClass);
         // 遍历字段和属性
-        for (Field field : tableMetadata.getFields()) {
-            String column = tableMetadata.getWrappedColumn(field);
+        for (ColumnDescriptor descriptor : tableMetadata.getColumns()) {
+            String column = descriptor.getWrappedColumn();
             // 获取条件
-            SqlCondition sqlCondition = AbstractMapperProvider.getSqlCondition(field);
+            SqlCondition sqlCondition = descriptor.getSqlCondition();
 
             // 转换条件
             WrapperSqlCondition condition = WrapperSqlCondition.valueOf(sqlCondition.name());
 
             // where策略
-            FieldStrategy whereStrategy = AbstractMapperProvider.getWhereStrategy(field);
+            FieldStrategy whereStrategy = descriptor.getWhereStrategy();
 
-            Object value = ReflectUtil.getFieldValue(entity, field);
+            Object value = descriptor.getValue(entity);
 
             // 根据策略构造条件，因为仅仅调用父类的build方法，父类并没有定义具体类型，所以强转没有问题
             switch (whereStrategy) {
@@ -376,70 +376,99 @@ public abstract class AbstractWrapper<T, E extends Wrapper<T, E, Column>, Column
         }
     }
 
-    @SneakyThrows
     protected final String getColumn(Column column) {
-        String wrappedColumn = null;
         if (column instanceof String) {
-            // 判断column是否是一个函数，如果是一个函数则不wrap
-            if (ReUtil.isMatch("^[a-zA-Z_]+\\s*\\((.*)\\)$", (String) column)) {
-                return (String) column;
-            }
-            if (this.entityClass == null) {
-                wrappedColumn = TableMetadata.autoWrap(String.valueOf(column));
-            } else {
-                wrappedColumn = TableMetadata.forClass(this.entityClass).lookupColumn(String.valueOf(column));
-            }
-            return wrappedColumn == null ? String.valueOf(column) : wrappedColumn;
+            return ColumnResolver.column(this.entityClass, (String) column);
         } else if (column instanceof Func1) {
+            ColumnResolver.LambdaColumn lambdaColumn = ColumnResolver.lambda((Func1<?, ?>) column);
             if (this.entityClass == null) {
-                this.entityClass = (Class<T>) LambdaUtil.getRealClass((Func1<?, ?>) column);
-                return getColumn(column);
-            } else {
-                wrappedColumn = TableMetadata.forClass(this.entityClass).lookupColumn(LambdaUtil.getFieldName((Func1<?, ?>) column));
+                this.entityClass = (Class<T>) lambdaColumn.realClass;
             }
+            return ColumnResolver.column(this.entityClass, lambdaColumn);
         }
-        return wrappedColumn;
+        return null;
     }
 
     @Override
     public SQLInfo<T> build() {
-        return SQLInfo.<T>builder().entityClass(entityClass).sql(this.getWhereSql()).values(this.values).build();
+        String whereSql = this.getWhereSql();
+        return SQLInfo.<T>builder().entityClass(entityClass).sql(whereSql).values(this.values).build();
     }
 
     @Override
     public String getWhereSql() {
-        String whereSql = StrUtil.trim(this.sql);
-        if (StrUtil.isNotBlank(whereSql)) {
-            whereSql = StrUtil.removePrefixIgnoreCase(whereSql, "AND ");
-            whereSql = StrUtil.removePrefixIgnoreCase(whereSql, "OR ");
-            return StrUtil.trim(whereSql);
+        SqlRenderContext ctx = new SqlRenderContext(estimateWhereLength());
+        renderWhere(ctx);
+        bind(ctx);
+        return ctx.take();
+    }
+
+    /**
+     * 将 where 条件(不含 WHERE 关键字)渲染到上下文
+     * @param ctx 渲染上下文
+     */
+    public void renderWhere(SqlRenderContext ctx) {
+        Predicate.GroupPredicate where = where();
+        if (where != null) {
+            where.render(ctx);
         }
-        return "";
     }
 
     @Override
-    public Class<T> getEntityClass() {
-        return entityClass;
+    public boolean describe(WrapperShape.Builder shape) {
+        return describeWhere(shape);
+    }
+
+    @Override
+    public WrapperShape shape() {
+        WrapperShape.Builder shape = WrapperShape.builder(getClass());
+        if (!describe(shape)) {
+            return null;
+        }
+        this.values = shape.getValues();
+        return shape.build();
     }
 
+    /**
+     * 写入 where 条件的结构和参数
+     * @param shape 结构指纹
+     * @return 不支持时返回false
+     */
+    protected final boolean describeWhere(WrapperShape.Builder shape) {
+        Predicate.GroupPredicate where = where();
+        if (where == null) {
+            shape.part(0);
+            return true;
+        }
+        return where.describe(shape);
+    }
+
+    /**
+     * 估算 where 条件渲染后的长度，用于预分配缓冲区
+     */
+    protected final int estimateWhereLength() {
+        Predicate.GroupPredicate where = where();
+        return where == null ? 16 : where.estimateLength();
+    }
 
-    protected final String getWrap(int index) {
-        return "#{" + Constants.WRAPPER + ".values[" + index + "]}";
+    /**
+     * 渲染结束后绑定参数，SQL中的 #{ew.values[n]} 从这里取值
+     * @param ctx 渲染上下文
+     */
+    protected final void bind(SqlRenderContext ctx) {
+        this.values = ctx.getValues();
     }
 
-    protected final String resetSql(String sql, int paramsCount) {
-        String newSql = sql;
-        int startIndex = 0;
-        for (int i = 0; i < paramsCount; i++) {
-            String src = getWrap(i);
-            String dest = getWrap(paramIndex++);
-            String tmpStr = newSql.substring(startIndex);
-            int index = tmpStr.indexOf(src);
-            tmpStr = tmpStr.replace(src, dest);
-            newSql = newSql.substring(0, startIndex) + tmpStr;
-            startIndex = startIndex + index + (dest.length() - src.length());
+    private Predicate.GroupPredicate where() {
+        if (this.where == null) {
+            this.where = Predicate.GroupPredicate.of(this.terms);
         }
-        return newSql;
+        return this.where;
+    }
+
+    @Override
+    public Class<T> getEntityClass() {
+        return entityClass;
     }
 
 }
@@ -0,0 +1,89 @@
+package top.chukongxiang.mybatis.basemapper.sql.core;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * <p>作为一个 JDBC Array 绑定的参数，执行时通过 Connection#createArrayOf 创建</p>
+ * <p>用于 {@link InListStrategies.ArrayInListStrategy}，整个 IN 列表只占一个占位符</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-02 10:12:35
+ */
+@Getter
+public final class ArrayParameter {
+
+    /**
+     * 元素类型 : 数组元素的SQL类型名，PostgreSQL 和 H2 都能识别
+     */
+    private static final Map<Class<?>, String> TYPE_NAMES = new HashMap<>();
+
+    static {
+        TYPE_NAMES.put(Integer.class, "integer");
+        TYPE_NAMES.put(Long.class, "bigint");
+        TYPE_NAMES.put(Short.class, "smallint");
+        TYPE_NAMES.put(String.class, "varchar");
+        TYPE_NAMES.put(BigDecimal.class, "numeric");
+        TYPE_NAMES.put(Boolean.class, "boolean");
+        TYPE_NAMES.put(Double.class, "float8");
+        TYPE_NAMES.put(Float.class, "float4");
+        TYPE_NAMES.put(UUID.class, "uuid");
+        TYPE_NAMES.put(Date.class, "timestamp");
+        TYPE_NAMES.put(LocalDateTime.class, "timestamp");
+        TYPE_NAMES.put(LocalDate.class, "date");
+    }
+
+    private final String typeName;
+
+    private final Object[] elements;
+
+    private ArrayParameter(String typeName, Object[] elements) {
+        this.typeName = typeName;
+        this.elements = elements;
+    }
+
+    /**
+     * 创建数组参数
+     * @param values 元素
+     * @return 元素为空、类型不同或类型不支持时返回null
+     */
+    public static ArrayParameter of(List<?> values) {
+        String typeName = typeName(values);
+        return typeName == null ? null : new ArrayParameter(typeName, values.toArray());
+    }
+
+    /**
+     * 获取元素的SQL类型名
+     * @param values 元素
+     * @return 元素为空、类型不同或类型不支持时返回null
+     */
+    public static String typeName(List<?> values) {
+        Class<?> type = null;
+        for (Object value : values) {
+            if (value == null) {
+                continue;
+            }
+            if (type == null) {
+                type = value.getClass();
+            } else if (type != value.getClass()) {
+                return null;
+            }
+        }
+        return type == null ? null : TYPE_NAMES.get(type);
+    }
+
+    @Override
+    public String toString() {
+        return typeName + Arrays.toString(elements);
+    }
+
+}
@@ -1,5 +1,8 @@
 package top.chukongxiang.mybatis.basemapper.sql.core;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Wrapper基类
  * @author 楚孔响
@@ -20,12 +23,37 @@ public interface BaseWrapper<T, Column> {
      */
     String getWhereSql();
 
+    /**
+     * 最近一次 build/getWhereSql/shape 绑定的参数，与SQL中 #{ew.values[n]} 对应
+     * @return 参数
+     */
+    default List<Object> getValues() {
+        return Collections.emptyList();
+    }
+
     /**
      * 获取实体类Class
      * @return 实体类
      */
     Class<T> getEntityClass();
 
+    /**
+     * 按渲染顺序写入条件结构和参数，结构相同时渲染出的SQL相同
+     * @param shape 结构指纹
+     * @return 不支持按结构缓存时返回false
+     */
+    default boolean describe(WrapperShape.Builder shape) {
+        return false;
+    }
+
+    /**
+     * 计算条件结构指纹，同时按渲染顺序绑定参数，按结构缓存的SQL命中时不需要再 build
+     * @return 结构指纹，不支持时返回null
+     */
+    default WrapperShape shape() {
+        return null;
+    }
+
 //    /**
 //     * 根据列名获取对应的列
 //     * @param column
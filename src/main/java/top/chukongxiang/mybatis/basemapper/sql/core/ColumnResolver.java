@@ -0,0 +1,147 @@
+package top.chukongxiang.mybatis.basemapper.sql.core;
+
+import cn.hutool.core.lang.func.Func1;
+import cn.hutool.core.lang.func.LambdaUtil;
+import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Wrapper 列解析缓存</p>
+ * <p>lambda 列按 lambda 的实现类缓存实体类和字段名(同一处方法引用每次生成的实例属于同一个类)，
+ * 不再每次通过 SerializedLambda 解析；字符串列按实体类缓存包装后的列名，不再每次执行函数判断的正则</p>
+ * <p>包装后的列名与数据库类型相关，数据库类型变化时通过 {@link #clear()} 整体替换缓存，
+ * 替换前取到旧缓存的线程只会写入旧缓存，不会把旧方言的列名留在新缓存中</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-11-28 15:42:18
+ */
+public final class ColumnResolver {
+
+    /**
+     * 函数列，例如 COUNT(*)，不做包装
+     */
+    private static final Pattern FUNCTION_PAT = Pattern.compile("^[a-zA-Z_]+\\s*\\((.*)\\)$");
+
+    /**
+     * 每个实体缓存的字符串列上限，字符串列可能是动态拼接的，超过后不再缓存
+     */
+    private static final int MAX_STRING_COLUMNS = 1024;
+
+    private static volatile Map<Class<?>, LambdaColumn> lambdaCache = new ConcurrentHashMap<>();
+
+    private static volatile Map<Class<?>, Map<String, String>> stringCache = new ConcurrentHashMap<>();
+
+    /**
+     * 没有实体类时自动包装的列
+     */
+    private static volatile Map<String, String> autoWrapCache = new ConcurrentHashMap<>();
+
+    private ColumnResolver() {}
+
+    /**
+     * 清空列解析缓存，数据库类型变化后调用
+     */
+    public static void clear() {
+        lambdaCache = new ConcurrentHashMap<>();
+        stringCache = new ConcurrentHashMap<>();
+        autoWrapCache = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 解析lambda列
+     * @param func 方法引用
+     * @return lambda对应的实体类和字段
+     */
+    static LambdaColumn lambda(Func1<?, ?> func) {
+        Map<Class<?>, LambdaColumn> cache = lambdaCache;
+        LambdaColumn lambdaColumn = cache.get(func.getClass());
+        if (lambdaColumn == null) {
+            lambdaColumn = cache.computeIfAbsent(func.getClass(),
+                    k -> new LambdaColumn(LambdaUtil.getRealClass(func), LambdaUtil.getFieldName(func)));
+        }
+        return lambdaColumn;
+    }
+
+    /**
+     * 获取lambda列在实体中包装后的列名
+     * @param entityClass 实体类
+     * @param lambdaColumn lambda列
+     * @return 包装后的列名，不存在时为null
+     */
+    static String column(Class<?> entityClass, LambdaColumn lambdaColumn) {
+        if (entityClass == lambdaColumn.realClass) {
+            String column = lambdaColumn.column;
+            if (column == null) {
+                column = TableMetadata.forClass(entityClass).lookupColumn(lambdaColumn.fieldName);
+                lambdaColumn.column = column;
+            }
+            return column;
+        }
+        return TableMetadata.forClass(entityClass).lookupColumn(lambdaColumn.fieldName);
+    }
+
+    /**
+     * 获取字符串列包装后的列名
+     * @param entityClass 实体类，为null时自动包装
+     * @param column 属性名或列名
+     * @return 包装后的列名，无法识别时返回原字符串
+     */
+    static String column(Class<?> entityClass, String column) {
+        Map<String, String> cache;
+        if (entityClass == null) {
+            cache = autoWrapCache;
+        } else {
+            Map<Class<?>, Map<String, String>> entityCache = stringCache;
+            cache = entityCache.get(entityClass);
+            if (cache == null) {
+                cache = entityCache.computeIfAbsent(entityClass, k -> new ConcurrentHashMap<>());
+            }
+        }
+        String wrappedColumn = cache.get(column);
+        if (wrappedColumn == null) {
+            wrappedColumn = resolve(entityClass, column);
+            if (cache.size() < MAX_STRING_COLUMNS) {
+                cache.put(column, wrappedColumn);
+            }
+        }
+        return wrappedColumn;
+    }
+
+    private static String resolve(Class<?> entityClass, String column) {
+        // 判断column是否是一个函数，如果是一个函数则不wrap
+        if (FUNCTION_PAT.matcher(column).matches()) {
+            return column;
+        }
+        String wrappedColumn;
+        if (entityClass == null) {
+            wrappedColumn = TableMetadata.autoWrap(column);
+        } else {
+            wrappedColumn = TableMetadata.forClass(entityClass).lookupColumn(column);
+        }
+        return wrappedColumn == null ? column : wrappedColumn;
+    }
+
+    /**
+     * lambda 对应的实体类和字段
+     */
+    static final class LambdaColumn {
+
+        final Class<?> realClass;
+
+        final String fieldName;
+
+        /**
+         * 在 realClass 中包装后的列名，首次使用时解析
+         */
+        volatile String column;
+
+        LambdaColumn(Class<?> realClass, String fieldName) {
+            this.realClass = realClass;
+            this.fieldName = fieldName;
+        }
+    }
+
+}
@@ -0,0 +1,283 @@
+package top.chukongxiang.mybatis.basemapper.sql.core;
+
+import cn.hutool.core.lang.Assert;
+import top.chukongxiang.mybatis.basemapper.model.enums.DbType;
+import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * <p>IN 列表渲染策略注册表，按注册的倒序匹配，都不匹配时每个元素一个占位符</p>
+ * <p>默认策略：</p>
+ * <ul>
+ *     <li>PostgreSQL 元素个数达到 {@link #ARRAY_THRESHOLD} 时绑定为一个数组参数：col = ANY(?)</li>
+ *     <li>H2 元素个数达到 {@link #ARRAY_THRESHOLD} 时绑定为一个数组参数：col IN (UNNEST(?))</li>
+ *     <li>Oracle 元素超过 {@link #ORACLE_MAX_IN_SIZE} 时拆分为多个 IN 用 OR 连接</li>
+ * </ul>
+ * <p>每个元素一个占位符时可以按 {@link top.chukongxiang.mybatis.basemapper.model.annnotations.InListPadding} 补齐到2的幂</p>
+ * <p>数组参数不受参数个数限制，元素个数也不再影响SQL文本；拆分只能绕过单个IN列表的限制，
+ * SQL Server 这类限制整条语句参数个数的数据库需要在 {@link top.chukongxiang.mybatis.basemapper.ServiceImpl} 中分批查询</p>
+ * <p>一次 build 中 render 和 describe 会各自选择一次策略，注册策略应在启动时完成</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-02 10:03:51
+ */
+public final class InListStrategies {
+
+    /**
+     * 使用数组参数的最小元素个数
+     */
+    public static final int ARRAY_THRESHOLD = 64;
+
+    /**
+     * Oracle 单个 IN 列表的元素上限
+     */
+    public static final int ORACLE_MAX_IN_SIZE = 1000;
+
+    /**
+     * 补齐后的最大长度，超过后不再补齐，不超过 Oracle 单个 IN 列表的上限
+     */
+    public static final int MAX_PADDED_SIZE = ORACLE_MAX_IN_SIZE;
+
+    private static final InListStrategy EXPAND = new ExpandInListStrategy();
+
+    /**
+     * 当前线程渲染的 Mapper 是否补齐 IN 列表，由 Provider 在生成SQL时设置
+     */
+    private static final ThreadLocal<Boolean> PADDING = new ThreadLocal<>();
+
+    private static volatile boolean defaultPadding = false;
+
+    private static final List<InListStrategy> STRATEGIES = new CopyOnWriteArrayList<>();
+
+    static {
+        STRATEGIES.add(new ChunkedInListStrategy(DbType.oracle, ORACLE_MAX_IN_SIZE));
+        STRATEGIES.add(new ArrayInListStrategy(DbType.h2, ARRAY_THRESHOLD));
+        STRATEGIES.add(new ArrayInListStrategy(DbType.postgresql, ARRAY_THRESHOLD));
+    }
+
+    private InListStrategies() {}
+
+    /**
+     * 注册策略，优先于已注册的策略
+     * @param strategy 策略
+     */
+    public static void register(InListStrategy strategy) {
+        Assert.notNull(strategy);
+        STRATEGIES.add(0, strategy);
+    }
+
+    /**
+     * 移除策略
+     * @param strategy 策略
+     */
+    public static void remove(InListStrategy strategy) {
+        STRATEGIES.remove(strategy);
+    }
+
+    /**
+     * 选择当前数据库类型下的策略
+     * @param values 元素
+     * @return 策略
+     */
+    public static InListStrategy choose(List<?> values) {
+        if (values.isEmpty()) {
+            return EXPAND;
+        }
+        DbType dbType = TableMetadata.getDbType();
+        for (InListStrategy strategy : STRATEGIES) {
+            if (strategy.supports(dbType, values)) {
+                return strategy;
+            }
+        }
+        return EXPAND;
+    }
+
+    /**
+     * 没有 {@link top.chukongxiang.mybatis.basemapper.model.annnotations.InListPadding} 注解的 Mapper 是否补齐 IN 列表
+     * @param padding 是否补齐
+     */
+    public static void setDefaultPadding(boolean padding) {
+        defaultPadding = padding;
+    }
+
+    public static boolean isDefaultPadding() {
+        return defaultPadding;
+    }
+
+    /**
+     * 在补齐 IN 列表的范围内执行，范围内 Wrapper 的 shape 和 build 都按补齐后的列表渲染
+     * @param padding 是否补齐
+     * @param supplier 执行内容
+     * @return 执行结果
+     */
+    public static <R> R padding(boolean padding, Supplier<R> supplier) {
+        Boolean previous = PADDING.get();
+        PADDING.set(padding);
+        try {
+            return supplier.get();
+        } finally {
+            if (previous == null) {
+                PADDING.remove();
+            } else {
+                PADDING.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 补齐后的长度：不小于 size 的最小的2的幂，超过 {@link #MAX_PADDED_SIZE} 时不补齐
+     * @param size 原长度
+     * @return 补齐后的长度
+     */
+    public static int padSize(int size) {
+        if (size <= 1 || size > MAX_PADDED_SIZE) {
+            return size;
+        }
+        return Math.min(Integer.highestOneBit(size - 1) << 1, MAX_PADDED_SIZE);
+    }
+
+    /**
+     * 重复最后一个元素补齐列表
+     * @param values 元素
+     * @return 补齐后的列表，不需要补齐时返回原列表
+     */
+    public static <E> List<E> pad(List<E> values) {
+        int size = padSize(values.size());
+        if (size == values.size()) {
+            return values;
+        }
+        List<E> padded = new ArrayList<>(size);
+        padded.addAll(values);
+        E last = values.get(values.size() - 1);
+        while (padded.size() < size) {
+            padded.add(last);
+        }
+        return padded;
+    }
+
+    private static boolean isPadding() {
+        return Boolean.TRUE.equals(PADDING.get());
+    }
+
+    private static void expand(SqlRenderContext ctx, String column, boolean not, List<?> values) {
+        ctx.append(column).append(not ? " NOT IN(" : " IN(");
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                ctx.append(", ");
+            }
+            ctx.placeholder(values.get(i));
+        }
+        ctx.append(')');
+    }
+
+    private static void describeExpanded(WrapperShape.Builder shape, List<?> values) {
+        shape.part(values.size());
+        for (Object value : values) {
+            shape.value(value);
+        }
+    }
+
+    /**
+     * 每个元素一个占位符：col IN(?, ?, ...)
+     */
+    static final class ExpandInListStrategy implements InListStrategy {
+
+        @Override
+        public boolean supports(DbType dbType, List<?> values) {
+            return true;
+        }
+
+        @Override
+        public void render(SqlRenderContext ctx, String column, boolean not, List<?> values) {
+            expand(ctx, column, not, isPadding() ? pad(values) : values);
+        }
+
+        @Override
+        public void describe(WrapperShape.Builder shape, List<?> values) {
+            describeExpanded(shape, isPadding() ? pad(values) : values);
+        }
+    }
+
+    /**
+     * 按块拆分：(col IN(...) OR col IN(...))，NOT IN 用 AND 连接
+     */
+    public static final class ChunkedInListStrategy implements InListStrategy {
+
+        private final DbType dbType;
+
+        private final int chunkSize;
+
+        public ChunkedInListStrategy(DbType dbType, int chunkSize) {
+            Assert.isTrue(chunkSize > 0, "chunkSize必须大于0");
+            this.dbType = dbType;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public boolean supports(DbType dbType, List<?> values) {
+            return this.dbType == dbType && values.size() > chunkSize;
+        }
+
+        @Override
+        public void render(SqlRenderContext ctx, String column, boolean not, List<?> values) {
+            ctx.append('(');
+            for (int start = 0; start < values.size(); start += chunkSize) {
+                if (start > 0) {
+                    ctx.append(not ? " AND " : " OR ");
+                }
+                expand(ctx, column, not, values.subList(start, Math.min(start + chunkSize, values.size())));
+            }
+            ctx.append(')');
+        }
+
+        @Override
+        public void describe(WrapperShape.Builder shape, List<?> values) {
+            shape.part(this);
+            describeExpanded(shape, values);
+        }
+    }
+
+    /**
+     * 整个列表绑定为一个数组参数，元素类型不一致或不支持时不处理
+     * <ul>
+     *     <li>H2：col IN (UNNEST(?)) / col NOT IN (UNNEST(?))</li>
+     *     <li>其他：col = ANY(?) / col &lt;&gt; ALL(?)</li>
+     * </ul>
+     */
+    public static final class ArrayInListStrategy implements InListStrategy {
+
+        private final DbType dbType;
+
+        private final int threshold;
+
+        public ArrayInListStrategy(DbType dbType, int threshold) {
+            this.dbType = dbType;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public boolean supports(DbType dbType, List<?> values) {
+            return this.dbType == dbType && values.size() >= threshold && ArrayParameter.typeName(values) != null;
+        }
+
+        @Override
+        public void render(SqlRenderContext ctx, String column, boolean not, List<?> values) {
+            ctx.append(column);
+            if (dbType == DbType.h2) {
+                ctx.append(not ? " NOT IN (UNNEST(" : " IN (UNNEST(").placeholder(ArrayParameter.of(values)).append("))");
+            } else {
+                ctx.append(not ? " <> ALL(" : " = ANY(").placeholder(ArrayParameter.of(values)).append(')');
+            }
+        }
+
+        @Override
+        public void describe(WrapperShape.Builder shape, List<?> values) {
+            shape.part(this).value(ArrayParameter.of(values));
+        }
+    }
+
+}
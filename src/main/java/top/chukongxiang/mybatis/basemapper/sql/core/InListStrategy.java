@@ -0,0 +1,42 @@
+package top.chukongxiang.mybatis.basemapper.sql.core;
+
+import top.chukongxiang.mybatis.basemapper.model.enums.DbType;
+
+import java.util.List;
+
+/**
+ * <p>IN / NOT IN 值列表的渲染策略</p>
+ * <p>默认每个元素一个占位符，元素很多时会超出驱动的参数个数限制(SQL Server 2100，Oracle 每个IN列表1000)，
+ * 可以通过 {@link InListStrategies#register(InListStrategy)} 按数据库类型和元素个数选择其他渲染方式</p>
+ * <p>render 和 describe 写入的参数顺序必须一致，选择相同策略的列表必须渲染出相同结构的SQL</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-02 09:48:16
+ */
+public interface InListStrategy {
+
+    /**
+     * 是否处理这个列表
+     * @param dbType 数据库类型，未知时为null
+     * @param values 元素，不为空
+     * @return 是否处理
+     */
+    boolean supports(DbType dbType, List<?> values);
+
+    /**
+     * 渲染完整条件，包含列名
+     * @param ctx 渲染上下文
+     * @param column 列名
+     * @param not 是否 NOT IN
+     * @param values 元素
+     */
+    void render(SqlRenderContext ctx, String column, boolean not, List<?> values);
+
+    /**
+     * 写入条件结构和参数，元素个数不影响SQL时不需要写入个数
+     * @param shape 结构指纹
+     * @param values 元素
+     */
+    void describe(WrapperShape.Builder shape, List<?> values);
+
+}
@@ -0,0 +1,184 @@
+package top.chukongxiang.mybatis.basemapper.sql.core;
+
+import cn.hutool.core.lang.Assert;
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+import top.chukongxiang.mybatis.basemapper.model.enums.DbType;
+import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * <p>游标(seek)分页条件：按排序列从上一页最后一行之后继续读取，替代 OFFSET 分页</p>
+ * <p>OFFSET 需要数据库扫描并丢弃前面所有行，页数越深越慢；游标条件可以直接在排序列的索引上定位，每页耗时与页数无关</p>
+ * <ul>
+ *     <li>排序方向一致且数据库支持行值比较时：(a, b, id) &gt; (?, ?, ?)</li>
+ *     <li>其他：a &gt;= ? AND (a &gt; ? OR a = ? AND b &gt; ? OR a = ? AND b = ? AND id &gt; ?)</li>
+ * </ul>
+ * <p>排序列必须能唯一确定一行(通常以主键结尾)，且不能为null：null 既无法写入游标，也无法用比较条件定位</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-06 10:15:32
+ */
+@Getter
+public final class Keyset {
+
+    /**
+     * 完整的排序，替代Wrapper自身的排序
+     */
+    private final List<WrapperQuery.OrderBy> orderBys;
+
+    /**
+     * 上一页最后一行的排序列值，第一页为null
+     */
+    private final List<Object> values;
+
+    public Keyset(List<WrapperQuery.OrderBy> orderBys, List<Object> values) {
+        Assert.notEmpty(orderBys, "游标分页必须有排序列");
+        Assert.isTrue(values == null || values.size() == orderBys.size(), "游标值个数与排序列个数不一致");
+        this.orderBys = Collections.unmodifiableList(orderBys);
+        this.values = values == null ? null : Collections.unmodifiableList(values);
+    }
+
+    /**
+     * 是否需要游标条件，第一页只排序
+     * @return 是否需要游标条件
+     */
+    public boolean isSeeking() {
+        return values != null;
+    }
+
+    /**
+     * 合并 where 条件和游标条件，游标参数在 where 参数之后
+     * @param ctx 渲染上下文，where 已经从缓冲区取出
+     * @param whereSql where 条件，可以为空
+     * @param keyset 游标条件，可以为null
+     * @return 合并后的条件
+     */
+    public static String where(SqlRenderContext ctx, String whereSql, Keyset keyset) {
+        if (keyset == null || !keyset.isSeeking()) {
+            return whereSql;
+        }
+        if (StrUtil.isNotBlank(whereSql)) {
+            ctx.append('(').append(whereSql).append(") AND ");
+        }
+        keyset.render(ctx);
+        return ctx.take();
+    }
+
+    /**
+     * 渲染游标条件，不包含外层括号
+     * @param ctx 渲染上下文
+     */
+    public void render(SqlRenderContext ctx) {
+        int size = orderBys.size();
+        if (isRowValue()) {
+            ctx.append('(').append(columns()).append(orderBys.get(0).isAsc() ? ") > (" : ") < (");
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    ctx.append(", ");
+                }
+                ctx.placeholder(values.get(i));
+            }
+            ctx.append(')');
+            return;
+        }
+        WrapperQuery.OrderBy first = orderBys.get(0);
+        if (size == 1) {
+            ctx.append(first.getColumn()).append(first.isAsc() ? " > " : " < ").placeholder(values.get(0));
+            return;
+        }
+        // 首列范围条件，OR 展开后优化器仍然可以使用首列索引
+        ctx.append(first.getColumn()).append(first.isAsc() ? " >= " : " <= ").placeholder(values.get(0)).append(" AND (");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                ctx.append(" OR ");
+            }
+            for (int j = 0; j < i; j++) {
+                ctx.append(orderBys.get(j).getColumn()).append(" = ").placeholder(values.get(j)).append(" AND ");
+            }
+            WrapperQuery.OrderBy orderBy = orderBys.get(i);
+            ctx.append(orderBy.getColumn()).append(orderBy.isAsc() ? " > " : " < ").placeholder(values.get(i));
+        }
+        ctx.append(')');
+    }
+
+    /**
+     * 写入游标条件的结构和参数，顺序与 {@link #render(SqlRenderContext)} 一致
+     * @param shape 结构指纹
+     * @param keyset 游标条件，可以为null
+     */
+    public static void describe(WrapperShape.Builder shape, Keyset keyset) {
+        shape.part(keyset != null);
+        if (keyset == null) {
+            return;
+        }
+        List<WrapperQuery.OrderBy> orderBys = keyset.orderBys;
+        shape.part(orderBys.size());
+        for (WrapperQuery.OrderBy orderBy : orderBys) {
+            shape.part(orderBy.getColumn()).part(orderBy.isAsc());
+        }
+        shape.part(keyset.isSeeking());
+        if (!keyset.isSeeking()) {
+            return;
+        }
+        List<Object> values = keyset.values;
+        if (keyset.isRowValue() || orderBys.size() == 1) {
+            values.forEach(shape::value);
+            return;
+        }
+        shape.value(values.get(0));
+        for (int i = 0; i < values.size(); i++) {
+            for (int j = 0; j <= i; j++) {
+                shape.value(values.get(j));
+            }
+        }
+    }
+
+    /**
+     * ORDER BY 子句内容
+     * @return a ASC, b DESC, ...
+     */
+    public String orderBySql() {
+        return orderBys.stream()
+                .map(orderBy -> orderBy.getColumn() + " " + (orderBy.isAsc() ? "ASC" : "DESC"))
+                .collect(Collectors.joining(", "));
+    }
+
+    private String columns() {
+        return orderBys.stream().map(WrapperQuery.OrderBy::getColumn).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * 是否使用行值比较，要求所有列方向一致
+     */
+    private boolean isRowValue() {
+        if (orderBys.size() == 1) {
+            return false;
+        }
+        boolean asc = orderBys.get(0).isAsc();
+        for (WrapperQuery.OrderBy orderBy : orderBys) {
+            if (orderBy.isAsc() != asc) {
+                return false;
+            }
+        }
+        DbType dbType = TableMetadata.getDbType();
+        if (dbType == null) {
+            return false;
+        }
+        switch (dbType) {
+            case mysql:
+            case mariadb:
+            case postgresql:
+            case h2: {
+                return true;
+            }
+            default: {
+                return false;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+package top.chukongxiang.mybatis.basemapper.sql.core;
+
+import lombok.EqualsAndHashCode;
+import top.chukongxiang.mybatis.basemapper.model.enums.DbType;
+import top.chukongxiang.mybatis.basemapper.model.enums.WrapperSqlCondition;
+import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
+import top.chukongxiang.mybatis.basemapper.sql.WrapperTemplate;
+
+/**
+ * <p>LIKE 匹配串，在客户端转义值中的通配符并拼接 %，SQL 中只渲染 col LIKE ?</p>
+ * <p>CONCAT(?, '%') 这类表达式在很多优化器中不能作为前缀匹配使用索引，直接绑定 'abc%' 时 likeRight 可以走索引范围扫描</p>
+ * <p>值是 {@link WrapperTemplate.Param} 时保留为本对象，由模板在 bind 时通过 {@link #apply(Object)} 生成匹配串</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-03 14:18:05
+ */
+@EqualsAndHashCode
+public final class LikePattern {
+
+    /**
+     * 转义符
+     */
+    public static final char ESCAPE = '\\';
+
+    private final Object value;
+
+    /**
+     * 前面是否加 %
+     */
+    private final boolean leading;
+
+    /**
+     * 后面是否加 %
+     */
+    private final boolean trailing;
+
+    private LikePattern(Object value, boolean leading, boolean trailing) {
+        this.value = value;
+        this.leading = leading;
+        this.trailing = trailing;
+    }
+
+    /**
+     * 生成绑定值
+     * @param value 原始值
+     * @param condition LIKE 条件
+     * @return 匹配串，值是模板参数时返回 LikePattern，值为null时返回null
+     */
+    static Object of(Object value, WrapperSqlCondition condition) {
+        boolean leading = condition != WrapperSqlCondition.LIKE_RIGHT && condition != WrapperSqlCondition.NOT_LIKE_RIGHT;
+        boolean trailing = condition != WrapperSqlCondition.LIKE_LEFT && condition != WrapperSqlCondition.NOT_LIKE_LEFT;
+        LikePattern pattern = new LikePattern(value, leading, trailing);
+        if (value instanceof WrapperTemplate.Param) {
+            return pattern;
+        }
+        return pattern.apply(value);
+    }
+
+    /**
+     * 模板参数占位
+     * @return 参数占位
+     */
+    public Object getValue() {
+        return value;
+    }
+
+    /**
+     * 按当前数据库转义通配符并拼接 %
+     * @param value 原始值
+     * @return 匹配串，值为null时返回null
+     */
+    public String apply(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String str = value.toString();
+        boolean bracket = TableMetadata.getDbType() == DbType.sqlserver;
+        StringBuilder builder = new StringBuilder(str.length() + 8);
+        if (leading) {
+            builder.append('%');
+        }
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c == '%' || c == '_' || c == ESCAPE || (bracket && c == '[')) {
+                builder.append(ESCAPE);
+            }
+            builder.append(c);
+        }
+        if (trailing) {
+            builder.append('%');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 当前数据库需要的 ESCAPE 子句
+     * <p>MySQL、PostgreSQL、H2 等默认使用反斜杠转义，不需要 ESCAPE；Oracle、SQL Server、SQLite 等没有默认转义符</p>
+     * @return ESCAPE 子句，不需要时为空字符串
+     */
+    static String escapeClause() {
+        DbType dbType = TableMetadata.getDbType();
+        if (dbType == null) {
+            return "";
+        }
+        switch (dbType) {
+            case mysql:
+            case mariadb:
+            case tidb:
+            case oceanbase:
+            case postgresql:
+            case greenplum:
+            case h2: {
+                return "";
+            }
+            default: {
+                return " ESCAPE '" + ESCAPE + "'";
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return (leading ? "%" : "") + value + (trailing ? "%" : "");
+    }
+
+}
@@ -0,0 +1,90 @@
+package top.chukongxiang.mybatis.basemapper.sql.core;
+
+import top.chukongxiang.mybatis.basemapper.model.enums.DbType;
+import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
+
+/**
+ * <p>按数据库类型给查询SQL追加分页，行数和偏移量作为参数绑定，不同页的SQL相同</p>
+ * <ul>
+ *     <li>Oracle：ROWNUM 嵌套查询，结果多一列 rn_</li>
+ *     <li>SQL Server、DB2、Derby：OFFSET ? ROWS FETCH NEXT ? ROWS ONLY，SQL Server 没有排序时补 ORDER BY (SELECT NULL)</li>
+ *     <li>其他：LIMIT ? OFFSET ?</li>
+ * </ul>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-05 09:42:13
+ */
+public final class Pagination {
+
+    private Pagination() {}
+
+    /**
+     * 追加分页
+     * @param ctx 渲染上下文，参数追加到上下文的参数列表，缓冲区中不能有未取出的SQL
+     * @param sql 已经渲染好的查询SQL，占位符在上下文当前参数之前
+     * @param ordered 查询是否已经有 ORDER BY
+     * @param limit 分页条件，为null时返回原SQL
+     * @return 分页SQL
+     */
+    public static String apply(SqlRenderContext ctx, String sql, boolean ordered, WrapperQuery.Limit limit) {
+        if (limit == null) {
+            return sql;
+        }
+        DbType dbType = TableMetadata.getDbType();
+        switch (dbType == null ? DbType.mysql : dbType) {
+            case oracle: {
+                ctx.append("SELECT * FROM (SELECT p_.*, ROWNUM rn_ FROM (").append(sql).append(") p_ WHERE ROWNUM <= ")
+                        .placeholder(limit.getOffset() + limit.getRows())
+                        .append(") WHERE rn_ > ").placeholder(limit.getOffset());
+                break;
+            }
+            case sqlserver:
+            case jtds:
+            case db2:
+            case derby: {
+                ctx.append(sql);
+                if (!ordered && dbType != DbType.db2 && dbType != DbType.derby) {
+                    ctx.append(" ORDER BY (SELECT NULL)");
+                }
+                ctx.append(" OFFSET ").placeholder(limit.getOffset()).append(" ROWS FETCH NEXT ").placeholder(limit.getRows()).append(" ROWS ONLY");
+                break;
+            }
+            default: {
+                ctx.append(sql).append(" LIMIT ").placeholder(limit.getRows()).append(" OFFSET ").placeholder(limit.getOffset());
+                break;
+            }
+        }
+        return ctx.take();
+    }
+
+    /**
+     * 写入分页结构和参数，顺序与 {@link #apply(SqlRenderContext, String, boolean, WrapperQuery.Limit)} 一致
+     * @param shape 结构指纹
+     * @param limit 分页条件
+     */
+    public static void describe(WrapperShape.Builder shape, WrapperQuery.Limit limit) {
+        shape.part(limit != null);
+        if (limit == null) {
+            return;
+        }
+        DbType dbType = TableMetadata.getDbType();
+        switch (dbType == null ? DbType.mysql : dbType) {
+            case oracle: {
+                shape.value(limit.getOffset() + limit.getRows()).value(limit.getOffset());
+                break;
+            }
+            case sqlserver:
+            case jtds:
+            case db2:
+            case derby: {
+                shape.value(limit.getOffset()).value(limit.getRows());
+                break;
+            }
+            default: {
+                shape.value(limit.getRows()).value(limit.getOffset());
+                break;
+            }
+        }
+    }
+
+}
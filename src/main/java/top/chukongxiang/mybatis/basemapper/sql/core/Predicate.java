@@ -0,0 +1,396 @@
+package top.chukongxiang.mybatis.basemapper.sql.core;
+
+import top.chukongxiang.mybatis.basemapper.model.enums.WrapperSqlCondition;
+
+import java.util.*;
+
+/**
+ * <p>Wrapper 条件树节点，创建后不可变</p>
+ * <p>条件在调用 eq/in/and(...) 时只记录为节点，build 时一次性渲染到 {@link SqlRenderContext}</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-11-28 10:21:09
+ */
+abstract class Predicate {
+
+    private int hash;
+
+    /**
+     * 渲染到上下文
+     * @param ctx 渲染上下文
+     */
+    abstract void render(SqlRenderContext ctx);
+
+    /**
+     * 估算渲染后的长度，用于预分配缓冲区
+     */
+    abstract int estimateLength();
+
+    /**
+     * 按渲染顺序写入条件结构和参数
+     * @param shape 结构指纹
+     * @return 不支持时返回false
+     */
+    abstract boolean describe(WrapperShape.Builder shape);
+
+    abstract int computeHash();
+
+    @Override
+    public final int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = computeHash();
+            hash = h == 0 ? 1 : h;
+        }
+        return hash;
+    }
+
+    /**
+     * 条件和它前面的连接符
+     */
+    static final class Term {
+
+        final boolean or;
+
+        final Predicate predicate;
+
+        Term(boolean or, Predicate predicate) {
+            this.or = or;
+            this.predicate = predicate;
+        }
+    }
+
+    /**
+     * column op value
+     */
+    static final class ColumnPredicate extends Predicate {
+
+        final String column;
+
+        final WrapperSqlCondition condition;
+
+        /**
+         * IN/NOT_IN 为 List，BETWEEN 为长度2的数组，IS_NULL/IS_NOT_NULL 为null
+         */
+        final Object value;
+
+        ColumnPredicate(String column, WrapperSqlCondition condition, Object value) {
+            this.column = column;
+            this.condition = condition;
+            this.value = value;
+        }
+
+        @Override
+        void render(SqlRenderContext ctx) {
+            if (condition == WrapperSqlCondition.IN || condition == WrapperSqlCondition.NOT_IN) {
+                List<?> items = (List<?>) value;
+                InListStrategies.choose(items).render(ctx, column, condition == WrapperSqlCondition.NOT_IN, items);
+                return;
+            }
+            ctx.append(column).append(' ').append(condition.getValue());
+            switch (condition) {
+                case NOT_LIKE:
+                case LIKE:
+                case NOT_LIKE_LEFT:
+                case LIKE_LEFT:
+                case NOT_LIKE_RIGHT:
+                case LIKE_RIGHT: {
+                    // 通配符在绑定值中拼接，col LIKE 'abc%' 可以使用索引
+                    ctx.append(' ').placeholder(LikePattern.of(value, condition)).append(LikePattern.escapeClause());
+                    break;
+                }
+                case IS_NULL:
+                case IS_NOT_NULL: {
+                    break;
+                }
+                case BETWEEN:
+                case NOT_BETWEEN: {
+                    Object[] between = (Object[]) value;
+                    ctx.append(' ').placeholder(between[0]).append(" AND ").placeholder(between[1]);
+                    break;
+                }
+                default: {
+                    ctx.append(' ').placeholder(value);
+                    break;
+                }
+            }
+        }
+
+        @Override
+        int estimateLength() {
+            int length = column.length() + 32;
+            if (value instanceof List) {
+                length += ((List<?>) value).size() * 20;
+            }
+            return length;
+        }
+
+        @Override
+        boolean describe(WrapperShape.Builder shape) {
+            shape.part(column).part(condition);
+            switch (condition) {
+                case IN:
+                case NOT_IN: {
+                    List<?> items = (List<?>) value;
+                    InListStrategies.choose(items).describe(shape, items);
+                    break;
+                }
+                case NOT_LIKE:
+                case LIKE:
+                case NOT_LIKE_LEFT:
+                case LIKE_LEFT:
+                case NOT_LIKE_RIGHT:
+                case LIKE_RIGHT: {
+                    shape.value(LikePattern.of(value, condition));
+                    break;
+                }
+                case IS_NULL:
+                case IS_NOT_NULL: {
+                    break;
+                }
+                case BETWEEN:
+                case NOT_BETWEEN: {
+                    Object[] between = (Object[]) value;
+                    shape.value(between[0]).value(between[1]);
+                    break;
+                }
+                default: {
+                    shape.value(value);
+                    break;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        int computeHash() {
+            return Objects.hash(column, condition) * 31 + Arrays.deepHashCode(new Object[] { value });
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ColumnPredicate)) {
+                return false;
+            }
+            ColumnPredicate that = (ColumnPredicate) o;
+            return condition == that.condition && column.equals(that.column) && Objects.deepEquals(value, that.value);
+        }
+    }
+
+    /**
+     * column IN ( SELECT ... ) / EXISTS ( SELECT ... )
+     */
+    static final class SubQueryPredicate extends Predicate {
+
+        final String column;
+
+        final WrapperSqlCondition condition;
+
+        /**
+         * 子查询在父条件渲染时才渲染，参数直接追加到同一个参数列表
+         */
+        final WrapperQuery<?, ?, ?> query;
+
+        SubQueryPredicate(String column, WrapperSqlCondition condition, WrapperQuery<?, ?, ?> query) {
+            this.column = column;
+            this.condition = condition;
+            this.query = query;
+        }
+
+        @Override
+        void render(SqlRenderContext ctx) {
+            ctx.append(column).append(' ').append(condition.getValue()).append(" ( ");
+            query.render(ctx);
+            ctx.append(" )");
+        }
+
+        @Override
+        int estimateLength() {
+            return column.length() + 128;
+        }
+
+        @Override
+        boolean describe(WrapperShape.Builder shape) {
+            shape.part(column).part(condition);
+            return query.describe(shape);
+        }
+
+        @Override
+        int computeHash() {
+            return System.identityHashCode(this);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o;
+        }
+    }
+
+    /**
+     * ( ... ) 括号内的一组条件
+     * <p>按 SQL 优先级保存为 OR 连接的多个 AND 链</p>
+     */
+    static final class GroupPredicate extends Predicate {
+
+        final List<List<Predicate>> chains;
+
+        private GroupPredicate(List<List<Predicate>> chains) {
+            this.chains = chains;
+        }
+
+        /**
+         * 根据条件序列创建，同时做化简：
+         * <ul>
+         *     <li>同一个 AND 链中重复的条件只保留一个</li>
+         *     <li>完全相同的 OR 分支只保留一个</li>
+         *     <li>OR 连接的同一列 eq/in 条件合并为一个 IN</li>
+         * </ul>
+         * @param terms 条件序列，第一个条件的连接符忽略
+         * @return 条件组，没有条件时返回null
+         */
+        static GroupPredicate of(List<Term> terms) {
+            if (terms.isEmpty()) {
+                return null;
+            }
+            // 按 OR 拆分成 AND 链，AND 链内去重
+            List<Set<Predicate>> rawChains = new ArrayList<>();
+            Set<Predicate> chain = null;
+            for (Term term : terms) {
+                if (chain == null || term.or) {
+                    chain = new LinkedHashSet<>();
+                    rawChains.add(chain);
+                }
+                chain.add(term.predicate);
+            }
+
+            List<List<Predicate>> chains = new ArrayList<>(rawChains.size());
+            // 列 : 合并后的 IN 在 chains 中的位置
+            Map<String, Integer> inIndexes = null;
+            // 合并中的 IN 值
+            Map<String, Set<Object>> inValues = null;
+            Set<List<Predicate>> seen = new HashSet<>();
+            for (Set<Predicate> predicates : rawChains) {
+                if (rawChains.size() > 1 && predicates.size() == 1) {
+                    Predicate predicate = predicates.iterator().next();
+                    if (isMergeable(predicate)) {
+                        if (inIndexes == null) {
+                            inIndexes = new HashMap<>();
+                            inValues = new HashMap<>();
+                        }
+                        ColumnPredicate columnPredicate = (ColumnPredicate) predicate;
+                        Integer index = inIndexes.get(columnPredicate.column);
+                        if (index == null) {
+                            inIndexes.put(columnPredicate.column, chains.size());
+                            inValues.put(columnPredicate.column, new LinkedHashSet<>(mergeValues(columnPredicate)));
+                            chains.add(Collections.singletonList(predicate));
+                        } else {
+                            inValues.get(columnPredicate.column).addAll(mergeValues(columnPredicate));
+                        }
+                        continue;
+                    }
+                }
+                List<Predicate> list = Collections.unmodifiableList(new ArrayList<>(predicates));
+                if (seen.add(list)) {
+                    chains.add(list);
+                }
+            }
+            if (inIndexes != null) {
+                for (Map.Entry<String, Integer> entry : inIndexes.entrySet()) {
+                    Set<Object> values = inValues.get(entry.getKey());
+                    ColumnPredicate first = (ColumnPredicate) chains.get(entry.getValue()).get(0);
+                    if (values.size() == 1 && first.condition == WrapperSqlCondition.EQ) {
+                        continue;
+                    }
+                    ColumnPredicate merged = new ColumnPredicate(entry.getKey(), WrapperSqlCondition.IN, new ArrayList<>(values));
+                    chains.set(entry.getValue(), Collections.singletonList(merged));
+                }
+            }
+            return new GroupPredicate(Collections.unmodifiableList(chains));
+        }
+
+        private static boolean isMergeable(Predicate predicate) {
+            if (!(predicate instanceof ColumnPredicate)) {
+                return false;
+            }
+            ColumnPredicate columnPredicate = (ColumnPredicate) predicate;
+            if (columnPredicate.condition == WrapperSqlCondition.EQ) {
+                return columnPredicate.value != null;
+            }
+            return columnPredicate.condition == WrapperSqlCondition.IN
+                    && !((List<?>) columnPredicate.value).isEmpty()
+                    && !((List<?>) columnPredicate.value).contains(null);
+        }
+
+        private static List<?> mergeValues(ColumnPredicate predicate) {
+            if (predicate.condition == WrapperSqlCondition.EQ) {
+                return Collections.singletonList(predicate.value);
+            }
+            return (List<?>) predicate.value;
+        }
+
+        /**
+         * 渲染括号内的条件，不包含括号
+         */
+        @Override
+        void render(SqlRenderContext ctx) {
+            for (int i = 0; i < chains.size(); i++) {
+                if (i > 0) {
+                    ctx.append(" OR ");
+                }
+                List<Predicate> chain = chains.get(i);
+                for (int j = 0; j < chain.size(); j++) {
+                    if (j > 0) {
+                        ctx.append(" AND ");
+                    }
+                    Predicate predicate = chain.get(j);
+                    if (predicate instanceof GroupPredicate) {
+                        ctx.append('(');
+                        predicate.render(ctx);
+                        ctx.append(')');
+                    } else {
+                        predicate.render(ctx);
+                    }
+                }
+            }
+        }
+
+        @Override
+        int estimateLength() {
+            int length = 2;
+            for (List<Predicate> chain : chains) {
+                for (Predicate predicate : chain) {
+                    length += predicate.estimateLength() + 5;
+                }
+            }
+            return length;
+        }
+
+        @Override
+        boolean describe(WrapperShape.Builder shape) {
+            shape.part(chains.size());
+            for (List<Predicate> chain : chains) {
+                shape.part(chain.size());
+                for (Predicate predicate : chain) {
+                    if (!predicate.describe(shape)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        @Override
+        int computeHash() {
+            return chains.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof GroupPredicate && chains.equals(((GroupPredicate) o).chains));
+        }
+    }
+
+}
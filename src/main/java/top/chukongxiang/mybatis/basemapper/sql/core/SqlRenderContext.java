@@ -0,0 +1,108 @@
+package top.chukongxiang.mybatis.basemapper.sql.core;
+
+import lombok.Getter;
+import top.chukongxiang.mybatis.basemapper.model.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Wrapper 渲染上下文</p>
+ * <p>一次渲染共用一个 SQL 缓冲区和一个参数列表，占位符下标就是参数加入时的位置，
+ * 所以条件可以按顺序直接写入，不需要字符串拼接后再修正下标</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-11-28 10:05:36
+ */
+public final class SqlRenderContext {
+
+    private final StringBuilder sql;
+
+    @Getter
+    private final List<Object> values;
+
+    public SqlRenderContext(int capacity) {
+        this(new StringBuilder(capacity), new ArrayList<>());
+    }
+
+    /**
+     * 在已有参数之后继续渲染，例如给已经渲染好的SQL追加分页
+     * @param capacity SQL缓冲区初始大小
+     * @param values 已有参数，新参数直接追加到这个列表
+     */
+    public SqlRenderContext(int capacity, List<Object> values) {
+        this(new StringBuilder(capacity), values);
+    }
+
+    private SqlRenderContext(StringBuilder sql, List<Object> values) {
+        this.sql = sql;
+        this.values = values;
+    }
+
+    /**
+     * 创建共用参数列表的子上下文，用于子查询等需要单独拼装的SQL片段
+     * <p>子上下文写入的占位符下标直接接在当前参数之后，拼回父上下文时不需要重新编号</p>
+     * @param capacity 子SQL缓冲区初始大小
+     * @return 子上下文
+     */
+    public SqlRenderContext fork(int capacity) {
+        return new SqlRenderContext(new StringBuilder(capacity), this.values);
+    }
+
+    public SqlRenderContext append(String sql) {
+        this.sql.append(sql);
+        return this;
+    }
+
+    public SqlRenderContext append(char c) {
+        this.sql.append(c);
+        return this;
+    }
+
+    /**
+     * 写入一个参数占位符 #{ew.values[n]}
+     * @param value 参数值
+     * @return this
+     */
+    public SqlRenderContext placeholder(Object value) {
+        this.sql.append("#{").append(Constants.WRAPPER).append(".values[").append(this.values.size()).append("]}");
+        this.values.add(value);
+        return this;
+    }
+
+    /**
+     * 取出缓冲区中的SQL并清空缓冲区，参数保留，用于按顺序渲染 SET / WHERE / HAVING 等多个片段
+     * @return 当前片段SQL
+     */
+    public String take() {
+        String fragment = this.sql.toString();
+        this.sql.setLength(0);
+        return fragment;
+    }
+
+    /**
+     * 写入已经渲染好的子SQL，子SQL的占位符从0开始，需要按当前参数位置重新编号
+     * <p>仅用于没有实现 {@link WrapperQuery#render(SqlRenderContext)} 的自定义Wrapper</p>
+     * @param sql 子SQL
+     * @param values 子SQL参数
+     * @return this
+     */
+    public SqlRenderContext appendRendered(String sql, List<Object> values) {
+        int offset = this.values.size();
+        int start = 0;
+        for (int i = 0; i < values.size(); i++) {
+            String src = "#{" + Constants.WRAPPER + ".values[" + i + "]}";
+            int index = sql.indexOf(src, start);
+            if (index < 0) {
+                break;
+            }
+            this.sql.append(sql, start, index)
+                    .append("#{").append(Constants.WRAPPER).append(".values[").append(offset + i).append("]}");
+            start = index + src.length();
+        }
+        this.sql.append(sql, start, sql.length());
+        this.values.addAll(values);
+        return this;
+    }
+
+}
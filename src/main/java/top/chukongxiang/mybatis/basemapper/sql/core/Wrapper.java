@@ -71,7 +71,7 @@ public interface Wrapper<T, E extends Wrapper<T, E, Column>, Column> extends Bas
      */
     E ge(boolean condition, Column column, Object value);
     default E ge(Column column, Object value) {
-        return gt(true, column, value);
+        return ge(true, column, value);
     }
 
     /**
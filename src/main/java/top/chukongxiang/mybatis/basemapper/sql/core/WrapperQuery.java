@@ -1,11 +1,14 @@
 package top.chukongxiang.mybatis.basemapper.sql.core;
 
+import cn.hutool.core.util.StrUtil;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.Accessors;
 import top.chukongxiang.mybatis.basemapper.providers.TableMetadata;
+import top.chukongxiang.mybatis.basemapper.utils.SqlUtil;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -112,6 +115,104 @@ public interface WrapperQuery<T, E extends Wrapper<T, E, Column>, Column> extend
         return last(true, sql);
     }
 
+    /**
+     * 分页，按数据库类型渲染为 LIMIT/OFFSET、OFFSET FETCH 或 ROWNUM，行数和偏移量作为参数绑定
+     * @param condition 条件
+     * @param offset 跳过的行数
+     * @param rows 返回的行数
+     * @return Wrapper
+     * @see Pagination
+     */
+    default E limit(boolean condition, long offset, long rows) {
+        if (condition) {
+            setLimit(new Limit(offset, rows));
+        }
+        return (E) this;
+    }
+    default E limit(long offset, long rows) {
+        return limit(true, offset, rows);
+    }
+    default E limit(long rows) {
+        return limit(true, 0, rows);
+    }
+
+    /**
+     * 分页条件
+     * @return 没有分页时为null
+     */
+    default Limit getLimit() {
+        return null;
+    }
+
+    /**
+     * 是否支持 {@link #setLimit(Limit)}
+     * @return 是否支持按数据库类型分页
+     */
+    default boolean supportsLimit() {
+        return false;
+    }
+
+    /**
+     * 修改分页条件，调用前先通过 {@link #supportsLimit()} 判断
+     * @param limit 分页条件，为null时取消分页
+     * @throws UnsupportedOperationException 不支持分页时
+     */
+    default void setLimit(Limit limit) {
+        throw new UnsupportedOperationException(getClass().getName() + " 不支持分页");
+    }
+
+    /**
+     * 游标分页条件
+     * @return 没有游标分页时为null
+     */
+    default Keyset getKeyset() {
+        return null;
+    }
+
+    /**
+     * 是否支持 {@link #setKeyset(Keyset)}
+     * @return 是否支持游标分页和临时替换排序
+     */
+    default boolean supportsKeyset() {
+        return false;
+    }
+
+    /**
+     * 修改游标分页条件，设置后按游标的排序替代Wrapper自身的排序，并在 where 后追加游标条件；调用前先通过 {@link #supportsKeyset()} 判断
+     * @param keyset 游标分页条件，为null时取消
+     * @throws UnsupportedOperationException 不支持游标分页时
+     * @see Keyset
+     */
+    default void setKeyset(Keyset keyset) {
+        throw new UnsupportedOperationException(getClass().getName() + " 不支持游标分页");
+    }
+
+    /**
+     * 临时替换的查询列
+     * @return 没有替换时为null
+     */
+    default List<String> getProjection() {
+        return null;
+    }
+
+    /**
+     * 当前是否可以 {@link #setProjection(List)}，DISTINCT、GROUP BY 查询替换查询列会改变结果，返回false
+     * @return 是否可以替换查询列
+     */
+    default boolean supportsProjection() {
+        return false;
+    }
+
+    /**
+     * 临时替换查询列(已包装)，设置后 {@link #getSqlSelect()} 和 {@link #getSelectColumns()} 返回这些列，
+     * 用于分页时先只查询主键；调用前先通过 {@link #supportsProjection()} 判断
+     * @param columns 查询列，为null时恢复
+     * @throws UnsupportedOperationException 不能替换查询列时
+     */
+    default void setProjection(List<String> columns) {
+        throw new UnsupportedOperationException(getClass().getName() + " 不支持替换查询列");
+    }
+
     /**
      * 修改表名
      * @param tableName
@@ -143,6 +244,39 @@ public interface WrapperQuery<T, E extends Wrapper<T, E, Column>, Column> extend
         return "*";
     }
 
+    /**
+     * 通过 select 指定的查询列(已包装)，没有指定时返回null
+     * @return 查询列
+     */
+    default List<String> getSelectColumns() {
+        return null;
+    }
+
+    /**
+     * 生成统计总数的SQL，参数与 {@link #build()} 的前几个参数一致
+     * <p>默认把完整查询作为子查询：SELECT COUNT(*) FROM (...) cnt；内置Wrapper没有 DISTINCT、GROUP BY、HAVING、last 和分页时
+     * 直接统计：SELECT COUNT(*) FROM table WHERE ...，不渲染查询列和排序</p>
+     * @return 统计SQL
+     */
+    default SQLInfo<T> buildCount() {
+        SQLInfo<T> sqlInfo = build();
+        return SQLInfo.<T>builder()
+                .entityClass(sqlInfo.getEntityClass())
+                .sql(StrUtil.format("SELECT COUNT(*) FROM ({}) cnt", SqlUtil.normalSql(sqlInfo.getSql())))
+                .values(sqlInfo.getValues())
+                .build();
+    }
+
+    /**
+     * 作为子查询渲染到上下文，参数直接追加到上下文的参数列表
+     * <p>默认实现先 build 再按参数位置重新编号，内置Wrapper直接渲染，不需要重新编号</p>
+     * @param ctx 渲染上下文
+     */
+    default void render(SqlRenderContext ctx) {
+        SQLInfo<T> sqlInfo = build();
+        ctx.appendRendered(sqlInfo.getSql(), sqlInfo.getValues() == null ? Collections.emptyList() : sqlInfo.getValues());
+    }
+
     @Data
     @Accessors(chain = true)
     @RequiredArgsConstructor
@@ -155,5 +289,11 @@ public interface WrapperQuery<T, E extends Wrapper<T, E, Column>, Column> extend
         }
     }
 
+    @Data
+    class Limit {
+        protected final long offset;
+        protected final long rows;
+    }
+
 
 }
@@ -0,0 +1,97 @@
+package top.chukongxiang.mybatis.basemapper.sql.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Wrapper 条件结构指纹，包含表名、列、条件类型、IN 元素个数、排序等决定SQL文本的部分，不包含参数值</p>
+ * <p>结构相同的 Wrapper 渲染出的SQL相同，可以作为动态SQL缓存的key</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-11-29 14:05:44
+ */
+public final class WrapperShape {
+
+    private final Object[] parts;
+
+    private final int hash;
+
+    private WrapperShape(Object[] parts) {
+        this.parts = parts;
+        this.hash = Arrays.hashCode(parts);
+    }
+
+    /**
+     * 只由一个对象决定的结构，例如编译好的模板
+     * @param identity 结构标识
+     * @return 指纹
+     */
+    public static WrapperShape of(Object identity) {
+        return new WrapperShape(new Object[] { identity });
+    }
+
+    public static Builder builder(Class<?> wrapperClass) {
+        return new Builder(wrapperClass);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WrapperShape)) {
+            return false;
+        }
+        WrapperShape that = (WrapperShape) o;
+        return hash == that.hash && Arrays.equals(parts, that.parts);
+    }
+
+    /**
+     * 按渲染顺序写入结构和参数，参数顺序与SQL中 #{ew.values[n]} 一致
+     */
+    public static final class Builder {
+
+        private final List<Object> parts = new ArrayList<>();
+
+        private final List<Object> values = new ArrayList<>();
+
+        private Builder(Class<?> wrapperClass) {
+            parts.add(wrapperClass);
+        }
+
+        /**
+         * 写入结构部分，只能是 String、枚举、Integer、Class 等有值语义的不可变对象
+         * @param part 结构
+         * @return this
+         */
+        public Builder part(Object part) {
+            parts.add(part);
+            return this;
+        }
+
+        /**
+         * 写入一个参数
+         * @param value 参数值
+         * @return this
+         */
+        public Builder value(Object value) {
+            values.add(value);
+            return this;
+        }
+
+        public List<Object> getValues() {
+            return values;
+        }
+
+        public WrapperShape build() {
+            return new WrapperShape(parts.toArray());
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package top.chukongxiang.mybatis.basemapper.utils;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.util.ReflectUtil;
+import cn.hutool.core.util.StrUtil;
+
+import java.lang.reflect.Method;
+import java.sql.Timestamp;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * <p>游标分页的游标编解码</p>
+ * <p>游标格式为 排序签名.值1.值2...，每个值按字段类型转为字符串后做URL安全的Base64编码，
+ * 解码时按字段类型还原，不使用Java序列化，客户端传入的游标只会被解析为字段类型的值</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-06 11:20:16
+ */
+public class CursorUtil {
+
+    private static final char SEPARATOR = '.';
+
+    /**
+     * 编码游标
+     * @param signature 排序签名，排序变化后旧游标不再可用
+     * @param values 排序列的值，不能为null
+     * @return 游标
+     */
+    public static String encode(String signature, List<Object> values) {
+        StringBuilder builder = new StringBuilder(signature);
+        for (Object value : values) {
+            builder.append(SEPARATOR).append(Base64.encodeUrlSafe(toStr(value)));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 解码游标
+     * @param cursor 游标
+     * @param signature 当前排序签名
+     * @param types 排序列的字段类型
+     * @return 排序列的值
+     * @throws IllegalArgumentException 游标格式错误或不属于当前排序
+     */
+    public static List<Object> decode(String cursor, String signature, List<Class<?>> types) {
+        List<String> parts = StrUtil.split(cursor, SEPARATOR);
+        if (parts.size() != types.size() + 1 || !signature.equals(parts.get(0))) {
+            throw new IllegalArgumentException("无效的游标: " + cursor);
+        }
+        List<Object> values = new ArrayList<>(types.size());
+        try {
+            for (int i = 0; i < types.size(); i++) {
+                values.add(fromStr(types.get(i), Base64.decodeStr(parts.get(i + 1))));
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的游标: " + cursor, e);
+        }
+        return values;
+    }
+
+    private static String toStr(Object value) {
+        if (value instanceof Timestamp) {
+            // 保留纳秒
+            return value.toString();
+        }
+        if (value instanceof Date) {
+            return String.valueOf(((Date) value).getTime());
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        return value.toString();
+    }
+
+    private static Object fromStr(Class<?> type, String str) {
+        if (Timestamp.class.isAssignableFrom(type)) {
+            return Timestamp.valueOf(str);
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            return Convert.convert(type, new Date(Long.parseLong(str)));
+        }
+        if (TemporalAccessor.class.isAssignableFrom(type)) {
+            // java.time 类型的 toString 都是 ISO 格式，可以直接 parse
+            Method parse = ReflectUtil.getPublicMethod(type, "parse", CharSequence.class);
+            if (parse != null) {
+                return ReflectUtil.invokeStatic(parse, str);
+            }
+        }
+        Object value = Convert.convert(type, str);
+        if (value == null) {
+            throw new IllegalArgumentException("无法转换为 " + type.getName() + ": " + str);
+        }
+        return value;
+    }
+
+}
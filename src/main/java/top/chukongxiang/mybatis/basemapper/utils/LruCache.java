@@ -0,0 +1,138 @@
+package top.chukongxiang.mybatis.basemapper.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <p>有容量上限的LRU缓存，带命中/未命中/淘汰计数</p>
+ * <p>用于按条件结构缓存动态SQL，这类key的数量取决于业务代码，不能像静态SQL一样无限缓存</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-11-29 14:26:03
+ */
+public class LruCache<K, V> {
+
+    private final LinkedHashMap<K, V> map;
+
+    private volatile int capacity;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    public LruCache(int capacity) {
+        this.capacity = capacity;
+        this.map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LruCache.this.capacity) {
+                    evictionCount.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存，不存在时生成并放入缓存
+     * <p>生成过程不加锁，并发未命中时可能重复生成，结果相同</p>
+     * @param key key
+     * @param supplier 生成方法
+     * @return 值
+     */
+    public V get(K key, Supplier<V> supplier) {
+        V value;
+        synchronized (map) {
+            value = map.get(key);
+        }
+        if (value != null) {
+            hitCount.increment();
+            return value;
+        }
+        missCount.increment();
+        value = supplier.get();
+        if (value != null) {
+            synchronized (map) {
+                map.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 获取缓存，不生成
+     * @param key key
+     * @return 值，不存在时为null
+     */
+    public V getIfPresent(K key) {
+        V value;
+        synchronized (map) {
+            value = map.get(key);
+        }
+        if (value != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        return value;
+    }
+
+    /**
+     * 放入缓存，已存在时覆盖
+     * @param key key
+     * @param value 值
+     */
+    public void put(K key, V value) {
+        synchronized (map) {
+            map.put(key, value);
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 修改容量，缩小后超出的部分在之后的写入中逐个淘汰
+     * @param capacity 容量
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "LruCache{size=" + size() + ", capacity=" + capacity + ", hit=" + getHitCount()
+                + ", miss=" + getMissCount() + ", eviction=" + getEvictionCount() + "}";
+    }
+
+}
@@ -0,0 +1,102 @@
+package top.chukongxiang.mybatis.basemapper;
+
+import lombok.Data;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableId;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableName;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * listByIds/removeByIds：分批和不分批时重复的主键都只处理一次
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-11 16:20:44
+ */
+class ChunkedIdsTest {
+
+    private static SqlSession session;
+
+    @BeforeAll
+    static void createTable() throws Exception {
+        UnpooledDataSource dataSource = new UnpooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:chunked_ids;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t_chunk_user(id BIGINT PRIMARY KEY, name VARCHAR(32))");
+            for (int i = 1; i <= 10; i++) {
+                statement.execute("INSERT INTO t_chunk_user VALUES(" + i + ", 'u" + i + "')");
+            }
+        }
+        Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.addMapper(ChunkUserMapper.class);
+        session = new SqlSessionFactoryBuilder().build(configuration).openSession(true);
+    }
+
+    @AfterAll
+    static void close() {
+        session.close();
+    }
+
+    @Test
+    void duplicateIdsAreQueriedOnceWithAndWithoutChunks() {
+        ChunkUserService service = new ChunkUserService(session.getMapper(ChunkUserMapper.class));
+        service.setInChunkSize(3);
+        // 去重后3个，不分批
+        List<Long> small = Arrays.asList(1L, 2L, 2L, 3L, 1L);
+        // 去重后5个，分批
+        List<Long> large = Arrays.asList(1L, 2L, 2L, 3L, 4L, 5L, 5L);
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(service.listByIds(small)));
+        assertEquals(Arrays.asList(1L, 2L, 3L), ids(service.listByIds(small.toArray(new Long[0]))));
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), ids(service.listByIds(large)));
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), ids(service.listByIds(large.toArray(new Long[0]))));
+    }
+
+    @Test
+    void duplicateIdsAreRemovedWithAndWithoutChunks() {
+        ChunkUserService service = new ChunkUserService(session.getMapper(ChunkUserMapper.class));
+        service.setInChunkSize(3);
+        assertTrue(service.removeByIds(6L, 6L, 7L, 6L));
+        assertTrue(service.removeByIds(Arrays.asList(8L, 8L, 9L, 10L, 10L, 11L)));
+        assertTrue(service.listByIds(6L, 7L, 8L, 9L, 10L).isEmpty());
+        assertFalse(service.removeByIds(Arrays.asList(6L, 6L)));
+    }
+
+    private static List<Long> ids(List<ChunkUser> users) {
+        return users.stream().map(ChunkUser::getId).sorted().collect(Collectors.toList());
+    }
+
+    @Data
+    @TableName("t_chunk_user")
+    public static class ChunkUser {
+
+        @TableId
+        private Long id;
+
+        private String name;
+    }
+
+    public interface ChunkUserMapper extends BaseMapper<ChunkUser> {
+    }
+
+    static class ChunkUserService extends ServiceImpl<ChunkUserMapper, ChunkUser> {
+        ChunkUserService(ChunkUserMapper mapper) {
+            this.baseMapper = mapper;
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+package top.chukongxiang.mybatis.basemapper;
+
+import lombok.Data;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableId;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableName;
+import top.chukongxiang.mybatis.basemapper.model.page.CursorPage;
+import top.chukongxiang.mybatis.basemapper.providers.DatabaseColumns;
+import top.chukongxiang.mybatis.basemapper.sql.PreparedWrapper;
+import top.chukongxiang.mybatis.basemapper.sql.WrapperTemplate;
+import top.chukongxiang.mybatis.basemapper.sql.Wrappers;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 游标分页：排序值大量重复时逐页读取不跳过、不重复；没有主键、可以为null的排序列在查询前拒绝
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-11 10:12:40
+ */
+class CursorPageTest {
+
+    private static SqlSession session;
+
+    @BeforeAll
+    static void createTable() throws Exception {
+        UnpooledDataSource dataSource = new UnpooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:cursor_page;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t_cursor_user(id BIGINT PRIMARY KEY, score INT NOT NULL, age INT)");
+            for (int i = 1; i <= 23; i++) {
+                // score 只有 3 个值，age 有null
+                statement.execute("INSERT INTO t_cursor_user VALUES(" + i + ", " + (i % 3) + ", " + (i % 5 == 0 ? "NULL" : String.valueOf(i)) + ")");
+            }
+        }
+        Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.addMapper(CursorUserMapper.class);
+        configuration.addMapper(UncheckedUserMapper.class);
+        configuration.addMapper(NoIdUserMapper.class);
+        // 只有 CursorUser 读取列信息，UncheckedUser 相当于 DatabaseColumns 关闭
+        DatabaseColumns.register(CursorUserMapper.class, configuration);
+        session = new SqlSessionFactoryBuilder().build(configuration).openSession(true);
+    }
+
+    @AfterAll
+    static void close() {
+        session.close();
+    }
+
+    @Test
+    void duplicateSortValuesArePagedExactlyOnce() {
+        CursorUserService service = new CursorUserService(session.getMapper(CursorUserMapper.class));
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<CursorUser> page = service.pageByCursor(Wrappers.lambdaQuery(CursorUser.class).orderByDesc(CursorUser::getScore), cursor, 4);
+            page.getRecords().forEach(user -> ids.add(user.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        // score 降序，相同 score 按主键降序
+        List<Long> expected = new ArrayList<>();
+        for (int score = 2; score >= 0; score--) {
+            for (long id = 23; id >= 1; id--) {
+                if (id % 3 == score) {
+                    expected.add(id);
+                }
+            }
+        }
+        assertEquals(expected, ids);
+    }
+
+    @Test
+    void nullableSortColumnIsRejectedBeforeQuery() {
+        CursorUserService service = new CursorUserService(session.getMapper(CursorUserMapper.class));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service.pageByCursor(Wrappers.lambdaQuery(CursorUser.class).orderByAsc(CursorUser::getAge), null, 4));
+        assertTrue(e.getMessage().contains("age"), e.getMessage());
+    }
+
+    @Test
+    void sortColumnWithoutMetadataFallsBackToFieldType() {
+        UncheckedUserService service = new UncheckedUserService(session.getMapper(UncheckedUserMapper.class));
+        assertNull(DatabaseColumns.getColumnType(UncheckedUser.class, "score"));
+        CursorPage<UncheckedUser> page = service.pageByCursor(Wrappers.lambdaQuery(UncheckedUser.class).orderByAsc(UncheckedUser::getScore), null, 4);
+        assertEquals(4, page.getRecords().size());
+        assertNotNull(page.getNextCursor());
+        assertEquals(4, service.pageByCursor(Wrappers.lambdaQuery(UncheckedUser.class).orderByAsc(UncheckedUser::getScore), page.getNextCursor(), 4).getRecords().size());
+    }
+
+    @Test
+    void entityWithoutIdIsRejected() {
+        NoIdUserService service = new NoIdUserService(session.getMapper(NoIdUserMapper.class));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service.pageByCursor(Wrappers.lambdaQuery(NoIdUser.class).orderByAsc(NoIdUser::getScore), null, 4));
+        assertTrue(e.getMessage().contains("主键"), e.getMessage());
+    }
+
+    @Test
+    void wrapperWithoutKeysetSupportIsRejected() {
+        CursorUserService service = new CursorUserService(session.getMapper(CursorUserMapper.class));
+        PreparedWrapper<CursorUser> prepared = WrapperTemplate.compile(Wrappers.query(CursorUser.class)
+                .ge("score", WrapperTemplate.param(0)).orderByAsc("score")).bind(1);
+        assertTrue(prepared.supportsLimit());
+        assertFalse(prepared.supportsKeyset());
+        assertThrows(IllegalArgumentException.class, () -> service.pageByCursor(prepared, null, 4));
+    }
+
+    @Data
+    @TableName("t_cursor_user")
+    public static class CursorUser {
+
+        @TableId
+        private Long id;
+
+        private Integer score;
+
+        private Integer age;
+    }
+
+    @Data
+    @TableName("t_cursor_user")
+    public static class UncheckedUser {
+
+        @TableId
+        private Long id;
+
+        private Integer score;
+    }
+
+    @Data
+    @TableName("t_cursor_user")
+    public static class NoIdUser {
+
+        private Long id;
+
+        private Integer score;
+    }
+
+    public interface CursorUserMapper extends BaseMapper<CursorUser> {
+    }
+
+    public interface UncheckedUserMapper extends BaseMapper<UncheckedUser> {
+    }
+
+    public interface NoIdUserMapper extends BaseMapper<NoIdUser> {
+    }
+
+    static class CursorUserService extends ServiceImpl<CursorUserMapper, CursorUser> {
+        CursorUserService(CursorUserMapper mapper) {
+            this.baseMapper = mapper;
+        }
+    }
+
+    static class UncheckedUserService extends ServiceImpl<UncheckedUserMapper, UncheckedUser> {
+        UncheckedUserService(UncheckedUserMapper mapper) {
+            this.baseMapper = mapper;
+        }
+    }
+
+    static class NoIdUserService extends ServiceImpl<NoIdUserMapper, NoIdUser> {
+        NoIdUserService(NoIdUserMapper mapper) {
+            this.baseMapper = mapper;
+        }
+    }
+
+}
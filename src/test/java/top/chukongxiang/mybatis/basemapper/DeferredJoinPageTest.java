@@ -0,0 +1,131 @@
+package top.chukongxiang.mybatis.basemapper;
+
+import com.github.pagehelper.PageInterceptor;
+import lombok.Data;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableId;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableName;
+import top.chukongxiang.mybatis.basemapper.model.page.IPage;
+import top.chukongxiang.mybatis.basemapper.model.page.Page;
+import top.chukongxiang.mybatis.basemapper.sql.QueryWrapper;
+import top.chukongxiang.mybatis.basemapper.sql.Wrappers;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 延迟关联分页：与普通分页返回相同的行和列，Wrapper的查询列在第二步查询中保留
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-11 15:36:08
+ */
+class DeferredJoinPageTest {
+
+    private static SqlSession session;
+
+    @BeforeAll
+    static void createTable() throws Exception {
+        UnpooledDataSource dataSource = new UnpooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:deferred_join_page;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t_deferred_user(id BIGINT PRIMARY KEY, name VARCHAR(32), score INT NOT NULL)");
+            for (int i = 1; i <= 30; i++) {
+                statement.execute("INSERT INTO t_deferred_user VALUES(" + i + ", 'u" + i + "', " + (i * 7 % 11) + ")");
+            }
+        }
+        Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        PageInterceptor pageInterceptor = new PageInterceptor();
+        Properties properties = new Properties();
+        properties.setProperty("helperDialect", "h2");
+        pageInterceptor.setProperties(properties);
+        configuration.addInterceptor(pageInterceptor);
+        configuration.addMapper(DeferredUserMapper.class);
+        session = new SqlSessionFactoryBuilder().build(configuration).openSession(true);
+    }
+
+    @AfterAll
+    static void close() {
+        session.close();
+    }
+
+    @Test
+    void selectColumnsAreKeptInTheSecondQuery() {
+        DeferredUserService service = new DeferredUserService(session.getMapper(DeferredUserMapper.class));
+        QueryWrapper<DeferredUser> wrapper = Wrappers.query(DeferredUser.class).select("id", "name").orderByDesc("score").orderByAsc("id");
+        List<DeferredUser> expected = service.page(new Page<DeferredUser>().setCurrent(3).setSize(5), wrapper).getRecords();
+
+        service.setDeferredJoinThreshold(5);
+        IPage<DeferredUser> page = service.page(new Page<DeferredUser>().setCurrent(3).setSize(5), wrapper);
+        assertEquals(expected, page.getRecords());
+        assertEquals(5, page.getRecords().size());
+        page.getRecords().forEach(user -> {
+            assertNotNull(user.getName());
+            assertNull(user.getScore());
+        });
+        assertEquals(30, page.getTotal());
+        // 查询列在分页后恢复
+        assertEquals(expected, service.list(wrapper).subList(10, 15));
+    }
+
+    @Test
+    void allColumnsAreLoadedWithoutSelect() {
+        DeferredUserService service = new DeferredUserService(session.getMapper(DeferredUserMapper.class));
+        QueryWrapper<DeferredUser> wrapper = Wrappers.query(DeferredUser.class).orderByDesc("score").orderByAsc("id");
+        List<DeferredUser> expected = service.page(new Page<DeferredUser>().setCurrent(4).setSize(5), wrapper).getRecords();
+
+        service.setDeferredJoinThreshold(5);
+        List<DeferredUser> records = service.page(new Page<DeferredUser>().setCurrent(4).setSize(5), wrapper).getRecords();
+        assertEquals(expected, records);
+        records.forEach(user -> assertNotNull(user.getScore()));
+    }
+
+    @Test
+    void selectWithoutIdIsNotDeferred() {
+        DeferredUserService service = new DeferredUserService(session.getMapper(DeferredUserMapper.class));
+        QueryWrapper<DeferredUser> wrapper = Wrappers.query(DeferredUser.class).select("name").orderByAsc("id");
+        List<DeferredUser> expected = service.page(new Page<DeferredUser>().setCurrent(2).setSize(5), wrapper).getRecords();
+
+        service.setDeferredJoinThreshold(5);
+        List<DeferredUser> records = service.page(new Page<DeferredUser>().setCurrent(2).setSize(5), wrapper).getRecords();
+        assertEquals(expected, records);
+        records.forEach(user -> {
+            assertNull(user.getId());
+            assertNotNull(user.getName());
+        });
+    }
+
+    @Data
+    @TableName("t_deferred_user")
+    public static class DeferredUser {
+
+        @TableId
+        private Long id;
+
+        private String name;
+
+        private Integer score;
+    }
+
+    public interface DeferredUserMapper extends BaseMapper<DeferredUser> {
+    }
+
+    static class DeferredUserService extends ServiceImpl<DeferredUserMapper, DeferredUser> {
+        DeferredUserService(DeferredUserMapper mapper) {
+            this.baseMapper = mapper;
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package top.chukongxiang.mybatis.basemapper.interceptor;
+
+import lombok.Data;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.chukongxiang.mybatis.basemapper.BaseMapper;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableId;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableName;
+import top.chukongxiang.mybatis.basemapper.sql.Wrappers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 开启缓存后 count → insert → count：事务内读到自己的写入，提交或回滚后其他会话读到最新结果；
+ * 获取自动提交状态失败时不覆盖写入本身的异常
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-11 20:12:35
+ */
+class CountInterceptorTest {
+
+    /**
+     * 为 true 时连接的 getAutoCommit 抛出异常
+     */
+    private static final AtomicBoolean BROKEN_AUTO_COMMIT = new AtomicBoolean();
+
+    private static SqlSessionFactory factory;
+
+    @BeforeAll
+    static void createFactory() throws Exception {
+        UnpooledDataSource h2 = new UnpooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:count_interceptor;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = h2.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t_cached_user(id BIGINT PRIMARY KEY, name VARCHAR(32))");
+        }
+        CountInterceptor interceptor = new CountInterceptor();
+        interceptor.setTtl(60_000);
+        Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), brokenAutoCommit(h2)));
+        configuration.addInterceptor(interceptor);
+        configuration.addMapper(CachedUserMapper.class);
+        factory = new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    @BeforeEach
+    void reset() {
+        BROKEN_AUTO_COMMIT.set(false);
+        try (SqlSession session = factory.openSession(true)) {
+            session.getMapper(CachedUserMapper.class).delete(Wrappers.query(CachedUser.class));
+            session.getMapper(CachedUserMapper.class).insert(user(1L));
+        }
+    }
+
+    @Test
+    void autoCommit() {
+        try (SqlSession session = factory.openSession(true)) {
+            CachedUserMapper mapper = session.getMapper(CachedUserMapper.class);
+            assertEquals(1, count(mapper));
+            mapper.insert(user(2L));
+            assertEquals(2, count(mapper));
+        }
+        assertEquals(2, count());
+    }
+
+    @Test
+    void insideTransactionAndAfterCommit() {
+        try (SqlSession session = factory.openSession(false)) {
+            CachedUserMapper mapper = session.getMapper(CachedUserMapper.class);
+            assertEquals(1, count(mapper));
+            mapper.insert(user(2L));
+            // 事务内读到未提交的写入
+            assertEquals(2, count(mapper));
+            assertEquals(2, count(mapper));
+            // 其他会话读不到未提交的写入，缓存了旧结果
+            assertEquals(1, count());
+            assertEquals(1, count());
+            // 有未提交写入的会话不读缓存
+            assertEquals(2, count(mapper));
+            // 提交后清空其他会话缓存的旧结果
+            session.commit();
+            assertEquals(2, count(mapper));
+        }
+        assertEquals(2, count());
+    }
+
+    @Test
+    void afterRollback() {
+        try (SqlSession session = factory.openSession(false)) {
+            CachedUserMapper mapper = session.getMapper(CachedUserMapper.class);
+            mapper.insert(user(2L));
+            assertEquals(2, count(mapper));
+            session.rollback();
+            assertEquals(1, count(mapper));
+        }
+        assertEquals(1, count());
+    }
+
+    @Test
+    void autoCommitFailureDoesNotHideWriteFailure() {
+        try (SqlSession session = factory.openSession(false)) {
+            CachedUserMapper mapper = session.getMapper(CachedUserMapper.class);
+            assertEquals(1, count(mapper));
+            BROKEN_AUTO_COMMIT.set(true);
+            // 主键重复，抛出的是写入本身的异常
+            PersistenceException e = assertThrows(PersistenceException.class, () -> mapper.insert(user(1L)));
+            assertTrue(e.getMessage().contains("PRIMARY KEY"), e.getMessage());
+            // 无法判断是否自动提交时按未提交处理，其他会话缓存旧结果后仍读到自己的写入
+            mapper.insert(user(2L));
+            BROKEN_AUTO_COMMIT.set(false);
+            assertEquals(1, count());
+            assertEquals(2, count(mapper));
+            session.commit();
+        }
+        assertEquals(2, count());
+    }
+
+    private static int count() {
+        try (SqlSession session = factory.openSession(true)) {
+            return count(session.getMapper(CachedUserMapper.class));
+        }
+    }
+
+    private static int count(CachedUserMapper mapper) {
+        return mapper.count(Wrappers.query(CachedUser.class));
+    }
+
+    private static CachedUser user(Long id) {
+        CachedUser user = new CachedUser();
+        user.setId(id);
+        user.setName("u" + id);
+        return user;
+    }
+
+    /**
+     * 连接的 getAutoCommit 在 {@link #BROKEN_AUTO_COMMIT} 为 true 时抛出异常
+     */
+    private static DataSource brokenAutoCommit(UnpooledDataSource dataSource) {
+        return (DataSource) Proxy.newProxyInstance(CountInterceptorTest.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(dataSource, method, args);
+                    if (!(result instanceof Connection)) {
+                        return result;
+                    }
+                    Connection connection = (Connection) result;
+                    return Proxy.newProxyInstance(CountInterceptorTest.class.getClassLoader(), new Class<?>[]{Connection.class},
+                            (p, m, a) -> {
+                                if ("getAutoCommit".equals(m.getName()) && BROKEN_AUTO_COMMIT.get()) {
+                                    throw new SQLException("getAutoCommit failed");
+                                }
+                                return invoke(connection, m, a);
+                            });
+                });
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @Data
+    @TableName("t_cached_user")
+    public static class CachedUser {
+
+        @TableId
+        private Long id;
+
+        private String name;
+    }
+
+    public interface CachedUserMapper extends BaseMapper<CachedUser> {
+    }
+
+}
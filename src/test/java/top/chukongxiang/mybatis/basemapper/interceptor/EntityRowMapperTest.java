@@ -0,0 +1,198 @@
+package top.chukongxiang.mybatis.basemapper.interceptor;
+
+import lombok.Data;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import top.chukongxiang.mybatis.basemapper.BaseMapper;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableId;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableName;
+import top.chukongxiang.mybatis.basemapper.sql.Wrappers;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link EntityRowMapper} 与 mybatis 映射结果一致：null、基本类型、TypeHandler 列、部分列查询
+ * <p>对照组为不使用 {@link ResultMapInterceptor} 的自动映射，以及 fastMapping=false 时由 DefaultResultSetHandler 按生成的 ResultMap 映射</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-11 17:05:12
+ */
+class EntityRowMapperTest {
+
+    private static UnpooledDataSource dataSource;
+
+    @BeforeAll
+    static void createTable() throws Exception {
+        dataSource = new UnpooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:entity_row_mapper;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t_mapped_row(id BIGINT PRIMARY KEY, remark VARCHAR(32), age INT, score DOUBLE, "
+                    + "active BOOLEAN, amount DECIMAL(10, 2), created TIMESTAMP, status VARCHAR(16), tags VARCHAR(64))");
+            statement.execute("INSERT INTO t_mapped_row VALUES(1, 'r1', 18, 1.5, TRUE, 12.30, '2024-12-11 10:00:00', 'ENABLED', 'a,b')");
+            // 除主键外全部为null
+            statement.execute("INSERT INTO t_mapped_row(id) VALUES(2)");
+            // 基本类型列为null，其他列有值
+            statement.execute("INSERT INTO t_mapped_row VALUES(3, 'r3', NULL, NULL, NULL, 0.00, NULL, 'DISABLED', '')");
+        }
+    }
+
+    @Test
+    void allColumnsMatchMybatisMapping() {
+        for (boolean callSettersOnNulls : new boolean[]{false, true}) {
+            List<MappedRow> expected = query(Mapping.MYBATIS, callSettersOnNulls, MappedRowMapper::selectAll);
+            assertEquals(3, expected.size());
+            assertEquals(expected, query(Mapping.RESULT_MAP, callSettersOnNulls, MappedRowMapper::selectAll));
+            assertEquals(expected, query(Mapping.FAST, callSettersOnNulls, MappedRowMapper::selectAll));
+        }
+    }
+
+    @Test
+    void nullColumnsAndPrimitivesMatchMybatisMapping() {
+        MappedRow empty = query(Mapping.FAST, false, mapper -> mapper.selectById(2L));
+        assertEquals(query(Mapping.MYBATIS, false, mapper -> mapper.selectById(2L)), empty);
+        // null 不调用 setter，保留字段初始值
+        assertEquals("unset", empty.getRemark());
+        assertEquals(-1, empty.getAge());
+        assertFalse(empty.isActive());
+
+        MappedRow nulls = query(Mapping.FAST, true, mapper -> mapper.selectById(2L));
+        assertEquals(query(Mapping.MYBATIS, true, mapper -> mapper.selectById(2L)), nulls);
+        // callSettersOnNulls 时包装类型赋值为null，基本类型仍保留初始值
+        assertNull(nulls.getRemark());
+        assertEquals(-1, nulls.getAge());
+    }
+
+    @Test
+    void typeHandlerColumnsMatchMybatisMapping() {
+        MappedRow row = query(Mapping.FAST, false, mapper -> mapper.selectById(1L));
+        assertEquals(query(Mapping.MYBATIS, false, mapper -> mapper.selectById(1L)), row);
+        assertEquals(Arrays.asList("a", "b"), row.getTags().getValues());
+        assertEquals(Status.ENABLED, row.getStatus());
+        assertEquals(LocalDateTime.of(2024, 12, 11, 10, 0), row.getCreated());
+        assertEquals(new BigDecimal("12.30"), row.getAmount());
+        assertTrue(row.isActive());
+    }
+
+    @Test
+    void projectionMatchesMybatisMapping() {
+        for (boolean callSettersOnNulls : new boolean[]{false, true}) {
+            Function<MappedRowMapper, List<MappedRow>> select = mapper -> mapper.selectList(
+                    Wrappers.query(MappedRow.class).select("remark", "age", "tags").orderByAsc("id"));
+            List<MappedRow> expected = query(Mapping.MYBATIS, callSettersOnNulls, select);
+            // 查询的列全部为null的行为null
+            assertNull(expected.get(1));
+            assertEquals(expected, query(Mapping.RESULT_MAP, callSettersOnNulls, select));
+            assertEquals(expected, query(Mapping.FAST, callSettersOnNulls, select));
+        }
+    }
+
+    private static <R> R query(Mapping mapping, boolean callSettersOnNulls, Function<MappedRowMapper, R> query) {
+        Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.setCallSettersOnNulls(callSettersOnNulls);
+        configuration.getTypeHandlerRegistry().register(Tags.class, TagsTypeHandler.class);
+        if (mapping != Mapping.MYBATIS) {
+            ResultMapInterceptor interceptor = new ResultMapInterceptor();
+            interceptor.setFastMapping(mapping == Mapping.FAST);
+            configuration.addInterceptor(interceptor);
+        }
+        configuration.addMapper(MappedRowMapper.class);
+        try (SqlSession session = new SqlSessionFactoryBuilder().build(configuration).openSession(true)) {
+            return query.apply(session.getMapper(MappedRowMapper.class));
+        }
+    }
+
+    private enum Mapping {
+        /**
+         * 不使用拦截器，mybatis 自动映射
+         */
+        MYBATIS,
+        /**
+         * 生成的 ResultMap，由 DefaultResultSetHandler 映射
+         */
+        RESULT_MAP,
+        /**
+         * 生成的 ResultMap，由 EntityRowMapper 映射
+         */
+        FAST
+    }
+
+    public enum Status {
+        ENABLED, DISABLED
+    }
+
+    @Data
+    public static class Tags {
+
+        private final List<String> values;
+    }
+
+    public static class TagsTypeHandler extends BaseTypeHandler<Tags> {
+
+        @Override
+        public void setNonNullParameter(PreparedStatement ps, int i, Tags parameter, JdbcType jdbcType) throws SQLException {
+            ps.setString(i, String.join(",", parameter.getValues()));
+        }
+
+        @Override
+        public Tags getNullableResult(ResultSet rs, String columnName) throws SQLException {
+            return tags(rs.getString(columnName));
+        }
+
+        @Override
+        public Tags getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+            return tags(rs.getString(columnIndex));
+        }
+
+        @Override
+        public Tags getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+            return tags(cs.getString(columnIndex));
+        }
+
+        private static Tags tags(String value) {
+            return value == null ? null : new Tags(value.isEmpty() ? Arrays.asList() : Arrays.asList(value.split(",")));
+        }
+    }
+
+    @Data
+    @TableName("t_mapped_row")
+    public static class MappedRow {
+
+        @TableId
+        private Long id;
+
+        private String remark = "unset";
+
+        private int age = -1;
+
+        private Double score;
+
+        private boolean active;
+
+        private BigDecimal amount;
+
+        private LocalDateTime created;
+
+        private Status status;
+
+        private Tags tags;
+    }
+
+    public interface MappedRowMapper extends BaseMapper<MappedRow> {
+    }
+
+}
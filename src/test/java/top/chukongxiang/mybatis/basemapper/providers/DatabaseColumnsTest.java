@@ -0,0 +1,177 @@
+package top.chukongxiang.mybatis.basemapper.providers;
+
+import lombok.Data;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import top.chukongxiang.mybatis.basemapper.BaseMapper;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableId;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableName;
+import top.chukongxiang.mybatis.basemapper.sql.PreparedWrapper;
+import top.chukongxiang.mybatis.basemapper.sql.WrapperTemplate;
+import top.chukongxiang.mybatis.basemapper.sql.Wrappers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 读取列类型后按列类型转换 Wrapper 和 WrapperTemplate 的参数；注册 Mapper 时不访问数据库，第一次使用时读取
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-10 18:15:09
+ */
+class DatabaseColumnsTest {
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    private static UnpooledDataSource dataSource;
+
+    @BeforeAll
+    static void registerMapper() throws Exception {
+        dataSource = new UnpooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:database_columns;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t_typed_user(id BIGINT PRIMARY KEY, user_name VARCHAR(64), age INT)");
+            statement.execute("INSERT INTO t_typed_user VALUES(1, '10', 18)");
+            statement.execute("INSERT INTO t_typed_user VALUES(2, '20', 20)");
+            statement.execute("CREATE TABLE t_lazy_user(id BIGINT PRIMARY KEY, age INT)");
+        }
+        Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.addMapper(TypedUserMapper.class);
+        // 与 AbstractMapperProvider#invoke 中注册 Mapper 时相同，只登记数据源
+        DatabaseColumns.register(TypedUserMapper.class, configuration);
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    @Test
+    void wrapperValuesAreCoercedByColumn() {
+        assertNotNull(DatabaseColumns.getColumnType(TypedUser.class, "age"));
+        assertEquals(Arrays.asList(18, "10"),
+                Wrappers.query(TypedUser.class).eq("age", "18").eq("userName", 10).build().getValues());
+    }
+
+    @Test
+    void registerDoesNotTouchTheDatabase() {
+        AtomicInteger connections = new AtomicInteger();
+        DatabaseColumns.register(LazyUserMapper.class, configuration(counting(dataSource, connections)));
+        assertEquals(0, connections.get());
+
+        assertEquals(Collections.singletonList(18), Wrappers.query(LazyUser.class).eq("age", "18").build().getValues());
+        assertEquals(Collections.singletonList(19), Wrappers.query(LazyUser.class).eq("age", "19").build().getValues());
+        assertEquals(1, connections.get());
+    }
+
+    @Test
+    void runtimeFailureFromThePoolIsNotPropagated() {
+        DataSource broken = (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    throw new IllegalStateException("pool is not initialized");
+                });
+        DatabaseColumns.register(BrokenUserMapper.class, configuration(broken));
+        assertEquals(Collections.singletonList("18"), Wrappers.query(BrokenUser.class).eq("age", "18").build().getValues());
+        assertNull(DatabaseColumns.getColumnType(BrokenUser.class, "age"));
+    }
+
+    @Test
+    void updateSetValuesAreCoercedByColumn() {
+        assertEquals(Arrays.asList(21, "30", 1L),
+                Wrappers.update(TypedUser.class).set("age", "21").set("userName", 30).eq("id", "1").build().getValues());
+        assertEquals(Collections.singletonList("1000"),
+                Wrappers.query(TypedUser.class).eq("userName", new BigDecimal("1E+3")).build().getValues());
+    }
+
+    @Test
+    void nullableIsReadFromMetadata() {
+        assertFalse(DatabaseColumns.getColumnType(TypedUser.class, "id").isNullable());
+        assertTrue(DatabaseColumns.getColumnType(TypedUser.class, "`age`").isNullable());
+    }
+
+    @Test
+    void templateParamsAreCoercedByColumn() {
+        WrapperTemplate<TypedUser> template = WrapperTemplate.compile(Wrappers.query(TypedUser.class)
+                .in("id", WrapperTemplate.param(0), WrapperTemplate.param(1))
+                .between("age", WrapperTemplate.param(2), WrapperTemplate.param(3))
+                .eq("userName", WrapperTemplate.param(4)));
+        PreparedWrapper<TypedUser> wrapper = template.bind("1", "2", "18", 19L, 10);
+        assertEquals(Arrays.asList(1L, 2L, 18, 19L, "10"), wrapper.build().getValues());
+
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            TypedUserMapper mapper = session.getMapper(TypedUserMapper.class);
+            assertEquals(1, mapper.selectList(template.bind("1", "2", "18", "19", 10)).size());
+        }
+    }
+
+    @Data
+    @TableName("t_typed_user")
+    public static class TypedUser {
+
+        @TableId
+        private Long id;
+
+        private String userName;
+
+        private Integer age;
+    }
+
+    public interface TypedUserMapper extends BaseMapper<TypedUser> {
+    }
+
+    @Data
+    @TableName("t_lazy_user")
+    public static class LazyUser {
+
+        @TableId
+        private Long id;
+
+        private Integer age;
+    }
+
+    public interface LazyUserMapper extends BaseMapper<LazyUser> {
+    }
+
+    @Data
+    @TableName("t_broken_user")
+    public static class BrokenUser {
+
+        @TableId
+        private Long id;
+
+        private Integer age;
+    }
+
+    public interface BrokenUserMapper extends BaseMapper<BrokenUser> {
+    }
+
+    private static Configuration configuration(DataSource dataSource) {
+        return new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+    }
+
+    /**
+     * 统计 getConnection 次数的数据源
+     */
+    private static DataSource counting(DataSource dataSource, AtomicInteger connections) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    if ("getConnection".equals(method.getName())) {
+                        connections.incrementAndGet();
+                    }
+                    return method.invoke(dataSource, args);
+                });
+    }
+
+}
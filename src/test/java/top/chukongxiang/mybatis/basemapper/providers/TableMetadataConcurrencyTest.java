@@ -0,0 +1,179 @@
+package top.chukongxiang.mybatis.basemapper.providers;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableId;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableName;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多线程并发调用 {@link TableMetadata#forClass(Class)}，实体类在运行时生成，每个实体第一次查询时都在竞争中构造
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-10 09:36:52
+ */
+class TableMetadataConcurrencyTest {
+
+    private static final int ENTITY_COUNT = 400;
+
+    private static final int THREAD_COUNT = 32;
+
+    private static final int ROUNDS = 20;
+
+    /**
+     * 带 @TableName 的实体
+     */
+    private static final List<Class<?>> ENTITIES = new ArrayList<>();
+
+    /**
+     * 实体的子类，没有 @TableName，需要向上查找实体
+     */
+    private static final List<Class<?>> SUB_CLASSES = new ArrayList<>();
+
+    @BeforeAll
+    static void generateEntities() {
+        EntityClassLoader loader = new EntityClassLoader(TableMetadataConcurrencyTest.class.getClassLoader());
+        for (int i = 0; i < ENTITY_COUNT; i++) {
+            String entityName = "top/chukongxiang/mybatis/basemapper/generated/Entity" + i;
+            ENTITIES.add(loader.define(entityName, entity(entityName, "t_entity_" + i, i % 8 + 1)));
+            String subName = entityName + "Query";
+            SUB_CLASSES.add(loader.define(subName, subClass(subName, entityName)));
+        }
+    }
+
+    @Test
+    void forClassPublishesOneSnapshotPerEntity() throws Exception {
+        Map<Class<?>, TableMetadata<?>> seen = new ConcurrentHashMap<>();
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            for (int t = 0; t < THREAD_COUNT; t++) {
+                long seed = t;
+                pool.execute(() -> {
+                    List<Integer> order = new ArrayList<>();
+                    for (int i = 0; i < ENTITY_COUNT; i++) {
+                        order.add(i);
+                    }
+                    Random random = new Random(seed);
+                    try {
+                        start.await();
+                        for (int round = 0; round < ROUNDS; round++) {
+                            Collections.shuffle(order, random);
+                            for (int i : order) {
+                                // 一半线程先查子类，让实体和子类的第一次查询交错
+                                Class<?> first = seed % 2 == 0 ? ENTITIES.get(i) : SUB_CLASSES.get(i);
+                                Class<?> second = seed % 2 == 0 ? SUB_CLASSES.get(i) : ENTITIES.get(i);
+                                check(seen, i, TableMetadata.forClass(first));
+                                check(seen, i, TableMetadata.forClass(second));
+                            }
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                });
+            }
+            start.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES), "stress test timed out");
+        } finally {
+            pool.shutdownNow();
+        }
+        if (!errors.isEmpty()) {
+            AssertionError error = new AssertionError(errors.size() + " threads failed");
+            errors.forEach(error::addSuppressed);
+            throw error;
+        }
+        assertEquals(ENTITY_COUNT, seen.size());
+    }
+
+    /**
+     * 同一个实体和它的子类只能得到同一个元数据实例，且内容完整
+     */
+    private static void check(Map<Class<?>, TableMetadata<?>> seen, int index, TableMetadata<?> metadata) {
+        Class<?> entity = ENTITIES.get(index);
+        TableMetadata<?> previous = seen.putIfAbsent(entity, metadata);
+        assertSame(previous == null ? metadata : previous, metadata, entity.getName());
+        assertSame(entity, metadata.getEntityClass());
+        assertEquals(TableMetadata.autoWrap("t_entity_" + index), metadata.getTableName());
+        assertEquals(index % 8 + 2, metadata.getColumns().size());
+        assertEquals(1, metadata.getIdFields().size());
+        assertNotNull(metadata.lookupColumn("column" + (index % 8)));
+    }
+
+    /**
+     * <pre>
+     * &#64;TableName(tableName)
+     * public class Entity {
+     *     &#64;TableId private Long id;
+     *     private String column0; ... private String column(n-1);
+     * }
+     * </pre>
+     */
+    private static byte[] entity(String internalName, String tableName, int columnCount) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, internalName, null, "java/lang/Object", null);
+        AnnotationVisitor table = writer.visitAnnotation(Type.getDescriptor(TableName.class), true);
+        table.visit("value", tableName);
+        table.visitEnd();
+
+        FieldVisitor id = writer.visitField(Opcodes.ACC_PRIVATE, "id", Type.getDescriptor(Long.class), null, null);
+        id.visitAnnotation(Type.getDescriptor(TableId.class), true).visitEnd();
+        id.visitEnd();
+        for (int i = 0; i < columnCount; i++) {
+            writer.visitField(Opcodes.ACC_PRIVATE, "column" + i, Type.getDescriptor(String.class), null, null).visitEnd();
+        }
+        constructor(writer, "java/lang/Object");
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static byte[] subClass(String internalName, String superName) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, internalName, null, superName, null);
+        constructor(writer, superName);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static void constructor(ClassWriter writer, String superName) {
+        MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, superName, "<init>", "()V", false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+    }
+
+    private static final class EntityClassLoader extends ClassLoader {
+
+        private EntityClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        private Class<?> define(String internalName, byte[] bytes) {
+            return defineClass(internalName.replace('/', '.'), bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package top.chukongxiang.mybatis.basemapper.sql;
+
+import com.github.pagehelper.PageInterceptor;
+import lombok.Data;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.session.*;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import top.chukongxiang.mybatis.basemapper.BaseMapper;
+import top.chukongxiang.mybatis.basemapper.ServiceImpl;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableId;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableName;
+import top.chukongxiang.mybatis.basemapper.model.page.IPage;
+import top.chukongxiang.mybatis.basemapper.model.page.Page;
+import top.chukongxiang.mybatis.basemapper.sql.core.SQLInfo;
+import top.chukongxiang.mybatis.basemapper.sql.core.WrapperQuery;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 统计SQL：能直接统计时不渲染查询列和排序，DISTINCT、GROUP BY、HAVING、last 和分页保留子查询；
+ * 统计结果与查询行数一致；分页时不满一页不再统计
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-11 19:40:21
+ */
+class CountPlanTest {
+
+    private static final String DIRECT = "SELECT COUNT(*) FROM `t_count_user`";
+
+    private static final String SUB_QUERY = "SELECT COUNT(*) FROM (";
+
+    private static final CountingInterceptor COUNTING = new CountingInterceptor();
+
+    private static SqlSession session;
+
+    @BeforeAll
+    static void createTable() throws Exception {
+        UnpooledDataSource dataSource = new UnpooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:count_plan;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t_count_user(id BIGINT PRIMARY KEY, name VARCHAR(32), age INT)");
+            statement.execute("INSERT INTO t_count_user VALUES(1, 'a', 10), (2, 'b', 10), (3, 'c', 20), (4, 'd', 30)");
+        }
+        Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+        // 先添加的插件在内层，能看到 PageHelper 自己发出的统计查询
+        configuration.addInterceptor(COUNTING);
+        PageInterceptor pageInterceptor = new PageInterceptor();
+        Properties properties = new Properties();
+        properties.setProperty("helperDialect", "h2");
+        pageInterceptor.setProperties(properties);
+        configuration.addInterceptor(pageInterceptor);
+        configuration.addMapper(CountUserMapper.class);
+        session = new SqlSessionFactoryBuilder().build(configuration).openSession(true);
+    }
+
+    @AfterAll
+    static void close() {
+        session.close();
+    }
+
+    @BeforeEach
+    void resetCounter() {
+        COUNTING.counts.set(0);
+    }
+
+    @Test
+    void plainConditionsAreCountedDirectly() {
+        QueryWrapper<CountUser> wrapper = Wrappers.query(CountUser.class).select("name").ge("age", 10).orderByDesc("age");
+        String sql = assertCount(wrapper, 4);
+        assertTrue(sql.startsWith(DIRECT), sql);
+        assertFalse(sql.contains("ORDER BY"), sql);
+        assertFalse(sql.contains("`name`"), sql);
+
+        LambdaQueryWrapper<CountUser> lambda = Wrappers.lambdaQuery(CountUser.class).eq(CountUser::getAge, 10).orderByAsc(CountUser::getName);
+        sql = assertCount(lambda, 2);
+        assertTrue(sql.startsWith(DIRECT), sql);
+        assertFalse(sql.contains("ORDER BY"), sql);
+
+        sql = assertCount(Wrappers.emptyWrapper(CountUser.class), 4);
+        assertTrue(sql.startsWith(DIRECT), sql);
+    }
+
+    @Test
+    void resultShapingClausesKeepTheSubQuery() {
+        assertTrue(assertCount(Wrappers.query(CountUser.class).select(true, true, "age"), 3).startsWith(SUB_QUERY));
+        assertTrue(assertCount(Wrappers.query(CountUser.class).select("age").groupBy("age"), 3).startsWith(SUB_QUERY));
+        assertTrue(assertCount(Wrappers.query(CountUser.class).select("age").groupBy("age")
+                .having(w -> w.gt("COUNT(*)", 1)), 1).startsWith(SUB_QUERY));
+        assertTrue(assertCount(Wrappers.query(CountUser.class).orderByAsc("id").last("LIMIT 2"), 2).startsWith(SUB_QUERY));
+
+        assertTrue(assertCount(Wrappers.query(CountUser.class).orderByAsc("id").limit(1, 2), 2).startsWith(SUB_QUERY));
+
+        assertTrue(assertCount(Wrappers.lambdaQuery(CountUser.class).select(true, true, CountUser::getAge), 3).startsWith(SUB_QUERY));
+        assertTrue(assertCount(Wrappers.lambdaQuery(CountUser.class).select(true, false, CountUser::getAge)
+                .groupBy(CountUser::getAge), 3).startsWith(SUB_QUERY));
+        assertTrue(assertCount(Wrappers.lambdaQuery(CountUser.class).orderByAsc(CountUser::getId).last("LIMIT 3"), 3).startsWith(SUB_QUERY));
+        assertTrue(assertCount(Wrappers.emptyWrapper(CountUser.class).limit(3, 10), 1).startsWith(SUB_QUERY));
+    }
+
+    @Test
+    void countParametersArePrefixOfSelectParameters() {
+        QueryWrapper<CountUser> wrapper = Wrappers.query(CountUser.class).ge("age", 10).ne("name", "x").orderByAsc("id").limit(0, 2);
+        List<Object> selectValues = new ArrayList<>(wrapper.build().getValues());
+        List<Object> countValues = Wrappers.query(CountUser.class).ge("age", 10).ne("name", "x").orderByAsc("id").buildCount().getValues();
+        assertEquals(selectValues.subList(0, countValues.size()), countValues);
+    }
+
+    @Test
+    void templateCountIsCompiledOnce() {
+        WrapperTemplate<CountUser> template = WrapperTemplate.compile(Wrappers.query(CountUser.class)
+                .ge("age", WrapperTemplate.param(0)).orderByAsc("id"));
+        assertTrue(template.getCountSql().startsWith(DIRECT), template.getCountSql());
+        assertEquals(2, session.getMapper(CountUserMapper.class).count(template.bind(20)));
+        assertEquals(4, session.getMapper(CountUserMapper.class).count(template.bind(10)));
+    }
+
+    @Test
+    void shortPageSkipsTheCount() {
+        CountUserService service = new CountUserService(session.getMapper(CountUserMapper.class));
+        QueryWrapper<CountUser> wrapper = Wrappers.query(CountUser.class).orderByAsc("id");
+
+        // 第一页不满一页
+        IPage<CountUser> page = service.page(page(1, 10), wrapper);
+        assertEquals(4, page.getRecords().size());
+        assertEquals(4, page.getTotal());
+        assertEquals(0, COUNTING.counts.get());
+
+        // 最后一页不满一页
+        page = service.page(page(2, 3), wrapper);
+        assertEquals(1, page.getRecords().size());
+        assertEquals(4, page.getTotal());
+        assertEquals(0, COUNTING.counts.get());
+
+        // 满页需要统计
+        page = service.page(page(1, 2), wrapper);
+        assertEquals(2, page.getRecords().size());
+        assertEquals(4, page.getTotal());
+        assertEquals(1, COUNTING.counts.get());
+
+        // 超出范围的空页无法确定总数，需要统计
+        page = service.page(page(5, 3), wrapper);
+        assertTrue(page.getRecords().isEmpty());
+        assertEquals(4, page.getTotal());
+        assertEquals(2, COUNTING.counts.get());
+    }
+
+    /**
+     * 生成的统计SQL，并检查执行结果与查询行数一致
+     */
+    private static <E extends WrapperQuery<CountUser, E, C>, C> String assertCount(WrapperQuery<CountUser, E, C> wrapper, int expected) {
+        CountUserMapper mapper = session.getMapper(CountUserMapper.class);
+        assertEquals(expected, mapper.selectList(wrapper).size());
+        assertEquals(expected, mapper.count(wrapper));
+        SQLInfo<CountUser> count = wrapper.buildCount();
+        return count.getSql().trim();
+    }
+
+    private static Page<CountUser> page(long current, long size) {
+        return new Page<CountUser>().setCurrent(current).setSize(size);
+    }
+
+    /**
+     * 统计 BaseMapper#count 和 PageHelper 统计查询的执行次数
+     */
+    @Intercepts({
+            @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+            @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+    })
+    static class CountingInterceptor implements Interceptor {
+
+        private final AtomicInteger counts = new AtomicInteger();
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            String id = ((MappedStatement) invocation.getArgs()[0]).getId();
+            if (id.endsWith(".count") || id.endsWith("_COUNT")) {
+                counts.incrementAndGet();
+            }
+            return invocation.proceed();
+        }
+
+        @Override
+        public Object plugin(Object target) {
+            return Plugin.wrap(target, this);
+        }
+
+        @Override
+        public void setProperties(Properties properties) {
+        }
+    }
+
+    @Data
+    @TableName("t_count_user")
+    public static class CountUser {
+
+        @TableId
+        private Long id;
+
+        private String name;
+
+        private Integer age;
+    }
+
+    public interface CountUserMapper extends BaseMapper<CountUser> {
+    }
+
+    static class CountUserService extends ServiceImpl<CountUserMapper, CountUser> {
+        CountUserService(CountUserMapper mapper) {
+            this.baseMapper = mapper;
+        }
+    }
+
+}
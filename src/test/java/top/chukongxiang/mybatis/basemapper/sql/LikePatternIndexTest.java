@@ -0,0 +1,122 @@
+package top.chukongxiang.mybatis.basemapper.sql;
+
+import lombok.Data;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import top.chukongxiang.mybatis.basemapper.BaseMapper;
+import top.chukongxiang.mybatis.basemapper.model.Constants;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableId;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableName;
+import top.chukongxiang.mybatis.basemapper.sql.core.WrapperQuery;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LIKE 在 H2 上的执行计划和转义：likeRight 绑定 'n3%'，可以按索引范围扫描
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-10 17:38:26
+ */
+class LikePatternIndexTest {
+
+    private static Configuration configuration;
+
+    private static SqlSessionFactory sqlSessionFactory;
+
+    @BeforeAll
+    static void createTable() throws Exception {
+        UnpooledDataSource dataSource = new UnpooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:like_pattern;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t_like_user(id BIGINT PRIMARY KEY, user_name VARCHAR(64))");
+            statement.execute("CREATE INDEX idx_like_user_name ON t_like_user(user_name)");
+            String[] names = {"n1", "n3", "n30", "n3_x", "n4", "a%b", "ab", "n3%"};
+            for (int i = 0; i < names.length; i++) {
+                statement.execute("INSERT INTO t_like_user VALUES(" + (i + 1) + ", '" + names[i] + "')");
+            }
+        }
+        configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.addMapper(LikeUserMapper.class);
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    @Test
+    void likeRightUsesIndexRange() throws Exception {
+        String plan = explain(Wrappers.query(LikeUser.class).likeRight("userName", "n3"));
+        assertTrue(plan.contains("IDX_LIKE_USER_NAME"), plan);
+        assertTrue(plan.contains("USER_NAME >= 'n3'"), plan);
+    }
+
+    @Test
+    void wildcardsInValueAreEscaped() {
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            LikeUserMapper mapper = session.getMapper(LikeUserMapper.class);
+            assertEquals(listOf("n3", "n30", "n3_x", "n3%"),
+                    names(mapper.selectList(Wrappers.query(LikeUser.class).likeRight("userName", "n3"))));
+            assertEquals(listOf("n3_x"), names(mapper.selectList(Wrappers.query(LikeUser.class).likeRight("userName", "n3_"))));
+            assertEquals(listOf("a%b", "n3%"), names(mapper.selectList(Wrappers.query(LikeUser.class).like("userName", "%"))));
+            assertEquals(listOf("n3%"), names(mapper.selectList(Wrappers.query(LikeUser.class).likeLeft("userName", "3%"))));
+        }
+    }
+
+    /**
+     * 按 selectList 生成的SQL和参数执行 EXPLAIN
+     */
+    private static String explain(WrapperQuery<LikeUser, ?, ?> wrapper) throws Exception {
+        MappedStatement ms = configuration.getMappedStatement(LikeUserMapper.class.getName() + ".selectList");
+        MapperMethod.ParamMap<Object> parameter = new MapperMethod.ParamMap<>();
+        parameter.put(Constants.WRAPPER, wrapper);
+        parameter.put("param1", wrapper);
+        BoundSql boundSql = ms.getBoundSql(parameter);
+        try (Connection connection = configuration.getEnvironment().getDataSource().getConnection();
+             PreparedStatement ps = connection.prepareStatement("EXPLAIN " + boundSql.getSql())) {
+            new DefaultParameterHandler(ms, parameter, boundSql).setParameters(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                return rs.getString(1);
+            }
+        }
+    }
+
+    private static List<String> names(List<LikeUser> users) {
+        return users.stream().map(LikeUser::getUserName).sorted().collect(Collectors.toList());
+    }
+
+    private static List<String> listOf(String... names) {
+        return Arrays.stream(names).sorted().collect(Collectors.toList());
+    }
+
+    @Data
+    @TableName("t_like_user")
+    public static class LikeUser {
+
+        @TableId
+        private Long id;
+
+        private String userName;
+    }
+
+    public interface LikeUserMapper extends BaseMapper<LikeUser> {
+    }
+
+}
@@ -0,0 +1,128 @@
+package top.chukongxiang.mybatis.basemapper.sql;
+
+import lombok.Data;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import top.chukongxiang.mybatis.basemapper.BaseMapper;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.InListPadding;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableId;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableName;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Wrapper 参数按下标绑定到 H2：包含null的参数、结构相同的 Wrapper 复用缓存的SQL时绑定各自的参数、补齐的 IN 列表、子查询
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-11 19:06:52
+ */
+class WrapperBindingTest {
+
+    private static SqlSession session;
+
+    @BeforeAll
+    static void createTable() throws Exception {
+        UnpooledDataSource dataSource = new UnpooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:wrapper_binding;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t_binding_user(id BIGINT PRIMARY KEY, name VARCHAR(32), age INT)");
+            statement.execute("INSERT INTO t_binding_user VALUES(1, 'a', 1), (2, 'b', NULL), (3, NULL, 3), (4, 'd', 4)");
+        }
+        Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.addMapper(BindingUserMapper.class);
+        configuration.addMapper(PaddedBindingUserMapper.class);
+        session = new SqlSessionFactoryBuilder().build(configuration).openSession(true);
+    }
+
+    @AfterAll
+    static void close() {
+        session.close();
+    }
+
+    @Test
+    void nullValuesAreBoundInOrder() {
+        BindingUserMapper mapper = session.getMapper(BindingUserMapper.class);
+        assertEquals(Arrays.asList(1L, 4L), ids(mapper.selectList(query().in("age", 1, null, 4))));
+        assertEquals(Collections.emptyList(), ids(mapper.selectList(query().eq("name", null))));
+        assertEquals(Collections.emptyList(), ids(mapper.selectList(query().ne("age", null).or().eq("name", null))));
+        // null 参数前后的参数位置不变
+        assertEquals(Collections.singletonList(4L), ids(mapper.selectList(query().eq("name", "d").ne("name", null).or().eq("age", 4).eq("name", "d"))));
+        assertEquals(Collections.singletonList(1L), ids(mapper.selectList(query().between("age", 1, 3).isNotNull("name").notIn("name", "b", "d"))));
+    }
+
+    @Test
+    void sameShapeBindsItsOwnValues() {
+        BindingUserMapper mapper = session.getMapper(BindingUserMapper.class);
+        // 三次结构相同，第二次起命中按结构缓存的SQL
+        assertEquals(Collections.singletonList(1L), ids(mapper.selectList(query().eq("name", "a").in("age", 1, null))));
+        assertEquals(Collections.singletonList(4L), ids(mapper.selectList(query().eq("name", "d").in("age", null, 4))));
+        assertEquals(Collections.emptyList(), ids(mapper.selectList(query().eq("name", null).in("age", 1, 4))));
+        assertEquals(Collections.singletonList(3L), ids(mapper.selectList(query().eq("name", null).or().in("age", 3, null))));
+    }
+
+    @Test
+    void paddedInListsRepeatTheLastValue() {
+        PaddedBindingUserMapper mapper = session.getMapper(PaddedBindingUserMapper.class);
+        assertEquals(Arrays.asList(1L, 3L), ids(mapper.selectList(paddedQuery().in("id", 1L, 3L, null))));
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L), ids(mapper.selectList(paddedQuery().in("id", 1L, 2L, 3L, 4L, null).ne("id", 5L))));
+        assertEquals(Arrays.asList(2L, 3L), ids(mapper.selectByIds(Arrays.asList(2L, 3L, null))));
+    }
+
+    @Test
+    void subQueryValuesAreBoundBetweenOuterValues() {
+        BindingUserMapper mapper = session.getMapper(BindingUserMapper.class);
+        assertEquals(Collections.singletonList(3L), ids(mapper.selectList(query().ne("id", 0L)
+                .in("id", c -> c.query(BindingUser.class).select("id").in("age", 3, null).eq("name", null).or().eq("id", 3L))
+                .ne("id", 4L))));
+    }
+
+    private static QueryWrapper<BindingUser> query() {
+        return Wrappers.query(BindingUser.class).orderByAsc("id");
+    }
+
+    private static QueryWrapper<PaddedBindingUser> paddedQuery() {
+        return Wrappers.query(PaddedBindingUser.class).orderByAsc("id");
+    }
+
+    private static List<Long> ids(List<? extends BindingUser> users) {
+        return users.stream().map(BindingUser::getId).collect(Collectors.toList());
+    }
+
+    @Data
+    @TableName("t_binding_user")
+    public static class BindingUser {
+
+        @TableId
+        private Long id;
+
+        private String name;
+
+        private Integer age;
+    }
+
+    @TableName("t_binding_user")
+    public static class PaddedBindingUser extends BindingUser {
+    }
+
+    public interface BindingUserMapper extends BaseMapper<BindingUser> {
+    }
+
+    @InListPadding
+    public interface PaddedBindingUserMapper extends BaseMapper<PaddedBindingUser> {
+    }
+
+}
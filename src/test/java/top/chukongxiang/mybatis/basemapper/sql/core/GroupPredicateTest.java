@@ -0,0 +1,115 @@
+package top.chukongxiang.mybatis.basemapper.sql.core;
+
+import org.junit.jupiter.api.Test;
+import top.chukongxiang.mybatis.basemapper.model.enums.WrapperSqlCondition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link Predicate.GroupPredicate#of(List)} 的化简：OR 连接的同列 eq/in 合并为 IN，null 和空 IN 不合并，嵌套条件组
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-11 18:02:37
+ */
+class GroupPredicateTest {
+
+    @Test
+    void orEqualsOnSameColumnBecomeIn() {
+        Predicate.GroupPredicate group = group(and(eq("a", 1)), or(eq("a", 2)));
+        assertEquals(Collections.singletonList(Collections.singletonList(in("a", 1, 2))), group.chains);
+        assertEquals("a IN(#{ew.values[0]}, #{ew.values[1]})", render(group));
+    }
+
+    @Test
+    void eqAndInAreMergedWithoutDuplicates() {
+        Predicate.GroupPredicate group = group(and(eq("a", 1)), or(in("a", 2, 3)), or(eq("a", 1)), or(eq("b", 4)));
+        assertEquals(Arrays.asList(Collections.singletonList(in("a", 1, 2, 3)), Collections.singletonList(eq("b", 4))), group.chains);
+    }
+
+    @Test
+    void singleEqIsNotRewritten() {
+        assertEquals(Collections.singletonList(Collections.singletonList(eq("a", 1))), group(and(eq("a", 1))).chains);
+        // 同一个值重复时仍是 eq
+        assertEquals(Collections.singletonList(Collections.singletonList(eq("a", 1))), group(and(eq("a", 1)), or(eq("a", 1))).chains);
+        // 不同列不合并
+        assertEquals(Arrays.asList(Collections.singletonList(eq("a", 1)), Collections.singletonList(eq("b", 1))),
+                group(and(eq("a", 1)), or(eq("b", 1))).chains);
+    }
+
+    @Test
+    void andChainIsNotMerged() {
+        Predicate.GroupPredicate group = group(and(eq("a", 1)), and(eq("b", 2)), or(eq("a", 3)), or(eq("a", 3)));
+        assertEquals(Arrays.asList(Arrays.asList(eq("a", 1), eq("b", 2)), Collections.singletonList(eq("a", 3))), group.chains);
+        // AND 链中重复的条件只保留一个
+        assertEquals(Collections.singletonList(Collections.singletonList(eq("a", 1))), group(and(eq("a", 1)), and(eq("a", 1))).chains);
+    }
+
+    @Test
+    void nullValuesAreNotMerged() {
+        Predicate.ColumnPredicate eqNull = eq("a", null);
+        Predicate.ColumnPredicate inWithNull = in("a", 2, null);
+        Predicate.GroupPredicate group = group(and(eqNull), or(inWithNull), or(eq("a", 1)));
+        assertEquals(Arrays.asList(Collections.singletonList(eqNull), Collections.singletonList(inWithNull),
+                Collections.singletonList(eq("a", 1))), group.chains);
+    }
+
+    @Test
+    void emptyInIsNotMerged() {
+        Predicate.ColumnPredicate empty = in("a");
+        Predicate.GroupPredicate group = group(and(empty), or(eq("a", 1)), or(eq("a", 2)));
+        assertEquals(Arrays.asList(Collections.singletonList(empty), Collections.singletonList(in("a", 1, 2))), group.chains);
+    }
+
+    @Test
+    void nestedGroupsAreSimplifiedInsideAndKeptOutside() {
+        Predicate.GroupPredicate inner = group(and(eq("a", 1)), or(eq("a", 2)));
+        assertEquals(Collections.singletonList(Collections.singletonList(in("a", 1, 2))), inner.chains);
+
+        // (a IN (1, 2)) AND b = 3
+        Predicate.GroupPredicate outer = group(and(inner), and(eq("b", 3)));
+        assertEquals(Collections.singletonList(Arrays.asList(inner, eq("b", 3))), outer.chains);
+        assertEquals("(a IN(#{ew.values[0]}, #{ew.values[1]})) AND b = #{ew.values[2]}", render(outer));
+
+        // 条件组不参与合并，相同的条件组只保留一个：(a IN (1, 2)) OR a = 3
+        Predicate.GroupPredicate same = group(and(eq("a", 1)), or(eq("a", 2)));
+        Predicate.GroupPredicate or = group(and(inner), or(same), or(eq("a", 3)));
+        assertEquals(Arrays.asList(Collections.singletonList(inner), Collections.singletonList(eq("a", 3))), or.chains);
+    }
+
+    @Test
+    void emptyTermsReturnNull() {
+        assertNull(Predicate.GroupPredicate.of(Collections.emptyList()));
+    }
+
+    private static Predicate.GroupPredicate group(Predicate.Term... terms) {
+        return Predicate.GroupPredicate.of(Arrays.asList(terms));
+    }
+
+    private static Predicate.Term and(Predicate predicate) {
+        return new Predicate.Term(false, predicate);
+    }
+
+    private static Predicate.Term or(Predicate predicate) {
+        return new Predicate.Term(true, predicate);
+    }
+
+    private static Predicate.ColumnPredicate eq(String column, Object value) {
+        return new Predicate.ColumnPredicate(column, WrapperSqlCondition.EQ, value);
+    }
+
+    private static Predicate.ColumnPredicate in(String column, Object... values) {
+        return new Predicate.ColumnPredicate(column, WrapperSqlCondition.IN, new ArrayList<>(Arrays.asList(values)));
+    }
+
+    private static String render(Predicate predicate) {
+        SqlRenderContext ctx = new SqlRenderContext(64);
+        predicate.render(ctx);
+        return ctx.take();
+    }
+
+}
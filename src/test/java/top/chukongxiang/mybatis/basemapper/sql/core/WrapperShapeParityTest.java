@@ -0,0 +1,176 @@
+package top.chukongxiang.mybatis.basemapper.sql.core;
+
+import lombok.Data;
+import org.junit.jupiter.api.Test;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableId;
+import top.chukongxiang.mybatis.basemapper.model.annnotations.TableName;
+import top.chukongxiang.mybatis.basemapper.model.enums.DbType;
+import top.chukongxiang.mybatis.basemapper.sql.QueryWrapper;
+import top.chukongxiang.mybatis.basemapper.sql.Wrappers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * describe 写入的参数与 render 绑定的参数一致：个数、顺序、值都相同，SQL 中的占位符下标从0连续递增
+ * <p>按结构缓存的SQL命中时只执行 describe，参数不一致会绑定到错误的占位符</p>
+ * @author 楚孔响
+ * @version 1.0.0
+ * @date 2024-12-11 18:40:16
+ */
+class WrapperShapeParityTest {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("#\\{ew\\.values\\[(\\d+)]}");
+
+    @Test
+    void comparisons() {
+        assertParity(query().eq("name", "a").ne("name", null).gt("age", 1).ge("age", 2).lt("age", 3).le("age", null), 6);
+    }
+
+    @Test
+    void likes() {
+        assertParity(query().like("name", "a%").notLike("name", "b").likeLeft("name", "c_").notLikeLeft("name", "d")
+                .likeRight("name", "e").notLikeRight("name", null), 6);
+    }
+
+    @Test
+    void betweenAndNulls() {
+        assertParity(query().eq("id", 1).between("age", 1, null).isNull("name").isNotNull("age").eq("name", "x"), 4);
+    }
+
+    @Test
+    void inLists() {
+        assertParity(query().in("id", 1, null, 3).notIn("age", Arrays.asList(4, 5)).in("name", new ArrayList<>()), 5);
+    }
+
+    @Test
+    void subQueries() {
+        // 子查询的参数在外层条件之间
+        QueryWrapper<ParityUser> wrapper = query().eq("name", "before")
+                .in("id", c -> c.query(ParityUser.class).select("id").eq("age", 1).in("name", "x", null))
+                .exists("id", c -> c.query(ParityUser.class).select("id").likeRight("name", "y"))
+                .notIn("age", c -> c.query(ParityUser.class).select("age").between("id", 2, 3))
+                .eq("name", "after");
+        assertParity(wrapper, 8);
+    }
+
+    @Test
+    void nestedGroupsAndMergedIn() {
+        QueryWrapper<ParityUser> wrapper = query().eq("name", "a")
+                .and(w -> w.eq("age", 1).or().eq("age", 2).or().eq("age", null))
+                .or(w -> w.like("name", "b").between("id", 1, 2));
+        // age = 1 OR age = 2 合并为 IN
+        assertParity(wrapper, 7);
+    }
+
+    @Test
+    void havingKeysetAndLimit() {
+        QueryWrapper<ParityUser> wrapper = query().eq("name", "a").groupBy("age").having(w -> w.gt("age", 3)).orderByAsc("age");
+        wrapper.setKeyset(new Keyset(Arrays.asList(WrapperQuery.OrderBy.of("age"), WrapperQuery.OrderBy.of("id").setAsc(false)), Arrays.asList(10, 20L)));
+        wrapper.setLimit(new WrapperQuery.Limit(40, 20));
+        // where 1 + 游标 a >= ? AND (a > ? OR a = ? AND id < ?) 4 + having 1 + limit 2
+        assertParity(wrapper, 8);
+    }
+
+    @Test
+    void paddedIn() {
+        List<Object> values = InListStrategies.padding(true, () -> assertParity(query().in("id", 1, 2, 3, null, 5).eq("name", "x"), 9));
+        // 重复最后一个元素补齐到8个
+        assertEquals(Arrays.asList(1, 2, 3, null, 5, 5, 5, 5, "x"), values);
+    }
+
+    @Test
+    void chunkedIn() {
+        InListStrategy strategy = new InListStrategies.ChunkedInListStrategy(DbType.oracle, 3);
+        List<Object> values = Arrays.asList(1, 2, null, 4, 5, 6, 7);
+        assertStrategyParity(strategy, values, values);
+    }
+
+    @Test
+    void arrayIn() {
+        List<Object> values = Arrays.asList(1L, null, 3L);
+        for (DbType dbType : new DbType[]{DbType.h2, DbType.postgresql}) {
+            InListStrategy strategy = new InListStrategies.ArrayInListStrategy(dbType, 2);
+            assertTrue(strategy.supports(dbType, values));
+            // 整个列表一个参数
+            assertStrategyParity(strategy, values, Collections.singletonList(Arrays.asList("bigint", values)));
+        }
+    }
+
+    /**
+     * 同一个 Wrapper 先 render 再 describe，比较参数
+     * @return render 绑定的参数
+     */
+    private static List<Object> assertParity(QueryWrapper<ParityUser> wrapper, int expectedSize) {
+        SqlRenderContext ctx = new SqlRenderContext(256);
+        wrapper.render(ctx);
+        String sql = ctx.take();
+        List<Object> rendered = ctx.getValues();
+
+        WrapperShape.Builder shape = WrapperShape.builder(wrapper.getClass());
+        assertTrue(wrapper.describe(shape), sql);
+        assertEquals(expectedSize, rendered.size(), sql);
+        assertEquals(normalize(rendered), normalize(shape.getValues()), sql);
+        assertPlaceholdersInOrder(sql, rendered.size());
+        return rendered;
+    }
+
+    private static void assertStrategyParity(InListStrategy strategy, List<Object> values, List<Object> expected) {
+        SqlRenderContext ctx = new SqlRenderContext(64);
+        strategy.render(ctx, "id", false, values);
+        String sql = ctx.take();
+        WrapperShape.Builder shape = WrapperShape.builder(Object.class);
+        strategy.describe(shape, values);
+        assertEquals(normalize(ctx.getValues()), normalize(shape.getValues()), sql);
+        assertEquals(expected, normalize(ctx.getValues()), sql);
+        assertPlaceholdersInOrder(sql, ctx.getValues().size());
+    }
+
+    private static void assertPlaceholdersInOrder(String sql, int size) {
+        Matcher matcher = PLACEHOLDER.matcher(sql);
+        int index = 0;
+        while (matcher.find()) {
+            assertEquals(index++, Integer.parseInt(matcher.group(1)), sql);
+        }
+        assertEquals(size, index, sql);
+    }
+
+    /**
+     * ArrayParameter 每次创建新对象，按类型名和元素比较
+     */
+    private static List<Object> normalize(List<Object> values) {
+        List<Object> normalized = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (value instanceof ArrayParameter) {
+                ArrayParameter array = (ArrayParameter) value;
+                normalized.add(Arrays.asList(array.getTypeName(), Arrays.asList(array.getElements())));
+            } else {
+                normalized.add(value);
+            }
+        }
+        return normalized;
+    }
+
+    private static QueryWrapper<ParityUser> query() {
+        return Wrappers.query(ParityUser.class);
+    }
+
+    @Data
+    @TableName("t_parity_user")
+    public static class ParityUser {
+
+        @TableId
+        private Long id;
+
+        private String name;
+
+        private Integer age;
+    }
+
+}